@@ -29,6 +29,7 @@ package com.netbout.client;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.http.Request;
+import com.jcabi.http.RequestURI;
 import com.jcabi.http.response.RestResponse;
 import com.jcabi.http.response.XmlResponse;
 import com.jcabi.log.Logger;
@@ -37,6 +38,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.List;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import lombok.EqualsAndHashCode;
@@ -56,6 +58,21 @@ import org.apache.commons.io.IOUtils;
 @EqualsAndHashCode(of = { "request", "attachment" })
 final class RtAttachment implements Attachment {
 
+    /**
+     * HTTP status of partial content.
+     */
+    private static final int PARTIAL = 206;
+
+    /**
+     * HTTP header with the range requested.
+     */
+    private static final String RANGE = "Range";
+
+    /**
+     * HTTP header with the range of partial content.
+     */
+    private static final String CONTENT_RANGE = "Content-Range";
+
     /**
      * Request to use.
      */
@@ -128,6 +145,69 @@ final class RtAttachment implements Attachment {
         );
     }
 
+    @Override
+    public long size() throws IOException {
+        final List<String> ranges = this.download()
+            .header(RtAttachment.RANGE, "bytes=0-0")
+            .fetch()
+            .headers().get(RtAttachment.CONTENT_RANGE);
+        if (ranges == null || ranges.isEmpty()) {
+            throw new IOException(
+                String.format("size of \"%s\" is unknown", this.attachment)
+            );
+        }
+        final String range = ranges.get(0);
+        return Long.parseLong(range.substring(range.indexOf('/') + 1));
+    }
+
+    @Override
+    public InputStream read(final long offset, final long length)
+        throws IOException {
+        return new ByteArrayInputStream(
+            this.download()
+                .header(
+                    RtAttachment.RANGE,
+                    String.format("bytes=%d-%d", offset, offset + length - 1L)
+                )
+                .fetch()
+                .as(RestResponse.class)
+                .assertStatus(RtAttachment.PARTIAL)
+                .binary()
+        );
+    }
+
+    @Override
+    public InputStream thumbnail() throws IOException {
+        final String link = this.xpath("links/link[@rel='thumbnail']/@href");
+        final XmlResponse page = this.request.fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_OK)
+            .as(XmlResponse.class);
+        if (page.xml().xpath(link).isEmpty()) {
+            throw new Attachment.NoThumbnailException(
+                String.format("\"%s\" has no thumbnail", this.attachment)
+            );
+        }
+        final RestResponse response = page.rel(link)
+            .fetch()
+            .as(RestResponse.class);
+        if (response.status() == HttpURLConnection.HTTP_NOT_FOUND) {
+            throw new Attachment.NoThumbnailException(
+                String.format(
+                    "thumbnail of \"%s\" is not ready yet", this.attachment
+                )
+            );
+        }
+        return new ByteArrayInputStream(
+            response.assertStatus(HttpURLConnection.HTTP_OK).binary()
+        );
+    }
+
+    @Override
+    public String direct() {
+        return "";
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
@@ -153,6 +233,104 @@ final class RtAttachment implements Attachment {
         Logger.info(this, "attachment '%s' written", this.attachment);
     }
 
+    @Override
+    public String begin(final String ctype) throws IOException {
+        return this.action("begin")
+            .queryParam("ctype", ctype)
+            .back()
+            .method(Request.POST)
+            .fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_OK)
+            .body();
+    }
+
+    // @checkstyle ParameterNumberCheck (4 lines)
+    @Override
+    public void part(final String upload, final int number,
+        final InputStream stream, final long length) throws IOException {
+        this.action("part")
+            .queryParam("upload", upload)
+            .queryParam("number", number)
+            .back()
+            .body().set(IOUtils.toByteArray(stream)).back()
+            .method(Request.POST)
+            .header(
+                HttpHeaders.CONTENT_TYPE,
+                MediaType.APPLICATION_OCTET_STREAM
+            )
+            .fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_SEE_OTHER);
+    }
+
+    @Override
+    public String direct(final String upload, final int number)
+        throws IOException {
+        return this.action("direct")
+            .queryParam("upload", upload)
+            .queryParam("number", number)
+            .back()
+            .fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_OK)
+            .body();
+    }
+
+    @Override
+    public void complete(final String upload, final String etag)
+        throws IOException {
+        this.action("complete")
+            .queryParam("upload", upload)
+            .queryParam("etag", etag)
+            .back()
+            .method(Request.POST)
+            .fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_SEE_OTHER);
+        Logger.info(this, "attachment '%s' completed", this.attachment);
+    }
+
+    @Override
+    public void abort(final String upload) throws IOException {
+        this.action("abort")
+            .queryParam("upload", upload)
+            .back()
+            .method(Request.POST)
+            .fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_SEE_OTHER);
+    }
+
+    /**
+     * URI of an action of the bout with this attachment.
+     * @param rel Name of the link in the page
+     * @return URI
+     * @throws IOException If fails
+     */
+    private RequestURI action(final String rel) throws IOException {
+        return this.request.fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_OK)
+            .as(XmlResponse.class)
+            .rel(String.format("/page/links/link[@rel='%s']/@href", rel))
+            .uri()
+            .queryParam("name", this.attachment);
+    }
+
+    /**
+     * Request to download the content.
+     * @return Request
+     * @throws IOException If fails
+     */
+    private Request download() throws IOException {
+        return this.request.fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_OK)
+            .as(XmlResponse.class)
+            .rel(this.xpath("links/link[@rel='download']/@href"));
+    }
+
     /**
      * Xpath of the attachment in the page.
      * @param path Path to append
@@ -110,12 +110,109 @@ public final class ReAttachment implements Attachment {
         return this.origin.read();
     }
 
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public long size() throws IOException {
+        return this.origin.size();
+    }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public InputStream read(final long offset, final long length)
+        throws IOException {
+        return this.origin.read(offset, length);
+    }
+
+    @Override
+    public InputStream thumbnail() throws IOException {
+        return this.origin.thumbnail();
+    }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public String direct() throws IOException {
+        return this.origin.direct();
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
         this.write(IOUtils.toByteArray(stream), ctype, etag);
     }
 
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public String begin(final String ctype) throws IOException {
+        return this.origin.begin(ctype);
+    }
+
+    // @checkstyle ParameterNumberCheck (4 lines)
+    @Override
+    public void part(final String upload, final int number,
+        final InputStream stream, final long length) throws IOException {
+        this.part(upload, number, IOUtils.toByteArray(stream));
+    }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public String direct(final String upload, final int number)
+        throws IOException {
+        return this.origin.direct(upload, number);
+    }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public void complete(final String upload, final String etag)
+        throws IOException {
+        this.origin.complete(upload, etag);
+    }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public void abort(final String upload) throws IOException {
+        this.origin.abort(upload);
+    }
+
+    /**
+     * Upload one part from a byte array.
+     * @param upload ID of the upload
+     * @param number Number of the part
+     * @param bytes Bytes to upload
+     * @throws IOException If fails
+     */
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    private void part(final String upload, final int number,
+        final byte[] bytes) throws IOException {
+        this.origin.part(
+            upload, number, new ByteArrayInputStream(bytes),
+            (long) bytes.length
+        );
+    }
+
     /**
      * Write a byte array.
      * @param bytes Bytes to write
@@ -28,13 +28,16 @@ package com.netbout.mock;
 
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
+import com.jcabi.jdbc.ColumnOutcome;
 import com.jcabi.jdbc.JdbcSession;
 import com.jcabi.jdbc.Outcome;
 import com.jcabi.jdbc.SingleOutcome;
 import com.netbout.spi.Attachment;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.UUID;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.io.IOUtils;
@@ -133,6 +136,33 @@ final class MkAttachment implements Attachment {
         }
     }
 
+    @Override
+    public long size() throws IOException {
+        return (long) IOUtils.toByteArray(this.read()).length;
+    }
+
+    @Override
+    public InputStream read(final long offset, final long length)
+        throws IOException {
+        final byte[] data = IOUtils.toByteArray(this.read());
+        final int start = (int) Math.min(offset, (long) data.length);
+        return new ByteArrayInputStream(
+            data, start, (int) Math.min(length, (long) (data.length - start))
+        );
+    }
+
+    @Override
+    public InputStream thumbnail() throws IOException {
+        throw new Attachment.NoThumbnailException(
+            String.format("thumbnails of \"%s\" are not rendered", this.label)
+        );
+    }
+
+    @Override
+    public String direct() {
+        return "";
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
@@ -150,4 +180,92 @@ final class MkAttachment implements Attachment {
             throw new IOException(ex);
         }
     }
+
+    @Override
+    public String begin(final String ctype) throws IOException {
+        final String upload = UUID.randomUUID().toString();
+        try {
+            new JdbcSession(this.sql.source())
+                // @checkstyle LineLength (1 line)
+                .sql("INSERT INTO upload (id, bout, name, ctype) VALUES (?, ?, ?, ?)")
+                .set(upload)
+                .set(this.bout)
+                .set(this.label)
+                .set(ctype)
+                .execute();
+        } catch (final SQLException ex) {
+            throw new IOException(ex);
+        }
+        return upload;
+    }
+
+    // @checkstyle ParameterNumberCheck (4 lines)
+    @Override
+    public void part(final String upload, final int number,
+        final InputStream stream, final long length) throws IOException {
+        try {
+            new JdbcSession(this.sql.source())
+                .autocommit(false)
+                .sql("DELETE FROM part WHERE upload = ? AND number = ?")
+                .set(upload)
+                .set(number)
+                .execute()
+                .sql("INSERT INTO part (upload, number, data) VALUES (?, ?, ?)")
+                .set(upload)
+                .set(number)
+                .set(IOUtils.toString(stream, CharEncoding.UTF_8))
+                .execute()
+                .commit();
+        } catch (final SQLException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    public String direct(final String upload, final int number) {
+        return "";
+    }
+
+    @Override
+    public void complete(final String upload, final String etag)
+        throws IOException {
+        try {
+            final JdbcSession session = new JdbcSession(this.sql.source());
+            final String ctype = session
+                .sql("SELECT ctype FROM upload WHERE id = ?")
+                .set(upload)
+                .select(new SingleOutcome<String>(String.class));
+            final StringBuilder data = new StringBuilder(0);
+            for (final String part : session
+                .sql("SELECT data FROM part WHERE upload = ? ORDER BY number")
+                .set(upload)
+                .select(new ColumnOutcome<String>(String.class))) {
+                data.append(part);
+            }
+            this.write(
+                IOUtils.toInputStream(data.toString(), CharEncoding.UTF_8),
+                ctype, etag
+            );
+        } catch (final SQLException ex) {
+            throw new IOException(ex);
+        }
+        this.abort(upload);
+    }
+
+    @Override
+    public void abort(final String upload) throws IOException {
+        try {
+            new JdbcSession(this.sql.source())
+                .autocommit(false)
+                .sql("DELETE FROM part WHERE upload = ?")
+                .set(upload)
+                .execute()
+                .sql("DELETE FROM upload WHERE id = ?")
+                .set(upload)
+                .execute()
+                .commit();
+        } catch (final SQLException ex) {
+            throw new IOException(ex);
+        }
+    }
 }
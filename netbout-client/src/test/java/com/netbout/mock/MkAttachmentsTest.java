@@ -69,4 +69,33 @@ public final class MkAttachmentsTest {
         );
     }
 
+    /**
+     * MkAttachments can upload attachments in parts.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void uploadsInParts() throws Exception {
+        final Bout bout = new MkBase().randomBout();
+        final Attachments attachments = bout.attachments();
+        final String name = "parts";
+        attachments.create(name);
+        final Attachment attachment = attachments.get(name);
+        final String upload = attachment.begin("text/plain");
+        attachment.part(
+            upload, 2, IOUtils.toInputStream("world", CharEncoding.UTF_8), 5L
+        );
+        attachment.part(
+            upload, 1, IOUtils.toInputStream("hello ", CharEncoding.UTF_8), 6L
+        );
+        attachment.complete(upload, "etag-1");
+        MatcherAssert.assertThat(
+            IOUtils.toString(attachment.read(), CharEncoding.UTF_8),
+            Matchers.equalTo("hello world")
+        );
+        MatcherAssert.assertThat(
+            attachment.etag(),
+            Matchers.equalTo("etag-1")
+        );
+    }
+
 }
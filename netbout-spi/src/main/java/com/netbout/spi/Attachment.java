@@ -45,6 +45,13 @@ public interface Attachment {
      */
     String MARKDOWN = "text/x-markdown";
 
+    /**
+     * Content types, which have thumbnails, a regular expression.
+     * @see #thumbnail()
+     * @since 2.19
+     */
+    String THUMBNAILS = "image/(png|jpeg|gif|bmp)|application/pdf";
+
     /**
      * Its name.
      * @return Name of it
@@ -80,6 +87,41 @@ public interface Attachment {
      */
     InputStream read() throws IOException;
 
+    /**
+     * Get size of content.
+     * @return Size in bytes
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    long size() throws IOException;
+
+    /**
+     * Read a part of content.
+     *
+     * <p>The stream ends earlier, if there are less than {@code length}
+     * bytes after the {@code offset}.
+     *
+     * @param offset Position of the first byte to read
+     * @param length Maximum number of bytes to read
+     * @return Content
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    InputStream read(long offset, long length) throws IOException;
+
+    /**
+     * Direct link to read content straight from the storage.
+     *
+     * <p>The link is valid for a short time only. Getting it is the same
+     * as {@link #read()}, the attachment becomes seen.
+     *
+     * @return URL or empty string, if content can be read only through
+     *  {@link #read()}
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    String direct() throws IOException;
+
     /**
      * Write content (don't touch it if etag is the same as before).
      * @param stream Stream with content
@@ -91,6 +133,79 @@ public interface Attachment {
     void write(InputStream stream, String ctype, String etag)
         throws IOException;
 
+    /**
+     * Start a multipart upload of new content.
+     *
+     * <p>Parts can be uploaded in any order and in parallel, and every one
+     * of them can be uploaded again, if it fails. The content is replaced
+     * only when the upload is completed.
+     *
+     * @param ctype MIME content type
+     * @return Unique ID of the upload
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    String begin(String ctype) throws IOException;
+
+    /**
+     * Upload one part.
+     * @param upload ID of the upload
+     * @param number Number of the part, starting with one
+     * @param stream Stream with the part
+     * @param length Length of the part, in bytes
+     * @throws IOException If fails
+     * @since 2.19
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    void part(String upload, int number, InputStream stream, long length)
+        throws IOException;
+
+    /**
+     * Direct link to upload one part straight to the storage.
+     *
+     * <p>The link is valid for a short time only. The part has to be sent
+     * with HTTP PUT, and the upload has to be completed as usual,
+     * see {@link #complete(String, String)}.
+     *
+     * @param upload ID of the upload
+     * @param number Number of the part, starting with one
+     * @return URL or empty string, if the part can be uploaded only through
+     *  {@link #part(String, int, InputStream, long)}
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    String direct(String upload, int number) throws IOException;
+
+    /**
+     * Complete the upload and replace the content with its parts.
+     * @param upload ID of the upload
+     * @param etag New ETag (up to 256 characters)
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    void complete(String upload, String etag) throws IOException;
+
+    /**
+     * Abort the upload and forget its parts.
+     * @param upload ID of the upload
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    void abort(String upload) throws IOException;
+
+    /**
+     * Read a thumbnail of content, a small PNG image.
+     *
+     * <p>Only images and PDF documents have thumbnails. They are rendered
+     * in background, some time after the content is written.
+     *
+     * @return PNG image
+     * @throws IOException If fails
+     * @throws Attachment.NoThumbnailException If there is no thumbnail
+     * @since 2.19
+     */
+    InputStream thumbnail() throws IOException;
+
     /**
      * Attachment is too big.
      */
@@ -125,4 +240,21 @@ public interface Attachment {
         }
     }
 
+    /**
+     * Attachment has no thumbnail, yet or at all.
+     */
+    final class NoThumbnailException extends IOException {
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = -6379382653897037015L;
+        /**
+         * Ctor.
+         * @param cause Cause of the problem
+         */
+        public NoThumbnailException(final String cause) {
+            super(cause);
+        }
+    }
+
 }
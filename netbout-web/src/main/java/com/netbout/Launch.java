@@ -32,8 +32,11 @@ import com.jcabi.email.wire.SMTP;
 import com.jcabi.manifests.Manifests;
 import com.netbout.cached.CdBase;
 import com.netbout.dynamo.DyBase;
+import com.netbout.dynamo.DyBus;
+import com.netbout.dynamo.DyUploads;
 import com.netbout.email.EmBase;
 import com.netbout.rest.TkApp;
+import java.io.File;
 import org.takes.http.Exit;
 import org.takes.http.FtCLI;
 
@@ -59,12 +62,15 @@ public final class Launch {
      * @throws Exception If fails
      */
     public static void main(final String[] args) throws Exception {
+        final CdBase base = new CdBase(new DyBase(), new DyBus());
+        final String hot = Manifests.read("Netbout-HotKeys");
+        if (!hot.isEmpty()) {
+            base.warm(new File(hot));
+        }
+        new DyUploads().start();
         new FtCLI(
             new TkApp(
-                new EmBase(
-                    new CdBase(new DyBase()),
-                    new PostNoLoops(Launch.postman())
-                )
+                new EmBase(base, new PostNoLoops(Launch.postman()))
             ),
             args
         ).start(Exit.NEVER);
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.ToString;
+
+/**
+ * Bus of cache invalidations, shared by all nodes.
+ *
+ * <p>When a node flushes a tag of its cache, like "bout:5", it publishes
+ * the tag to the bus, and every other node flushes the same tag in its
+ * own cache. Events are the tags themselves, since a tag already tells
+ * what has changed ("bout", "alias" or "inbox") and which one. A bus
+ * may also tell listeners on this node about tags flushed by changes
+ * completed in the background, after the flush made by the change itself.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public interface Bus {
+
+    /**
+     * Publish a flushed tag to all other nodes.
+     * @param tag The tag
+     * @throws IOException If fails
+     */
+    void publish(String tag) throws IOException;
+
+    /**
+     * Listen to tags flushed by other nodes.
+     * @param listener The listener
+     */
+    void listen(Bus.Listener listener);
+
+    /**
+     * Listener of flushed tags.
+     */
+    interface Listener {
+        /**
+         * The tag was flushed by another node or in the background.
+         * @param tag The tag
+         */
+        void flushed(String tag);
+    }
+
+    /**
+     * Bus inside one JVM, for tests and for a single node.
+     *
+     * <p>The bus is mutable, that's why it is not {@code @Immutable}.
+     */
+    @ToString(of = "listeners")
+    final class Local implements Bus {
+        /**
+         * Listeners.
+         */
+        private final transient Collection<Bus.Listener> listeners =
+            new CopyOnWriteArrayList<Bus.Listener>();
+        @Override
+        public void publish(final String tag) {
+            for (final Bus.Listener listener : this.listeners) {
+                listener.flushed(tag);
+            }
+        }
+        @Override
+        public void listen(final Bus.Listener listener) {
+            this.listeners.add(listener);
+        }
+    }
+
+}
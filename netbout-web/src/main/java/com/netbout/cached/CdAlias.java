@@ -26,17 +26,14 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -66,52 +63,90 @@ final class CdAlias implements Alias {
         this.origin = org;
     }
 
+    /**
+     * Tag of all cached entries of the alias.
+     * @param name Name of the alias
+     * @return Tag
+     */
+    public static String tag(final String name) {
+        return String.format("alias:%s", name);
+    }
+
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String name() throws IOException {
         return this.origin.name();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public URI photo() throws IOException {
-        return this.origin.photo();
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "photo"), Store.HOURS,
+            new Store.Load<URI>() {
+                @Override
+                public URI load() throws IOException {
+                    return CdAlias.this.origin.photo();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Locale locale() throws IOException {
-        return this.origin.locale();
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "locale"), Store.HOURS,
+            new Store.Load<Locale>() {
+                @Override
+                public Locale load() throws IOException {
+                    return CdAlias.this.origin.locale();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void photo(final URI uri) throws IOException {
         this.origin.photo(uri);
+        Store.INSTANCE.flush(this.label());
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String email() throws IOException {
-        return this.origin.email();
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "email"), Store.HOURS,
+            new Store.Load<String>() {
+                @Override
+                public String load() throws IOException {
+                    return CdAlias.this.origin.email();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void email(final String email) throws IOException {
         this.origin.email(email);
+        Store.INSTANCE.flush(this.label());
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void email(final String email, final String urn,
         final Bout bout)
         throws IOException {
         this.origin.email(email, urn, bout);
+        Store.INSTANCE.flush(this.label());
     }
 
     @Override
     public Inbox inbox() throws IOException {
-        return new CdInbox(this.origin.inbox());
+        return new CdInbox(this.origin.inbox(), this.origin.name());
+    }
+
+    /**
+     * Tag of all cached entries of this alias.
+     * @return Tag
+     * @throws IOException If fails
+     */
+    private String label() throws IOException {
+        return CdAlias.tag(this.origin.name());
     }
 }
@@ -29,14 +29,11 @@ package com.netbout.cached;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Aliases;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -72,14 +69,30 @@ final class CdAliases implements Aliases {
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void add(final String name) throws IOException {
         this.origin.add(name);
+        Store.INSTANCE.remove(Store.key(this.origin, "iterate"));
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Alias> iterate() throws IOException {
+        return Store.INSTANCE.get(
+            "aliases", Store.key(this.origin, "iterate"), Store.HOURS,
+            new Store.Load<Iterable<Alias>>() {
+                @Override
+                public Iterable<Alias> load() throws IOException {
+                    return CdAliases.this.list();
+                }
+            }
+        );
+    }
+
+    /**
+     * Load all aliases.
+     * @return Aliases
+     * @throws IOException If fails
+     */
+    private Iterable<Alias> list() throws IOException {
         return Lists.newArrayList(
             Iterables.transform(
                 this.origin.iterate(),
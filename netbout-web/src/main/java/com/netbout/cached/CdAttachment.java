@@ -26,14 +26,11 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Attachment;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -47,7 +44,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout" })
 final class CdAttachment implements Attachment {
 
     /**
@@ -55,36 +52,75 @@ final class CdAttachment implements Attachment {
      */
     private final transient Attachment origin;
 
+    /**
+     * The bout it is in.
+     */
+    private final transient CdBout bout;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param parent The bout it is in
      */
-    CdAttachment(final Attachment org) {
+    CdAttachment(final Attachment org, final CdBout parent) {
         this.origin = org;
+        this.bout = parent;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String name() throws IOException {
-        return this.origin.name();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "name"),
+            Store.HOURS,
+            new Store.Load<String>() {
+                @Override
+                public String load() throws IOException {
+                    return CdAttachment.this.origin.name();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String ctype() throws IOException {
-        return this.origin.ctype();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "ctype"),
+            Store.HOURS,
+            new Store.Load<String>() {
+                @Override
+                public String load() throws IOException {
+                    return CdAttachment.this.origin.ctype();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String etag() throws IOException {
-        return this.origin.etag();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "etag"),
+            Store.HOURS,
+            new Store.Load<String>() {
+                @Override
+                public String load() throws IOException {
+                    return CdAttachment.this.origin.etag();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean unseen() throws IOException {
-        return this.origin.unseen();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "unseen"),
+            Store.HOURS,
+            new Store.Load<Boolean>() {
+                @Override
+                public Boolean load() throws IOException {
+                    return CdAttachment.this.origin.unseen();
+                }
+            }
+        );
     }
 
     @Override
@@ -93,9 +129,60 @@ final class CdAttachment implements Attachment {
     }
 
     @Override
-    @Cacheable.FlushAfter
+    public long size() throws IOException {
+        return this.origin.size();
+    }
+
+    @Override
+    public InputStream read(final long offset, final long length)
+        throws IOException {
+        return this.origin.read(offset, length);
+    }
+
+    @Override
+    public InputStream thumbnail() throws IOException {
+        return this.origin.thumbnail();
+    }
+
+    @Override
+    public String direct() throws IOException {
+        return this.origin.direct();
+    }
+
+    @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
         this.origin.write(stream, ctype, etag);
+        this.bout.flush();
+    }
+
+    @Override
+    public String begin(final String ctype) throws IOException {
+        return this.origin.begin(ctype);
+    }
+
+    // @checkstyle ParameterNumberCheck (4 lines)
+    @Override
+    public void part(final String upload, final int number,
+        final InputStream stream, final long length) throws IOException {
+        this.origin.part(upload, number, stream, length);
+    }
+
+    @Override
+    public String direct(final String upload, final int number)
+        throws IOException {
+        return this.origin.direct(upload, number);
+    }
+
+    @Override
+    public void complete(final String upload, final String etag)
+        throws IOException {
+        this.origin.complete(upload, etag);
+        this.bout.flush();
+    }
+
+    @Override
+    public void abort(final String upload) throws IOException {
+        this.origin.abort(upload);
     }
 }
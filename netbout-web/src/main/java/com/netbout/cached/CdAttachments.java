@@ -29,14 +29,11 @@ package com.netbout.cached;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Attachments;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +47,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout" })
 final class CdAttachments implements Attachments {
 
     /**
@@ -58,48 +55,93 @@ final class CdAttachments implements Attachments {
      */
     private final transient Attachments origin;
 
+    /**
+     * The bout it is in.
+     */
+    private final transient CdBout bout;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param parent The bout it is in
      */
-    CdAttachments(final Attachments org) {
+    CdAttachments(final Attachments org, final CdBout parent) {
         this.origin = org;
+        this.bout = parent;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public int unseen() throws IOException {
-        return this.origin.unseen();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "unseen"),
+            Store.HOURS,
+            new Store.Load<Integer>() {
+                @Override
+                public Integer load() throws IOException {
+                    return CdAttachments.this.origin.unseen();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void create(final String name) throws IOException {
         this.origin.create(name);
+        this.bout.flush();
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void delete(final String name) throws IOException {
         this.origin.delete(name);
+        this.bout.flush();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Attachment get(final String name) throws IOException {
-        return new CdAttachment(this.origin.get(name));
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "get", name),
+            Store.HOURS,
+            new Store.Load<Attachment>() {
+                @Override
+                public Attachment load() throws IOException {
+                    return new CdAttachment(
+                        CdAttachments.this.origin.get(name),
+                        CdAttachments.this.bout
+                    );
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Attachment> iterate() throws IOException {
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "iterate"),
+            Store.HOURS,
+            new Store.Load<Iterable<Attachment>>() {
+                @Override
+                public Iterable<Attachment> load() throws IOException {
+                    return CdAttachments.this.list();
+                }
+            }
+        );
+    }
+
+    /**
+     * Load all attachments.
+     * @return Attachments
+     * @throws IOException If fails
+     */
+    private Iterable<Attachment> list() throws IOException {
         return Lists.newArrayList(
             Iterables.transform(
                 this.origin.iterate(),
                 new Function<Attachment, Attachment>() {
                     @Override
                     public Attachment apply(final Attachment attachment) {
-                        return new CdAttachment(attachment);
+                        return new CdAttachment(
+                            attachment, CdAttachments.this.bout
+                        );
                     }
                 }
             )
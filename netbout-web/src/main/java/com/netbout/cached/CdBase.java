@@ -31,6 +31,7 @@ import com.jcabi.aspects.Loggable;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Base;
 import com.netbout.spi.User;
+import java.io.File;
 import java.io.IOException;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -61,9 +62,34 @@ public final class CdBase implements Base {
         this.origin = org;
     }
 
+    /**
+     * Public ctor, with a bus of invalidations shared by all nodes.
+     * @param org Origin
+     * @param bus Bus
+     * @since 2.19
+     */
+    public CdBase(final Base org, final Bus bus) {
+        this(org);
+        Store.INSTANCE.connect(bus);
+    }
+
     @Override
     public User user(final URN urn) throws IOException {
-        return new CdUser(this.origin.user(urn));
+        final User user = new CdUser(this.origin.user(urn));
+        Warmup.INSTANCE.user(user, urn);
+        return user;
+    }
+
+    /**
+     * Warm the cache up for the most active users saved to the file,
+     * before the node starts serving requests, and keep saving them
+     * there from time to time.
+     * @param file The file
+     * @throws IOException If fails
+     * @since 2.19
+     */
+    public void warm(final File file) throws IOException {
+        Warmup.INSTANCE.replay(this, file);
     }
 
     @Override
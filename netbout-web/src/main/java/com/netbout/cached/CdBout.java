@@ -26,17 +26,17 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Attachments;
 import com.netbout.spi.Bout;
+import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import com.netbout.spi.Messages;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Date;
-import java.util.concurrent.TimeUnit;
+import java.util.LinkedList;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +50,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "self" })
 @SuppressWarnings("PMD.TooManyMethods")
 final class CdBout implements Bout {
 
@@ -59,12 +59,28 @@ final class CdBout implements Bout {
      */
     private final transient Bout origin;
 
+    /**
+     * Name of the alias who sees the bout.
+     */
+    private final transient String self;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param alias Name of the alias who sees the bout
      */
-    CdBout(final Bout org) {
+    CdBout(final Bout org, final String alias) {
         this.origin = org;
+        this.self = alias;
+    }
+
+    /**
+     * Tag of all cached entries of the bout.
+     * @param number Number of the bout
+     * @return Tag
+     */
+    public static String tag(final long number) {
+        return String.format("bout:%d", number);
     }
 
     @Override
@@ -73,59 +89,159 @@ final class CdBout implements Bout {
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Date date() throws IOException {
-        return this.origin.date();
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "date"), Store.HOURS,
+            new Store.Load<Date>() {
+                @Override
+                public Date load() throws IOException {
+                    return CdBout.this.origin.date();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Date updated() throws IOException {
-        return this.origin.updated();
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "updated"), Store.HOURS,
+            new Store.Load<Date>() {
+                @Override
+                public Date load() throws IOException {
+                    return CdBout.this.origin.updated();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String title() throws IOException {
-        return this.origin.title();
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "title"), Store.HOURS,
+            new Store.Load<String>() {
+                @Override
+                public String load() throws IOException {
+                    return CdBout.this.origin.title();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void rename(final String text) throws IOException {
         this.origin.rename(text);
+        this.flush();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean subscription() throws IOException {
-        return this.origin.subscription();
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "subscription"), Store.HOURS,
+            new Store.Load<Boolean>() {
+                @Override
+                public Boolean load() throws IOException {
+                    return CdBout.this.origin.subscription();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean subscription(final String alias) throws IOException {
-        return this.origin.subscription(alias);
+        return Store.INSTANCE.get(
+            this.label(), Store.key(this.origin, "subscription", alias),
+            Store.HOURS,
+            new Store.Load<Boolean>() {
+                @Override
+                public Boolean load() throws IOException {
+                    return CdBout.this.origin.subscription(alias);
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void subscribe(final boolean subs) throws IOException {
         this.origin.subscribe(subs);
+        Store.INSTANCE.flush(this.label());
     }
 
     @Override
     public Messages messages() throws IOException {
-        return new CdMessages(this.origin.messages());
+        return new CdMessages(this.origin.messages(), this);
     }
 
     @Override
     public Friends friends() throws IOException {
-        return new CdFriends(this.origin.friends());
+        return new CdFriends(this.origin.friends(), this);
     }
 
     @Override
     public Attachments attachments() throws IOException {
-        return new CdAttachments(this.origin.attachments());
+        return new CdAttachments(this.origin.attachments(), this);
+    }
+
+    /**
+     * Load everything the inbox shows about the bout, in order to have it
+     * all in the cache.
+     * @throws IOException If fails
+     */
+    public void warm() throws IOException {
+        this.title();
+        this.updated();
+        this.messages().unread();
+        this.attachments().unseen();
+        for (final Friend friend : this.friends().iterate()) {
+            friend.alias();
+        }
+    }
+
+    /**
+     * Name of the alias who sees the bout.
+     * @return Name of the alias
+     */
+    public String viewer() {
+        return this.self;
+    }
+
+    /**
+     * Tag of all cached entries of this bout.
+     * @return Tag
+     * @throws IOException If fails
+     */
+    public String label() throws IOException {
+        return CdBout.tag(this.origin.number());
+    }
+
+    /**
+     * Something has changed in the bout, which all its friends see in
+     * their inboxes.
+     *
+     * <p>Only aliases of friends are read, not their profiles. Since friend
+     * rows are updated in the background, after the change, the same tags
+     * are flushed once again by the {@link Bus}, when they are written.
+     *
+     * @param others Other aliases to flush inboxes of, besides friends
+     * @throws IOException If fails
+     */
+    public void flush(final String... others) throws IOException {
+        final Collection<String> tags = new LinkedList<String>();
+        for (final Friend friend : this.origin.friends().iterate()) {
+            tags.add(CdInbox.tag(friend.alias()));
+        }
+        for (final String other : others) {
+            tags.add(CdInbox.tag(other));
+        }
+        tags.add(this.label());
+        Store.INSTANCE.flush(tags);
+    }
+
+    /**
+     * Something has changed in the bout, which only the alias who
+     * sees it, sees in the inbox.
+     * @throws IOException If fails
+     */
+    public void touch() throws IOException {
+        Store.INSTANCE.flush(CdInbox.tag(this.self));
     }
 }
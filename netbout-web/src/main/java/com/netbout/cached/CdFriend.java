@@ -26,14 +26,11 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Friend;
 import java.io.IOException;
 import java.net.URI;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -47,7 +44,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout" })
 final class CdFriend implements Friend {
 
     /**
@@ -55,29 +52,60 @@ final class CdFriend implements Friend {
      */
     private final transient Friend origin;
 
+    /**
+     * The bout it is in.
+     */
+    private final transient CdBout bout;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param parent The bout it is in
      */
-    CdFriend(final Friend org) {
+    CdFriend(final Friend org, final CdBout parent) {
         this.origin = org;
+        this.bout = parent;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String alias() throws IOException {
-        return this.origin.alias();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "alias"),
+            Store.HOURS,
+            new Store.Load<String>() {
+                @Override
+                public String load() throws IOException {
+                    return CdFriend.this.origin.alias();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public URI photo() throws IOException {
-        return this.origin.photo();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "photo"),
+            Store.HOURS,
+            new Store.Load<URI>() {
+                @Override
+                public URI load() throws IOException {
+                    return CdFriend.this.origin.photo();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String email() throws IOException {
-        return this.origin.email();
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "email"),
+            Store.HOURS,
+            new Store.Load<String>() {
+                @Override
+                public String load() throws IOException {
+                    return CdFriend.this.origin.email();
+                }
+            }
+        );
     }
 }
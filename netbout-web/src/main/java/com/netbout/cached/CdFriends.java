@@ -29,14 +29,11 @@ package com.netbout.cached;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -50,7 +47,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout" })
 final class CdFriends implements Friends {
 
     /**
@@ -58,36 +55,60 @@ final class CdFriends implements Friends {
      */
     private final transient Friends origin;
 
+    /**
+     * The bout it is in.
+     */
+    private final transient CdBout bout;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param parent The bout it is in
      */
-    CdFriends(final Friends org) {
+    CdFriends(final Friends org, final CdBout parent) {
         this.origin = org;
+        this.bout = parent;
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void invite(final String friend) throws IOException {
         this.origin.invite(friend);
+        this.bout.flush(friend);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void kick(final String friend) throws IOException {
         this.origin.kick(friend);
+        this.bout.flush(friend);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Friend> iterate() throws IOException {
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "iterate"),
+            Store.HOURS,
+            new Store.Load<Iterable<Friend>>() {
+                @Override
+                public Iterable<Friend> load() throws IOException {
+                    return CdFriends.this.list();
+                }
+            }
+        );
+    }
+
+    /**
+     * Load all friends.
+     * @return Friends
+     * @throws IOException If fails
+     */
+    private Iterable<Friend> list() throws IOException {
         return Lists.newArrayList(
             Iterables.transform(
                 this.origin.iterate(),
                 new Function<Friend, Friend>() {
                     @Override
                     public Friend apply(final Friend input) {
-                        return new CdFriend(input);
+                        return new CdFriend(input, CdFriends.this.bout);
                     }
                 }
             )
@@ -28,21 +28,25 @@ package com.netbout.cached;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 /**
  * Cached Inbox.
  *
+ * <p>The first page of the inbox is kept in the cache together with
+ * everything it shows about its bouts. It is flushed when something
+ * changes in any of them, see {@link CdBout#flush(String...)}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
@@ -50,7 +54,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "self" })
 final class CdInbox implements Inbox {
 
     /**
@@ -58,52 +62,126 @@ final class CdInbox implements Inbox {
      */
     private final transient Inbox origin;
 
+    /**
+     * Name of the alias it belongs to.
+     */
+    private final transient String self;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param alias Name of the alias
      */
-    CdInbox(final Inbox org) {
+    CdInbox(final Inbox org, final String alias) {
         this.origin = org;
+        this.self = alias;
+    }
+
+    /**
+     * Tag of all cached entries of the inbox.
+     * @param alias Name of the alias
+     * @return Tag
+     */
+    public static String tag(final String alias) {
+        return String.format("inbox:%s", alias);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public long start() throws IOException {
-        return this.origin.start();
+        final long number = this.origin.start();
+        Store.INSTANCE.flush(CdInbox.tag(this.self));
+        Store.INSTANCE.flush(CdBout.tag(number));
+        return number;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public long unread() throws IOException {
-        return this.origin.unread();
+        return Store.INSTANCE.get(
+            CdInbox.tag(this.self), Store.key(this.origin, "unread"),
+            Store.HOURS,
+            new Store.Load<Long>() {
+                @Override
+                public Long load() throws IOException {
+                    return CdInbox.this.origin.unread();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     @Loggable(
         value = Loggable.DEBUG,
         ignore = Inbox.BoutNotFoundException.class
     )
     public Bout bout(final long number) throws Inbox.BoutNotFoundException {
-        return new CdBout(this.origin.bout(number));
+        try {
+            return Store.INSTANCE.get(
+                CdBout.tag(number), Store.key(this.origin, "bout", number),
+                Store.HOURS,
+                new Store.Load<Bout>() {
+                    @Override
+                    public Bout load() throws IOException {
+                        return new CdBout(
+                            CdInbox.this.origin.bout(number),
+                            CdInbox.this.self
+                        );
+                    }
+                },
+                Inbox.BoutNotFoundException.class
+            );
+        } catch (final Inbox.BoutNotFoundException ex) {
+            throw ex;
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
     }
 
     @Override
     public Pageable<Bout> jump(final long number) throws IOException {
-        return new CdPageable<Bout>(this.origin.jump(number));
+        final Pageable<Bout> pageable;
+        if (number == Inbox.NEVER) {
+            pageable = this;
+        } else {
+            pageable = new CdPageable<Bout>(
+                this.origin.jump(number), this.self
+            );
+        }
+        return pageable;
     }
 
     @Override
     public Iterable<Bout> iterate() throws IOException {
-        return Iterables.transform(
-            this.origin.iterate(),
-            new Function<Bout, Bout>() {
+        final List<Bout> page = Store.INSTANCE.get(
+            CdInbox.tag(this.self), Store.key(this.origin, "page"),
+            Store.HOURS,
+            new Store.Load<List<Bout>>() {
                 @Override
-                public Bout apply(final Bout input) {
-                    return new CdBout(input);
+                public List<Bout> load() throws IOException {
+                    return CdInbox.this.page();
                 }
             }
         );
+        final Iterable<Bout> bouts;
+        if (page.size() < Inbox.PAGE) {
+            bouts = page;
+        } else {
+            final long since = page.get(page.size() - 1).updated().getTime();
+            bouts = Iterables.concat(
+                page,
+                new Iterable<Bout>() {
+                    @Override
+                    public Iterator<Bout> iterator() {
+                        try {
+                            return CdInbox.this.jump(since)
+                                .iterate().iterator();
+                        } catch (final IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                }
+            );
+        }
+        return bouts;
     }
 
     @Override
@@ -113,9 +191,26 @@ final class CdInbox implements Inbox {
             new Function<Bout, Bout>() {
                 @Override
                 public Bout apply(final Bout input) {
-                    return new CdBout(input);
+                    return new CdBout(input, CdInbox.this.self);
                 }
             }
         );
     }
+
+    /**
+     * Load the first page of the inbox, with everything it shows about
+     * every bout.
+     * @return Bouts
+     * @throws IOException If fails
+     */
+    private List<Bout> page() throws IOException {
+        final List<Bout> page = new ArrayList<Bout>(Inbox.PAGE);
+        for (final Bout bout
+            : Iterables.limit(this.origin.iterate(), Inbox.PAGE)) {
+            final CdBout cached = new CdBout(bout, this.self);
+            cached.warm();
+            page.add(cached);
+        }
+        return page;
+    }
 }
@@ -28,21 +28,25 @@ package com.netbout.cached;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 /**
  * Cached Messages.
  *
+ * <p>Pages of messages are cached by the number they start from, see
+ * {@link #jump(long)}. Only the latest page is flushed on post, since
+ * older pages never change.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.2
@@ -50,7 +54,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "bout" })
 final class CdMessages implements Messages {
 
     /**
@@ -58,6 +62,11 @@ final class CdMessages implements Messages {
      */
     private final transient Messages origin;
 
+    /**
+     * The bout they are in.
+     */
+    private final transient CdBout bout;
+
     /**
      * Flag to use for caching.
      */
@@ -66,16 +75,18 @@ final class CdMessages implements Messages {
     /**
      * Public ctor.
      * @param org Origin
+     * @param parent The bout they are in
      */
-    CdMessages(final Messages org) {
+    CdMessages(final Messages org, final CdBout parent) {
         this.origin = org;
-        this.flag = new CdMessages.Flag(org);
+        this.bout = parent;
+        this.flag = new CdMessages.Flag(org, parent);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void post(final String text) throws IOException {
         this.origin.post(text);
+        this.bout.flush();
     }
 
     @Override
@@ -85,7 +96,7 @@ final class CdMessages implements Messages {
 
     @Override
     public Pageable<Message> jump(final long number) throws IOException {
-        return new CdPageable<Message>(this.origin.jump(number));
+        return new CdMessages.Page(this.origin.jump(number), number);
     }
 
     @Override
@@ -115,6 +126,116 @@ final class CdMessages implements Messages {
             }
         );
     }
+
+    /**
+     * The latest messages of the bout, which are flushed on every post.
+     * @return Messages, the latest first
+     * @throws IOException If fails
+     */
+    private List<Message> head() throws IOException {
+        return Store.INSTANCE.get(
+            this.bout.label(), Store.key(this.origin, "head"), Store.HOURS,
+            new Store.Load<List<Message>>() {
+                @Override
+                public List<Message> load() throws IOException {
+                    return CdMessages.list(
+                        CdMessages.this.origin.iterate()
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * Load one page of messages.
+     * @param messages Messages, the latest first
+     * @return Page of messages
+     */
+    private static List<Message> list(final Iterable<Message> messages) {
+        final List<Message> page = new ArrayList<Message>(Messages.PAGE);
+        for (final Message message
+            : Iterables.limit(messages, Messages.PAGE)) {
+            page.add(new CdMessage(message));
+        }
+        return page;
+    }
+
+    /**
+     * Page of messages, starting from the given number.
+     *
+     * <p>If there are messages newer than the start, the page is
+     * historical, it never changes and is cached forever. Otherwise,
+     * the page is the head and is taken from {@link CdMessages#head()}.
+     * The original is iterated anyway, for its side effects, like marking
+     * messages as seen, but it is not read when the page is in the cache.
+     */
+    private final class Page implements Pageable<Message> {
+        /**
+         * Original.
+         */
+        private final transient Pageable<Message> pageable;
+        /**
+         * Number to start from, exclusive.
+         */
+        private final transient long start;
+        /**
+         * Ctor.
+         * @param org Original
+         * @param number Number to start from, exclusive
+         */
+        Page(final Pageable<Message> org, final long number) {
+            this.pageable = org;
+            this.start = number;
+        }
+        @Override
+        public Pageable<Message> jump(final long number) throws IOException {
+            return CdMessages.this.jump(number);
+        }
+        @Override
+        public Iterable<Message> iterate() throws IOException {
+            final Iterable<Message> fresh = this.pageable.iterate();
+            CdMessages.this.flag.touch();
+            final List<Message> head = CdMessages.this.head();
+            final List<Message> page;
+            if (head.isEmpty() || this.start > head.get(0).number()) {
+                page = head;
+            } else {
+                page = Store.INSTANCE.get(
+                    String.format("messages:%d", CdMessages.this.bout.number()),
+                    Store.key(CdMessages.this.origin, "page", this.start),
+                    Store.FOREVER,
+                    new Store.Load<List<Message>>() {
+                        @Override
+                        public List<Message> load() {
+                            return CdMessages.list(fresh);
+                        }
+                    }
+                );
+            }
+            final Iterable<Message> messages;
+            if (page.size() < Messages.PAGE) {
+                messages = page;
+            } else {
+                final long next = page.get(page.size() - 1).number();
+                messages = Iterables.concat(
+                    page,
+                    new Iterable<Message>() {
+                        @Override
+                        public Iterator<Message> iterator() {
+                            try {
+                                return CdMessages.this.jump(next)
+                                    .iterate().iterator();
+                            } catch (final IOException ex) {
+                                throw new IllegalStateException(ex);
+                            }
+                        }
+                    }
+                );
+            }
+            return messages;
+        }
+    }
+
     /**
      * Flag of read/unread.
      * @since 2.6
@@ -122,34 +243,51 @@ final class CdMessages implements Messages {
     @Immutable
     @Loggable(Loggable.DEBUG)
     @ToString(of = "messages")
-    @EqualsAndHashCode(of = "messages")
+    @EqualsAndHashCode(of = { "messages", "bout" })
     private static final class Flag {
         /**
          * Original.
          */
         private final transient Messages messages;
+        /**
+         * The bout they are in.
+         */
+        private final transient CdBout bout;
         /**
          * Public ctor.
          * @param org Origin
+         * @param parent The bout they are in
          */
-        Flag(final Messages org) {
+        Flag(final Messages org, final CdBout parent) {
             this.messages = org;
+            this.bout = parent;
         }
         /**
          * How many unread.
          * @return Number
          * @throws IOException If fails
          */
-        @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.MINUTES)
         public long unread() throws IOException {
-            return this.messages.unread();
+            return Store.INSTANCE.get(
+                this.bout.label(), Store.key(this.messages, "unread"),
+                Store.MINUTES,
+                new Store.Load<Long>() {
+                    @Override
+                    public Long load() throws IOException {
+                        return CdMessages.Flag.this.messages.unread();
+                    }
+                }
+            );
         }
         /**
          * I've seen them all.
+         * @throws IOException If fails
          */
-        @Cacheable.FlushBefore
-        public void touch() {
-            // nothing special
+        public void touch() throws IOException {
+            if (this.unread() > 0L) {
+                this.bout.touch();
+            }
+            Store.INSTANCE.remove(Store.key(this.messages, "unread"));
         }
     }
 
@@ -47,7 +47,7 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
-@EqualsAndHashCode(of = "origin")
+@EqualsAndHashCode(of = { "origin", "self" })
 final class CdPageable<T> implements Pageable<T> {
 
     /**
@@ -55,17 +55,24 @@ final class CdPageable<T> implements Pageable<T> {
      */
     private final transient Pageable<T> origin;
 
+    /**
+     * Name of the alias who sees them.
+     */
+    private final transient String self;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param alias Name of the alias who sees them
      */
-    CdPageable(final Pageable<T> org) {
+    CdPageable(final Pageable<T> org, final String alias) {
         this.origin = org;
+        this.self = alias;
     }
 
     @Override
     public Pageable<T> jump(final long number) throws IOException {
-        return new CdPageable<T>(this.origin.jump(number));
+        return new CdPageable<T>(this.origin.jump(number), this.self);
     }
 
     @Override
@@ -80,7 +87,9 @@ final class CdPageable<T> implements Pageable<T> {
                     if (input instanceof Message) {
                         result = new CdMessage(Message.class.cast(input));
                     } else {
-                        result = new CdBout(Bout.class.cast(input));
+                        result = new CdBout(
+                            Bout.class.cast(input), CdPageable.this.self
+                        );
                     }
                     return (T) result;
                 }
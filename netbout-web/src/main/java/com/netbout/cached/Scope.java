@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.ToString;
+
+/**
+ * Identity map of one HTTP request.
+ *
+ * <p>While the scope is open, every value loaded by the decorators of
+ * this package is remembered here and given back when it is asked again,
+ * without going to {@link Store} or to the base. Thus, one request sees
+ * every alias, bout, friend or attachment loaded at most once, even if
+ * the cache drops it in the middle of the request. When the request
+ * changes something, everything remembered is forgotten.
+ *
+ * <p>The scope is mutable, that's why it is not {@code @Immutable} and
+ * it has to be created for one request only.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = "saved")
+public final class Scope {
+
+    /**
+     * Scope open in the current thread.
+     */
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<Scope>();
+
+    /**
+     * Values by their keys.
+     */
+    private final transient ConcurrentMap<Object, Object> values =
+        new ConcurrentHashMap<Object, Object>(0);
+
+    /**
+     * How many times a value was found here.
+     */
+    private final transient AtomicInteger saved = new AtomicInteger();
+
+    /**
+     * Run the body with this scope open in the current thread.
+     * @param body The body
+     * @param <T> Type of result
+     * @return Result of the body
+     * @throws IOException If fails
+     */
+    public <T> T run(final Scope.Body<T> body) throws IOException {
+        final Scope before = Scope.CURRENT.get();
+        Scope.CURRENT.set(this);
+        try {
+            return body.run();
+        } finally {
+            if (before == null) {
+                Scope.CURRENT.remove();
+            } else {
+                Scope.CURRENT.set(before);
+            }
+        }
+    }
+
+    /**
+     * How many loads were saved, because values were found here.
+     * @return Number of loads saved
+     */
+    public int saved() {
+        return this.saved.get();
+    }
+
+    /**
+     * Scope open in the current thread, if any.
+     * @return Scope or NULL
+     */
+    static Scope current() {
+        return Scope.CURRENT.get();
+    }
+
+    /**
+     * Find the value.
+     * @param key Key of the value
+     * @return Value or NULL if it's not here
+     */
+    Object find(final Object key) {
+        final Object value = this.values.get(key);
+        if (value != null) {
+            this.saved.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Remember the value.
+     * @param key Key of the value
+     * @param value The value
+     */
+    void remember(final Object key, final Object value) {
+        if (value != null) {
+            this.values.put(key, value);
+        }
+    }
+
+    /**
+     * Forget the value.
+     * @param key Key of the value
+     */
+    void forget(final Object key) {
+        this.values.remove(key);
+    }
+
+    /**
+     * Forget everything.
+     */
+    void forget() {
+        this.values.clear();
+    }
+
+    /**
+     * Body to run in the scope.
+     * @param <T> Type of result
+     */
+    public interface Body<T> {
+        /**
+         * Run it.
+         * @return Result
+         * @throws IOException If fails
+         */
+        T run() throws IOException;
+    }
+
+}
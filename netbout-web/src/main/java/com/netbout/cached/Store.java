@@ -0,0 +1,621 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.netbout.spi.Message;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+
+/**
+ * Cache of values loaded by the decorators of this package.
+ *
+ * <p>Every entry is weighed by the approximate size of its value,
+ * including texts of messages, and the least recently used entries are
+ * evicted when the total weight gets bigger than the maximum. Every
+ * entry belongs to a tag, like "bout:5", and all entries of a tag are
+ * dropped together, when something changes there, see
+ * {@link #flush(String)}, on this node and on all other nodes connected
+ * to the same {@link Bus}. Besides that, entries expire after their
+ * lifetime, like they did with {@code @Cacheable}. A single entry
+ * can be dropped by its key, see {@link #remove(Object)}.
+ *
+ * <p>When many threads miss the same key at the same time, only one of
+ * them loads the value and others wait for it. When the value is not
+ * found, this fact may be remembered too, for a minute, see
+ * {@link #get(String, Object, long, Store.Load, Class)}.
+ *
+ * <p>The engine is mutable, that's why it is not {@code @Immutable} and
+ * is used through {@link #INSTANCE} only.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = { "hits", "misses", "evictions" })
+final class Store {
+
+    /**
+     * Shared instance.
+     */
+    public static final Store INSTANCE = new Store(
+        (long) Tv.FIFTY * (long) Tv.MILLION
+    );
+
+    /**
+     * Lifetime of most entries, in msec.
+     */
+    public static final long HOURS = TimeUnit.HOURS.toMillis((long) Tv.FIVE);
+
+    /**
+     * Lifetime of entries that change often, in msec.
+     */
+    public static final long MINUTES =
+        TimeUnit.MINUTES.toMillis((long) Tv.FIVE);
+
+    /**
+     * Lifetime of entries that never change, in msec; it's half of the
+     * maximum, in order not to overflow their deadlines.
+     */
+    public static final long FOREVER = Long.MAX_VALUE / 2L;
+
+    /**
+     * Lifetime of entries saying that the value is not found, in msec.
+     */
+    public static final long ABSENT = TimeUnit.MINUTES.toMillis(1L);
+
+    /**
+     * Weight of an entry, besides its value.
+     */
+    private static final int ENTRY = 128;
+
+    /**
+     * Weight of a value we can't weigh.
+     */
+    private static final int OBJECT = 64;
+
+    /**
+     * Entries.
+     */
+    private final transient Cache<Object, Store.Entry> cache;
+
+    /**
+     * Keys of entries by their tags.
+     */
+    private final transient ConcurrentMap<String, Set<Object>> tags;
+
+    /**
+     * Buses we're connected to.
+     */
+    private final transient CopyOnWriteArrayList<Bus> buses;
+
+    /**
+     * Hits.
+     */
+    private final transient AtomicLong hits;
+
+    /**
+     * Misses.
+     */
+    private final transient AtomicLong misses;
+
+    /**
+     * Entries evicted because of their weight.
+     */
+    private final transient AtomicLong evictions;
+
+    /**
+     * Ctor.
+     * @param weight Maximum total weight of entries
+     */
+    Store(final long weight) {
+        this.tags = new ConcurrentHashMap<String, Set<Object>>(0);
+        this.buses = new CopyOnWriteArrayList<Bus>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.cache = CacheBuilder.newBuilder()
+            .maximumWeight(weight)
+            .weigher(
+                new Weigher<Object, Store.Entry>() {
+                    @Override
+                    public int weigh(final Object key,
+                        final Store.Entry entry) {
+                        return entry.weight();
+                    }
+                }
+            )
+            .removalListener(
+                new RemovalListener<Object, Store.Entry>() {
+                    @Override
+                    public void onRemoval(
+                        final RemovalNotification<Object, Store.Entry> note) {
+                        if (note.getCause() == RemovalCause.SIZE) {
+                            Store.this.evictions.incrementAndGet();
+                        }
+                        if (note.getCause() != RemovalCause.REPLACED) {
+                            Store.this.unlist(note.getKey(), note.getValue());
+                        }
+                    }
+                }
+            )
+            .build();
+    }
+
+    /**
+     * Get the value, loading it if it's absent or expired.
+     * @param tag Tag of the entry
+     * @param key Key of the entry
+     * @param lifetime Lifetime of the entry, in msec
+     * @param load How to load the value
+     * @param <T> Type of value
+     * @return Value
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public <T> T get(final String tag, final Object key,
+        final long lifetime, final Store.Load<T> load) throws IOException {
+        return this.get(tag, key, lifetime, load, Void.class);
+    }
+
+    /**
+     * Get the value, loading it if it's absent or expired, and remembering
+     * for a short while that it is not found, if the load throws
+     * an exception of the given type. Exceptions with a cause are never
+     * remembered, since they report failures, not the absence.
+     * @param tag Tag of the entry
+     * @param key Key of the entry
+     * @param lifetime Lifetime of the entry, in msec
+     * @param load How to load the value
+     * @param absent Type of exception that means "not found"
+     * @param <T> Type of value
+     * @return Value
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String tag, final Object key,
+        final long lifetime, final Store.Load<T> load,
+        final Class<?> absent) throws IOException {
+        final Scope scope = Scope.current();
+        final Object found;
+        if (scope == null) {
+            found = null;
+        } else {
+            found = scope.find(key);
+        }
+        final T value;
+        if (found == null) {
+            final Store.Entry entry = this.fetch(
+                tag, key, lifetime, load, absent
+            );
+            if (entry.error() != null) {
+                throw entry.error();
+            }
+            value = (T) entry.value();
+            if (scope != null) {
+                scope.remember(key, value);
+            }
+        } else {
+            value = (T) found;
+        }
+        return value;
+    }
+
+    /**
+     * Drop all entries of the tag, here and on all other nodes.
+     * @param tag The tag
+     */
+    public void flush(final String tag) {
+        this.flush(Collections.singleton(tag));
+    }
+
+    /**
+     * Drop all entries of the tags, here and on all other nodes.
+     * @param tags The tags
+     */
+    public void flush(final Iterable<String> tags) {
+        for (final String tag : tags) {
+            this.drop(tag);
+        }
+        final Scope scope = Scope.current();
+        if (scope != null) {
+            scope.forget();
+        }
+        for (final Bus bus : this.buses) {
+            for (final String tag : tags) {
+                try {
+                    bus.publish(tag);
+                } catch (final IOException ex) {
+                    Logger.warn(
+                        this, "failed to publish \"%s\": %s", tag, ex
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Connect to the bus, in order to hear about tags flushed by
+     * other nodes and tell them about ours.
+     * @param bus The bus
+     */
+    public void connect(final Bus bus) {
+        if (this.buses.addIfAbsent(bus)) {
+            bus.listen(
+                new Bus.Listener() {
+                    @Override
+                    public void flushed(final String tag) {
+                        Store.this.drop(tag);
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Drop one entry.
+     * @param key Key of the entry
+     */
+    public void remove(final Object key) {
+        this.cache.invalidate(key);
+        final Scope scope = Scope.current();
+        if (scope != null) {
+            scope.forget(key);
+        }
+    }
+
+    /**
+     * How many times the value was found.
+     * @return Number of hits
+     */
+    public long hits() {
+        return this.hits.get();
+    }
+
+    /**
+     * How many times the value was loaded.
+     * @return Number of misses
+     */
+    public long misses() {
+        return this.misses.get();
+    }
+
+    /**
+     * How many entries were evicted because of their weight.
+     * @return Number of evictions
+     */
+    public long evictions() {
+        return this.evictions.get();
+    }
+
+    /**
+     * How many tags have entries.
+     * @return Number of tags
+     */
+    public int tags() {
+        return this.tags.size();
+    }
+
+    /**
+     * Make a key of an entry.
+     * @param origin Object the value is loaded from
+     * @param parts Name of the method and its arguments
+     * @return Key
+     */
+    public static Object key(final Object origin, final Object... parts) {
+        final List<Object> key = new ArrayList<Object>(parts.length + 1);
+        key.add(origin);
+        key.addAll(Arrays.asList(parts));
+        return key;
+    }
+
+    /**
+     * Get the entry from the cache, loading it if it's absent or expired.
+     *
+     * <p>Only one thread loads the entry, others wait for it and get
+     * the same entry, or the same exception. When the tag is dropped while
+     * the entry is loading, the entry is given to them, but is not kept
+     * in the cache, since it may be loaded before the change that caused
+     * the drop.
+     *
+     * @param tag Tag of the entry
+     * @param key Key of the entry
+     * @param lifetime Lifetime of the entry, in msec
+     * @param load How to load the value
+     * @param absent Type of exception that means "not found"
+     * @return Entry
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Store.Entry fetch(final String tag, final Object key,
+        final long lifetime, final Store.Load<?> load,
+        final Class<?> absent) throws IOException {
+        final Store.Entry old = this.cache.getIfPresent(key);
+        if (old != null && (old.expired() || !this.current(key, old))) {
+            this.cache.asMap().remove(key, old);
+        }
+        final AtomicBoolean loaded = new AtomicBoolean();
+        final Store.Entry entry;
+        try {
+            entry = this.cache.get(
+                key,
+                new Callable<Store.Entry>() {
+                    @Override
+                    public Store.Entry call() throws IOException {
+                        loaded.set(true);
+                        return Store.this.load(
+                            tag, key, lifetime, load, absent
+                        );
+                    }
+                }
+            );
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw IOException.class.cast(ex.getCause());
+            }
+            throw new IOException(ex.getCause());
+        } catch (final UncheckedExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw RuntimeException.class.cast(ex.getCause());
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+        if (!loaded.get()) {
+            this.hits.incrementAndGet();
+        } else if (!this.current(key, entry)) {
+            this.cache.asMap().remove(key, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Load the entry.
+     * @param tag Tag of the entry
+     * @param key Key of the entry
+     * @param lifetime Lifetime of the entry, in msec
+     * @param load How to load the value
+     * @param absent Type of exception that means "not found"
+     * @return Entry
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Store.Entry load(final String tag, final Object key,
+        final long lifetime, final Store.Load<?> load,
+        final Class<?> absent) throws IOException {
+        this.misses.incrementAndGet();
+        this.tags.putIfAbsent(
+            tag,
+            Collections.newSetFromMap(
+                new ConcurrentHashMap<Object, Boolean>(0)
+            )
+        );
+        final Set<Object> keys = this.tags.get(tag);
+        final long now = System.currentTimeMillis();
+        Store.Entry entry;
+        try {
+            entry = new Store.Entry(
+                tag, keys, load.load(), null, now + lifetime
+            );
+        } catch (final IOException ex) {
+            if (!absent.isInstance(ex) || ex.getCause() != null) {
+                throw ex;
+            }
+            entry = new Store.Entry(tag, keys, null, ex, now + Store.ABSENT);
+        }
+        keys.add(key);
+        return entry;
+    }
+
+    /**
+     * Drop all entries of the tag, here only.
+     * @param tag The tag
+     */
+    private void drop(final String tag) {
+        final Set<Object> keys = this.tags.remove(tag);
+        if (keys != null) {
+            this.cache.invalidateAll(keys);
+        }
+    }
+
+    /**
+     * Remove the key of the entry gone from the keys of its tag, and
+     * the tag itself, if it has no keys any more.
+     *
+     * <p>When the tag is removed right after another thread listed it
+     * for a new entry, that entry is not current and is loaded again,
+     * see {@link #current(Object, Store.Entry)}.
+     *
+     * @param key Key of the entry
+     * @param entry The entry
+     */
+    private void unlist(final Object key, final Store.Entry entry) {
+        final Set<Object> keys = entry.keys();
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            this.tags.remove(entry.tag(), keys);
+        }
+    }
+
+    /**
+     * Is the entry still listed under its tag, which was not dropped
+     * since the entry was loaded?
+     * @param key Key of the entry
+     * @param entry The entry
+     * @return TRUE if it is
+     */
+    private boolean current(final Object key, final Store.Entry entry) {
+        return this.tags.get(entry.tag()) == entry.keys()
+            && entry.keys().contains(key);
+    }
+
+    /**
+     * How to load a value.
+     * @param <T> Type of value
+     */
+    interface Load<T> {
+        /**
+         * Load it.
+         * @return Value
+         * @throws IOException If fails
+         */
+        T load() throws IOException;
+    }
+
+    /**
+     * Entry of the cache.
+     */
+    private static final class Entry {
+        /**
+         * Tag.
+         */
+        private final transient String label;
+        /**
+         * Keys of the tag, it is listed in.
+         */
+        private final transient Set<Object> listed;
+        /**
+         * Value.
+         */
+        private final transient Object object;
+        /**
+         * Exception thrown instead of the value, or NULL.
+         */
+        private final transient IOException exception;
+        /**
+         * When it expires, in msec.
+         */
+        private final transient long deadline;
+        /**
+         * Ctor.
+         * @param tag Tag
+         * @param keys Keys of the tag, it is listed in
+         * @param value Value
+         * @param error Exception thrown instead of the value, or NULL
+         * @param time When it expires, in msec
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Entry(final String tag, final Set<Object> keys, final Object value,
+            final IOException error, final long time) {
+            this.label = tag;
+            this.listed = keys;
+            this.object = value;
+            this.exception = error;
+            this.deadline = time;
+        }
+        /**
+         * Tag.
+         * @return Tag
+         */
+        public String tag() {
+            return this.label;
+        }
+        /**
+         * Keys of the tag, it is listed in.
+         * @return Keys
+         */
+        public Set<Object> keys() {
+            return this.listed;
+        }
+        /**
+         * Value.
+         * @return Value
+         */
+        public Object value() {
+            return this.object;
+        }
+        /**
+         * Exception thrown instead of the value.
+         * @return Exception or NULL
+         */
+        public IOException error() {
+            return this.exception;
+        }
+        /**
+         * Is it expired?
+         * @return TRUE if expired
+         */
+        public boolean expired() {
+            return System.currentTimeMillis() > this.deadline;
+        }
+        /**
+         * Approximate weight, in bytes.
+         * @return Weight
+         */
+        public int weight() {
+            return Store.ENTRY + Store.weight(this.object);
+        }
+    }
+
+    /**
+     * Approximate weight of a value, in bytes.
+     * @param value The value
+     * @return Weight
+     */
+    private static int weight(final Object value) {
+        int weight = Store.OBJECT;
+        if (value instanceof CharSequence) {
+            weight += CharSequence.class.cast(value).length() * 2;
+        } else if (value instanceof Message) {
+            final Message message = Message.class.cast(value);
+            try {
+                weight += Store.weight(message.text())
+                    + Store.weight(message.author());
+            } catch (final IOException ex) {
+                Logger.warn(Store.class, "can't weigh %s: %s", message, ex);
+            }
+        } else if (value instanceof Collection) {
+            for (final Object item : Collection.class.cast(value)) {
+                weight += Store.weight(item);
+            }
+        }
+        return weight;
+    }
+
+}
@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.jcabi.urn.URN;
+import com.netbout.spi.Alias;
+import com.netbout.spi.Base;
+import com.netbout.spi.Inbox;
+import com.netbout.spi.User;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+import org.apache.commons.codec.CharEncoding;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Warm-up of the cache.
+ *
+ * <p>When a user shows up for the first time since the node started,
+ * the first pages of the inboxes of all the user's aliases are loaded in
+ * the background, together with their unread totals and everything they
+ * show about their bouts, see {@link #user(User, URN)}. Users are
+ * counted and only the most active of them are remembered, the rest are
+ * forgotten every few minutes, see {@link #trim()}. The most active may
+ * also be saved to a file from time to time, in order to warm the cache
+ * up for them when the node starts again, see {@link #replay(Base, File)}.
+ *
+ * <p>The engine is mutable, that's why it is not {@code @Immutable} and
+ * is used through {@link #INSTANCE} only.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = "users")
+final class Warmup {
+
+    /**
+     * Shared instance.
+     */
+    public static final Warmup INSTANCE = new Warmup(Tv.TWO, Tv.FIFTY);
+
+    /**
+     * How many users are saved to the file.
+     */
+    private static final int TOP = Tv.HUNDRED;
+
+    /**
+     * How long the replay may take, in msec.
+     */
+    private static final long BUDGET = TimeUnit.SECONDS.toMillis(
+        (long) Tv.THIRTY
+    );
+
+    /**
+     * Pool of threads.
+     */
+    private final transient ThreadPoolExecutor pool;
+
+    /**
+     * Requests made by users, by their URNs.
+     */
+    private final transient ConcurrentMap<String, AtomicLong> users;
+
+    /**
+     * Timer of trims and saves.
+     */
+    private final transient ScheduledExecutorService timer;
+
+    /**
+     * Ctor.
+     * @param threads Maximum number of users warmed up in parallel
+     * @param queue Maximum number of users waiting in the queue
+     */
+    Warmup(final int threads, final int queue) {
+        this.pool = new ThreadPoolExecutor(
+            threads, threads, 1L, TimeUnit.MINUTES,
+            new ArrayBlockingQueue<Runnable>(queue),
+            new VerboseThreads(Warmup.class),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.pool.allowCoreThreadTimeOut(true);
+        this.users = new ConcurrentHashMap<String, AtomicLong>(0);
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(Warmup.class)
+        );
+        this.timer.scheduleWithFixedDelay(
+            new Runnable() {
+                @Override
+                public void run() {
+                    Warmup.this.trim();
+                }
+            },
+            (long) Tv.FIVE, (long) Tv.FIVE, TimeUnit.MINUTES
+        );
+    }
+
+    /**
+     * The user made a request; warm the cache up for the user in
+     * the background, if it's the first request since the node started.
+     * @param user The user
+     * @param urn URN of the user
+     */
+    public void user(final User user, final URN urn) {
+        if (this.hit(urn)) {
+            try {
+                this.pool.execute(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                Warmup.warm(user);
+                            } catch (final IOException ex) {
+                                Logger.warn(
+                                    Warmup.this, "failed to warm %s up: %s",
+                                    urn, ex
+                                );
+                            }
+                        }
+                    }
+                );
+            } catch (final RejectedExecutionException ex) {
+                Logger.warn(this, "warm-up of %s dropped, queue is full", urn);
+            }
+        }
+    }
+
+    /**
+     * Warm the cache up for the users saved to the file, if it exists,
+     * and save the most active users to the same file from time to time.
+     * @param base The base
+     * @param file The file
+     * @throws IOException If fails
+     */
+    public void replay(final Base base, final File file) throws IOException {
+        final long start = System.currentTimeMillis();
+        int done = 0;
+        if (file.exists()) {
+            for (final String line
+                : FileUtils.readLines(file, CharEncoding.UTF_8)) {
+                if (System.currentTimeMillis() - start > Warmup.BUDGET) {
+                    break;
+                }
+                final URN urn = URN.create(line);
+                this.hit(urn);
+                try {
+                    Warmup.warm(base.user(urn));
+                    ++done;
+                } catch (final IOException ex) {
+                    Logger.warn(this, "failed to warm %s up: %s", urn, ex);
+                }
+            }
+        }
+        Logger.info(
+            this, "cache warmed up for %d user(s) from %s in %[ms]s",
+            done, file, System.currentTimeMillis() - start
+        );
+        this.timer.scheduleWithFixedDelay(
+            new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Warmup.this.save(file);
+                    } catch (final IOException ex) {
+                        Logger.warn(
+                            Warmup.this, "failed to save %s: %s", file, ex
+                        );
+                    }
+                }
+            },
+            (long) Tv.FIVE, (long) Tv.FIVE, TimeUnit.MINUTES
+        );
+    }
+
+    /**
+     * Save the most active users to the file and forget others.
+     * @param file The file
+     * @throws IOException If fails
+     */
+    public void save(final File file) throws IOException {
+        FileUtils.writeLines(file, CharEncoding.UTF_8, this.trim());
+    }
+
+    /**
+     * Forget all users, except the most active ones.
+     * @return URNs of the most active users, the most active first
+     */
+    private List<String> trim() {
+        final List<Map.Entry<String, AtomicLong>> all =
+            new ArrayList<Map.Entry<String, AtomicLong>>(
+                this.users.entrySet()
+            );
+        Collections.sort(
+            all,
+            new Comparator<Map.Entry<String, AtomicLong>>() {
+                @Override
+                public int compare(final Map.Entry<String, AtomicLong> left,
+                    final Map.Entry<String, AtomicLong> right) {
+                    return Long.compare(
+                        right.getValue().get(), left.getValue().get()
+                    );
+                }
+            }
+        );
+        final List<String> top = new ArrayList<String>(Warmup.TOP);
+        for (final Map.Entry<String, AtomicLong> entry : all) {
+            if (top.size() < Warmup.TOP) {
+                top.add(entry.getKey());
+            } else {
+                this.users.remove(entry.getKey());
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Count the request of the user.
+     * @param urn URN of the user
+     * @return TRUE if it's the first request of the user
+     */
+    private boolean hit(final URN urn) {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong before = this.users.putIfAbsent(
+            urn.toString(), count
+        );
+        final boolean first;
+        if (before == null) {
+            count.incrementAndGet();
+            first = true;
+        } else {
+            before.incrementAndGet();
+            first = false;
+        }
+        return first;
+    }
+
+    /**
+     * Load everything the user will most likely see first.
+     * @param user The user
+     * @throws IOException If fails
+     */
+    private static void warm(final User user) throws IOException {
+        for (final Alias alias : user.aliases().iterate()) {
+            final Inbox inbox = alias.inbox();
+            inbox.unread();
+            inbox.iterate();
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.ScanValve;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Backfill of the indexes of terms, see {@link Terms} and {@link Hits}.
+ *
+ * <p>It scans the entire "messages" table and indexes every message
+ * found there, then it rebuilds the summary of terms of every bout
+ * found, see {@link Terms#summarize()}, then it scans the entire
+ * "friends" table and indexes every bout in the inbox of every friend.
+ * Run it once, right after "terms", "lexicon" and "hits" tables are
+ * created, with the same MANIFEST.MF as the web app:
+ *
+ * <pre> java -cp ... com.netbout.dynamo.Backfill</pre>
+ *
+ * <p>It is safe to run it again, the same items will be overwritten.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class Backfill {
+
+    /**
+     * Utility class.
+     */
+    private Backfill() {
+        // intentionally empty
+    }
+
+    /**
+     * Entry point.
+     * @param args Command line args
+     * @throws IOException If fails
+     */
+    public static void main(final String... args) throws IOException {
+        final Region region = DyBase.connect();
+        for (final Long bout : Backfill.terms(region)) {
+            new Terms(region, bout).summarize();
+        }
+        Backfill.hits(region);
+    }
+
+    /**
+     * Index all messages.
+     * @param region Region
+     * @return Numbers of bouts found
+     * @throws IOException If fails
+     */
+    private static Collection<Long> terms(final Region region)
+        throws IOException {
+        final Iterable<Item> items = region.table(DyMessages.TBL)
+            .frame()
+            .through(
+                new ScanValve()
+                    .withLimit(Tv.HUNDRED)
+                    .withAttributeToGet(
+                        DyMessages.HASH,
+                        DyMessages.RANGE,
+                        DyMessages.ATTR_TEXT,
+                        DyMessages.ATTR_DATE
+                    )
+            );
+        final Collection<Long> bouts = new TreeSet<Long>();
+        int total = 0;
+        for (final Item item : items) {
+            final long bout = Long.parseLong(item.get(DyMessages.HASH).getN());
+            bouts.add(bout);
+            new Terms(region, bout).index(
+                Long.parseLong(item.get(DyMessages.RANGE).getN()),
+                item.get(DyMessages.ATTR_TEXT).getS(),
+                Long.parseLong(item.get(DyMessages.ATTR_DATE).getN())
+            );
+            ++total;
+            if (total % Tv.THOUSAND == 0) {
+                Logger.info(Backfill.class, "%d messages indexed", total);
+            }
+        }
+        Logger.info(Backfill.class, "done, %d messages indexed", total);
+        return bouts;
+    }
+
+    /**
+     * Index all bouts in all inboxes.
+     * @param region Region
+     * @throws IOException If fails
+     */
+    private static void hits(final Region region) throws IOException {
+        final Iterable<Item> items = region.table(DyFriends.TBL)
+            .frame()
+            .through(
+                new ScanValve()
+                    .withLimit(Tv.HUNDRED)
+                    .withAttributeToGet(DyFriends.HASH, DyFriends.RANGE)
+            );
+        int total = 0;
+        for (final Item item : items) {
+            final long bout = Long.parseLong(item.get(DyFriends.HASH).getN());
+            new Hits(region, item.get(DyFriends.RANGE).getS()).index(
+                bout, new Terms(region, bout).latest()
+            );
+            ++total;
+            if (total % Tv.THOUSAND == 0) {
+                Logger.info(Backfill.class, "%d friends indexed", total);
+            }
+        }
+        Logger.info(Backfill.class, "done, %d friends indexed", total);
+    }
+
+}
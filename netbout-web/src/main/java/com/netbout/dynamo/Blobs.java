@@ -0,0 +1,460 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.s3.AmazonS3;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.mock.MkRegion;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.output.NullOutputStream;
+
+/**
+ * Content-addressed blobs in S3.
+ *
+ * <p>Content of attachments is stored in S3 under the SHA-256 of its
+ * bytes, so identical files attached to many bouts are stored once.
+ * The number of attachments referring to every blob is kept in "blobs"
+ * table. The content is uploaded to a temporary key first, since its
+ * hash is known only at the end of the stream. When a blob with the
+ * same hash already exists, the temporary object is dropped and only
+ * the counter is incremented. The blob is removed from S3 when the last
+ * reference to it is released.
+ *
+ * <p>Before the blob is removed, its item is marked as gone, on condition
+ * that nobody took a reference in the meantime. A marked blob can't be
+ * taken again until its item is deleted, that's how a blob, just copied
+ * by {@link #upload(InputStream, String)}, is never removed by a release
+ * running concurrently. Marks left by releases that didn't finish, for
+ * example because the node died, are cleaned up by the next upload of
+ * the same content, once they are older than a minute.
+ *
+ * <p>The blob is marked as ready only after its content is copied to
+ * its key in S3. Whoever takes a reference to a blob, which is not ready
+ * yet, copies the content from its own temporary object, so a failed or
+ * slow copy of another uploader never leaves the key without content.
+ *
+ * <p>Keys that don't belong to blobs, like "5/logo.png" of attachments
+ * uploaded before blobs were introduced, are removed right away on
+ * release, since nobody else may refer to them.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "bucket")
+@EqualsAndHashCode(of = { "region", "bucket" })
+final class Blobs {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "blobs";
+
+    /**
+     * SHA-256 of the content, in hex.
+     */
+    public static final String HASH = "sha";
+
+    /**
+     * How many attachments refer to the blob.
+     */
+    public static final String ATTR_REFS = "refs";
+
+    /**
+     * When the blob was marked as gone, in msec.
+     */
+    public static final String ATTR_GONE = "gone";
+
+    /**
+     * When the content of the blob was copied to its key in S3, in msec.
+     */
+    public static final String ATTR_READY = "ready";
+
+    /**
+     * Prefix of S3 keys of blobs.
+     */
+    private static final String PREFIX = "blobs/";
+
+    /**
+     * Prefix of temporary S3 keys.
+     */
+    private static final String TEMP = "temp/";
+
+    /**
+     * How many times to try to take a blob, which is being removed.
+     */
+    private static final int ATTEMPTS = Tv.TEN;
+
+    /**
+     * Marks of blobs being removed older than this, in msec, are stale.
+     */
+    private static final long STALE = TimeUnit.MINUTES.toMillis(1L);
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bucket with blobs.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param bkt Bucket
+     */
+    Blobs(final Region reg, final Bucket bkt) {
+        this.region = reg;
+        this.bucket = bkt;
+    }
+
+    /**
+     * Make a new temporary key, to upload the content to.
+     * @return S3 key
+     */
+    public String temporary() {
+        return String.format("%s%s", Blobs.TEMP, UUID.randomUUID());
+    }
+
+    /**
+     * Upload the stream and take a reference to its blob.
+     * @param stream Content
+     * @param ctype Content type
+     * @return S3 key of the blob
+     * @throws IOException If fails
+     */
+    public String upload(final InputStream stream, final String ctype)
+        throws IOException {
+        final String temp = this.temporary();
+        final MessageDigest digest = Blobs.digest();
+        new Upload(this.bucket, temp, ctype).send(
+            new DigestInputStream(stream, digest)
+        );
+        return this.acquire(temp, Hex.encodeHexString(digest.digest()));
+    }
+
+    /**
+     * Take a reference to the blob with the content of a temporary object,
+     * already uploaded, for example by a {@link Multipart}.
+     *
+     * <p>The object is read back from S3 to calculate its hash, since
+     * S3 doesn't give a hash of the content of multipart uploads, that's
+     * why it is done in background, see
+     * {@link Multipart#adopt(Region, com.jcabi.s3.Bucket)}. The temporary
+     * object is not removed, since somebody may still read it.
+     *
+     * @param temp Temporary S3 key
+     * @return S3 key of the blob
+     * @throws IOException If fails
+     */
+    public String adopt(final String temp) throws IOException {
+        final MessageDigest digest = Blobs.digest();
+        this.bucket.ocket(temp).read(
+            new DigestOutputStream(new NullOutputStream(), digest)
+        );
+        return this.claim(temp, Hex.encodeHexString(digest.digest()));
+    }
+
+    /**
+     * Release a reference to the blob.
+     * @param key S3 key of the blob
+     * @throws IOException If fails
+     */
+    public void release(final String key) throws IOException {
+        if (key.startsWith(Blobs.PREFIX)) {
+            final String sha = key.substring(Blobs.PREFIX.length());
+            final Keyed item = this.item(sha);
+            final long refs = Long.parseLong(
+                item.put(Blobs.refs(-1L)).get(Blobs.ATTR_REFS).getN()
+            );
+            if (refs <= 0L) {
+                final AttributeValue mark = new AttributeValue().withN(
+                    Long.toString(System.currentTimeMillis())
+                );
+                try {
+                    item.put(
+                        new AttributeUpdates().with(Blobs.ATTR_GONE, mark),
+                        Collections.singletonMap(
+                            Blobs.ATTR_REFS,
+                            new ExpectedAttributeValue(
+                                new AttributeValue().withN(Long.toString(refs))
+                            )
+                        )
+                    );
+                    this.remove(sha, mark);
+                } catch (final Keyed.ConflictException ex) {
+                    Logger.info(this, "blob %s was taken again", key);
+                }
+            }
+        } else {
+            this.bucket.remove(key);
+        }
+    }
+
+    /**
+     * Take a reference to the blob and drop the temporary object.
+     * @param temp Temporary S3 key with the content
+     * @param sha SHA-256 of the content
+     * @return S3 key of the blob
+     * @throws IOException If fails
+     */
+    private String acquire(final String temp, final String sha)
+        throws IOException {
+        final String key;
+        try {
+            key = this.claim(temp, sha);
+        } finally {
+            this.bucket.remove(temp);
+        }
+        return key;
+    }
+
+    /**
+     * Take a reference to the blob.
+     *
+     * <p>When the blob is not ready, the temporary object is copied to it
+     * and the blob is marked as ready. If the copy fails, the reference is
+     * released back.
+     *
+     * @param temp Temporary S3 key with the content
+     * @param sha SHA-256 of the content
+     * @return S3 key of the blob
+     * @throws IOException If fails
+     */
+    private String claim(final String temp, final String sha)
+        throws IOException {
+        final String key = String.format("%s%s", Blobs.PREFIX, sha);
+        final Map<String, AttributeValue> attrs = this.take(sha);
+        if (attrs.containsKey(Blobs.ATTR_READY)) {
+            Logger.info(
+                this, "blob %s already exists, %s refs",
+                key, attrs.get(Blobs.ATTR_REFS).getN()
+            );
+        } else {
+            try {
+                this.copy(temp, key);
+                this.item(sha).put(
+                    new AttributeUpdates().with(
+                        Blobs.ATTR_READY,
+                        new AttributeValue().withN(
+                            Long.toString(System.currentTimeMillis())
+                        )
+                    )
+                );
+            } catch (final IOException ex) {
+                this.release(key);
+                throw ex;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Increment the number of references to the blob, which is not gone.
+     *
+     * <p>While the blob is being removed, we wait for the removal to finish
+     * and try again, the blob will be created from scratch then.
+     *
+     * @param sha SHA-256 of the content
+     * @return Attributes of the blob, after the increment
+     * @throws IOException If fails
+     */
+    private Map<String, AttributeValue> take(final String sha)
+        throws IOException {
+        final Keyed item = this.item(sha);
+        final Map<String, ExpectedAttributeValue> alive =
+            Collections.singletonMap(
+                Blobs.ATTR_GONE, new ExpectedAttributeValue(false)
+            );
+        Map<String, AttributeValue> attrs = null;
+        int attempt = 0;
+        while (attrs == null) {
+            try {
+                attrs = item.put(Blobs.refs(1L), alive);
+            } catch (final Keyed.ConflictException ex) {
+                ++attempt;
+                if (attempt >= Blobs.ATTEMPTS) {
+                    throw new IOException(
+                        String.format("blob %s is still being removed", sha),
+                        ex
+                    );
+                }
+                this.settle(sha, item.load());
+            }
+        }
+        return attrs;
+    }
+
+    /**
+     * Wait for the blob being removed, or finish its removal if its mark
+     * is stale.
+     * @param sha SHA-256 of the content
+     * @param attrs Attributes of its item
+     * @throws IOException If fails
+     */
+    private void settle(final String sha,
+        final Map<String, AttributeValue> attrs) throws IOException {
+        if (attrs.containsKey(Blobs.ATTR_GONE)) {
+            final AttributeValue mark = attrs.get(Blobs.ATTR_GONE);
+            if (System.currentTimeMillis() - Long.parseLong(mark.getN())
+                > Blobs.STALE) {
+                try {
+                    this.remove(sha, mark);
+                } catch (final Keyed.ConflictException ex) {
+                    Logger.info(this, "blob %s removed by someone else", sha);
+                }
+            } else {
+                try {
+                    TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove the blob, which is marked as gone, from S3 and its item.
+     * @param sha SHA-256 of the content
+     * @param mark Its mark
+     * @throws IOException If fails
+     */
+    private void remove(final String sha, final AttributeValue mark)
+        throws IOException {
+        final String key = String.format("%s%s", Blobs.PREFIX, sha);
+        this.bucket.remove(key);
+        this.item(sha).delete(
+            Collections.singletonMap(
+                Blobs.ATTR_GONE, new ExpectedAttributeValue(mark)
+            )
+        );
+        Logger.info(this, "blob %s removed", key);
+    }
+
+    /**
+     * Copy an object to another key.
+     *
+     * <p>The {@link MkRegion} stand-in has no AWS client, that's why
+     * the content is read and written back there.
+     *
+     * @param source S3 key of the object
+     * @param target S3 key of the copy
+     * @throws IOException If fails
+     */
+    private void copy(final String source, final String target)
+        throws IOException {
+        if (this.bucket.region() instanceof MkRegion) {
+            final Ocket ocket = this.bucket.ocket(source);
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ocket.read(baos);
+            this.bucket.ocket(target).write(
+                new ByteArrayInputStream(baos.toByteArray()), ocket.meta()
+            );
+        } else {
+            final AmazonS3 aws = this.bucket.region().aws();
+            try {
+                aws.copyObject(
+                    this.bucket.name(), source, this.bucket.name(), target
+                );
+            } catch (final AmazonClientException ex) {
+                throw new IOException(ex);
+            } finally {
+                aws.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Item of the blob in "blobs" table.
+     * @param sha SHA-256 of the content
+     * @return Item
+     */
+    private Keyed item(final String sha) {
+        return new Keyed(
+            this.region, Blobs.TBL, new Attributes().with(Blobs.HASH, sha)
+        );
+    }
+
+    /**
+     * Update of the number of references.
+     * @param delta How many to add
+     * @return Updates
+     */
+    private static AttributeUpdates refs(final long delta) {
+        return new AttributeUpdates().with(
+            Blobs.ATTR_REFS,
+            new AttributeValueUpdate()
+                .withAction(AttributeAction.ADD)
+                .withValue(new AttributeValue().withN(Long.toString(delta)))
+        );
+    }
+
+    /**
+     * Make a new SHA-256 digest.
+     * @return Digest
+     */
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Counter that reserves blocks of numbers in the origin one.
+ *
+ * <p>Numbers are reserved in the origin counter by blocks (hi/lo),
+ * and then given out from memory, without any locks. When a block
+ * is used by half, the next one is reserved in the background, in order
+ * not to wait for the origin when the current block is exhausted.
+ *
+ * <p>The origin is a store of blocks and can be any counter: sttc
+ * or an in-memory one, in tests.
+ *
+ * <p>Pay attention that numbers reserved but not given out are lost
+ * when JVM stops. Also, when a few JVMs share the same origin, numbers
+ * are unique, but not monotonic in time. That's why it's good for bout
+ * numbers only, which are ordered by the time of their updates, but not
+ * for message numbers, which must follow the time they were posted in.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = { "origin", "size" })
+@EqualsAndHashCode(of = { "origin", "size" })
+final class Blocks implements Counter {
+
+    /**
+     * Pools of numbers, per origin counter.
+     */
+    private static final ConcurrentMap<Counter, Blocks.Pool> POOLS =
+        new ConcurrentHashMap<Counter, Blocks.Pool>(0);
+
+    /**
+     * Threads reserving next blocks.
+     */
+    private static final ExecutorService PREFETCH =
+        Executors.newSingleThreadExecutor(new VerboseThreads(Blocks.class));
+
+    /**
+     * Origin counter.
+     */
+    private final transient Counter origin;
+
+    /**
+     * Size of one block.
+     */
+    private final transient long size;
+
+    /**
+     * Ctor.
+     * @param ctr Origin counter
+     * @param sze Size of one block
+     */
+    Blocks(final Counter ctr, final long sze) {
+        this.origin = ctr;
+        this.size = sze;
+    }
+
+    @Override
+    public String name() {
+        return this.origin.name();
+    }
+
+    @Override
+    public void set(final long value) throws IOException {
+        this.origin.set(value);
+        Blocks.POOLS.remove(this.origin);
+    }
+
+    @Override
+    public long incrementAndGet(final long delta) throws IOException {
+        final long number;
+        if (delta == 1L) {
+            number = this.pool().next();
+        } else {
+            number = this.origin.incrementAndGet(delta);
+        }
+        return number;
+    }
+
+    /**
+     * Pool of the origin counter.
+     * @return Pool
+     */
+    private Blocks.Pool pool() {
+        Blocks.Pool pool = Blocks.POOLS.get(this.origin);
+        if (pool == null) {
+            Blocks.POOLS.putIfAbsent(
+                this.origin, new Blocks.Pool(this.origin, this.size)
+            );
+            pool = Blocks.POOLS.get(this.origin);
+        }
+        return pool;
+    }
+
+    /**
+     * Pool of numbers, the current block and the next one.
+     */
+    private static final class Pool {
+        /**
+         * Origin.
+         */
+        private final transient Counter origin;
+        /**
+         * Size of one block.
+         */
+        private final transient long size;
+        /**
+         * Current block.
+         */
+        private final transient AtomicReference<Blocks.Block> current;
+        /**
+         * Next block, reserved in advance, or NULL.
+         */
+        private final transient AtomicReference<Blocks.Block> spare;
+        /**
+         * Next block is being reserved now.
+         */
+        private final transient AtomicBoolean loading;
+        /**
+         * Ctor.
+         * @param ctr Origin
+         * @param sze Size of one block
+         */
+        Pool(final Counter ctr, final long sze) {
+            this.origin = ctr;
+            this.size = sze;
+            this.current = new AtomicReference<Blocks.Block>(
+                new Blocks.Block(1L, 0L)
+            );
+            this.spare = new AtomicReference<Blocks.Block>();
+            this.loading = new AtomicBoolean();
+        }
+        /**
+         * Next number.
+         * @return Number
+         * @throws IOException If fails
+         */
+        public long next() throws IOException {
+            while (true) {
+                final Blocks.Block block = this.current.get();
+                final long number = block.next();
+                if (number <= block.last()) {
+                    if (number == block.half()) {
+                        this.prefetch();
+                    }
+                    return number;
+                }
+                this.swap(block);
+            }
+        }
+        /**
+         * Replace exhausted block with the next one.
+         * @param used Exhausted block
+         * @throws IOException If fails
+         */
+        private synchronized void swap(final Blocks.Block used)
+            throws IOException {
+            if (this.current.get() == used) {
+                Blocks.Block block = this.spare.getAndSet(null);
+                if (block == null) {
+                    block = this.reserve();
+                }
+                this.current.set(block);
+            }
+        }
+        /**
+         * Reserve next block in the background.
+         */
+        private void prefetch() {
+            if (this.loading.compareAndSet(false, true)) {
+                Blocks.PREFETCH.submit(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                Blocks.Pool.this.spare.compareAndSet(
+                                    null, Blocks.Pool.this.reserve()
+                                );
+                            } catch (final IOException ex) {
+                                Logger.warn(
+                                    Blocks.Pool.this,
+                                    "failed to reserve a block: %s", ex
+                                );
+                            } finally {
+                                Blocks.Pool.this.loading.set(false);
+                            }
+                        }
+                    }
+                );
+            }
+        }
+        /**
+         * Reserve next block in the origin.
+         * @return Block
+         * @throws IOException If fails
+         */
+        private Blocks.Block reserve() throws IOException {
+            final long last = this.origin.incrementAndGet(this.size);
+            Logger.info(
+                this, "block %d..%d reserved in %s",
+                last - this.size + 1L, last, this.origin.name()
+            );
+            return new Blocks.Block(last - this.size + 1L, last);
+        }
+    }
+
+    /**
+     * Block of numbers.
+     */
+    private static final class Block {
+        /**
+         * Last number given out.
+         */
+        private final transient AtomicLong given;
+        /**
+         * The first number of the block.
+         */
+        private final transient long first;
+        /**
+         * The last number of the block.
+         */
+        private final transient long end;
+        /**
+         * Ctor.
+         * @param start First number
+         * @param finish Last number
+         */
+        Block(final long start, final long finish) {
+            this.given = new AtomicLong(start - 1L);
+            this.first = start;
+            this.end = finish;
+        }
+        /**
+         * Next number, it may be beyond the last one.
+         * @return Number
+         */
+        public long next() {
+            return this.given.incrementAndGet();
+        }
+        /**
+         * The last number.
+         * @return Number
+         */
+        public long last() {
+            return this.end;
+        }
+        /**
+         * The number in the middle.
+         * @return Number
+         */
+        public long half() {
+            return this.first + (this.end - this.first) / 2L;
+        }
+    }
+
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.Iterables;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Batch reads and writes of many items of one table.
+ *
+ * <p>Keys and items are sent to DynamoDB in chunks, as big as DynamoDB
+ * allows: 100 keys per read and 25 items per write. Unprocessed keys and
+ * items are re-sent, after a delay, which is doubled every time,
+ * until everything is done or there are too many attempts.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "table")
+@EqualsAndHashCode(of = { "region", "table" })
+final class Bulk {
+
+    /**
+     * Maximum number of keys in one read.
+     */
+    private static final int READS = Tv.HUNDRED;
+
+    /**
+     * Maximum number of items in one write.
+     */
+    private static final int WRITES = 25;
+
+    /**
+     * Maximum number of attempts to send one chunk.
+     */
+    private static final int ATTEMPTS = Tv.TEN;
+
+    /**
+     * Delay before the first re-sending, in msec.
+     */
+    private static final long DELAY = 50L;
+
+    /**
+     * Maximum delay before re-sending, in msec.
+     */
+    private static final long MAX_DELAY = TimeUnit.SECONDS.toMillis(5L);
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Table name.
+     */
+    private final transient String table;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param tbl Table name
+     */
+    Bulk(final Region reg, final String tbl) {
+        this.region = reg;
+        this.table = tbl;
+    }
+
+    /**
+     * Read items by their keys.
+     *
+     * <p>The order of items is not guaranteed, items not found are
+     * silently skipped. Key attributes are always loaded.
+     *
+     * @param keys Keys of items to read
+     * @param attrs Attributes to load (all of them, if empty)
+     * @return Items loaded
+     * @throws IOException If fails
+     */
+    public Collection<Snapshot> get(final Iterable<Attributes> keys,
+        final String... attrs) throws IOException {
+        final String name = this.region.table(this.table).name();
+        final Collection<Snapshot> items =
+            new ArrayList<Snapshot>(Bulk.READS);
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (final List<Attributes> chunk
+                : Iterables.partition(keys, Bulk.READS)) {
+                final Collection<String> names = chunk.get(0).keySet();
+                KeysAndAttributes request = new KeysAndAttributes()
+                    .withKeys(new ArrayList<Map<String, AttributeValue>>(chunk))
+                    .withConsistentRead(false);
+                if (attrs.length > 0) {
+                    final Collection<String> only =
+                        new LinkedHashSet<String>(Arrays.asList(attrs));
+                    only.addAll(names);
+                    request = request.withAttributesToGet(only);
+                }
+                Map<String, KeysAndAttributes> todo =
+                    Collections.singletonMap(name, request);
+                int attempt = 0;
+                while (todo != null && !todo.isEmpty()) {
+                    Bulk.pause(attempt, name);
+                    ++attempt;
+                    final BatchGetItemResult result = aws.batchGetItem(
+                        new BatchGetItemRequest().withRequestItems(todo)
+                    );
+                    final List<Map<String, AttributeValue>> found =
+                        result.getResponses().get(name);
+                    if (found != null) {
+                        for (final Map<String, AttributeValue> attr : found) {
+                            items.add(
+                                new Snapshot(
+                                    this.region, this.table, names, attr
+                                )
+                            );
+                        }
+                    }
+                    todo = result.getUnprocessedKeys();
+                }
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return items;
+    }
+
+    /**
+     * Put items, replacing existing ones with the same keys.
+     * @param items Items to put
+     * @throws IOException If fails
+     */
+    public void put(final Iterable<Attributes> items) throws IOException {
+        final Collection<WriteRequest> requests =
+            new ArrayList<WriteRequest>(0);
+        for (final Attributes attrs : items) {
+            requests.add(
+                new WriteRequest().withPutRequest(
+                    new PutRequest().withItem(attrs)
+                )
+            );
+        }
+        this.write(requests);
+    }
+
+    /**
+     * Delete items by their keys.
+     * @param keys Keys of items to delete
+     * @throws IOException If fails
+     */
+    public void delete(final Iterable<Attributes> keys) throws IOException {
+        final Collection<WriteRequest> requests =
+            new ArrayList<WriteRequest>(0);
+        for (final Attributes key : keys) {
+            requests.add(
+                new WriteRequest().withDeleteRequest(
+                    new DeleteRequest().withKey(key)
+                )
+            );
+        }
+        this.write(requests);
+    }
+
+    /**
+     * Send write requests in chunks.
+     * @param requests All requests
+     * @throws IOException If fails
+     */
+    private void write(final Iterable<WriteRequest> requests)
+        throws IOException {
+        final String name = this.region.table(this.table).name();
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (final List<WriteRequest> chunk
+                : Iterables.partition(requests, Bulk.WRITES)) {
+                Map<String, List<WriteRequest>> todo =
+                    Collections.singletonMap(name, chunk);
+                int attempt = 0;
+                while (todo != null && !todo.isEmpty()) {
+                    Bulk.pause(attempt, name);
+                    ++attempt;
+                    todo = aws.batchWriteItem(
+                        new BatchWriteItemRequest().withRequestItems(todo)
+                    ).getUnprocessedItems();
+                }
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Wait before the next attempt to send a chunk.
+     * @param attempt Number of attempts made so far
+     * @param name Table name
+     * @throws IOException If there were too many attempts
+     */
+    private static void pause(final int attempt, final String name)
+        throws IOException {
+        if (attempt >= Bulk.ATTEMPTS) {
+            throw new IOException(
+                String.format(
+                    "items of \"%s\" are still unprocessed after %d attempts",
+                    name, attempt
+                )
+            );
+        }
+        if (attempt > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(
+                    Math.min(Bulk.DELAY << (attempt - 1), Bulk.MAX_DELAY)
+                );
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+}
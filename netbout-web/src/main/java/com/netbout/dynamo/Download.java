@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import com.jcabi.s3.mock.MkRegion;
+import com.jcabi.log.Logger;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import lombok.ToString;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Content of an S3 object, streamed straight from S3.
+ *
+ * <p>The object is read from the content of the S3 response, in the
+ * thread of the reader, so memory doesn't depend on the size of the object
+ * and no other threads are involved. The S3 client is shut down when
+ * the stream is closed. When the download fails, the reader gets the
+ * exception, with the key of the object, instead of a silently truncated
+ * content.
+ *
+ * <p>A range of the object may be read, in which case only the range
+ * is requested from S3. The {@link MkRegion} stand-in has no S3 client,
+ * its objects are copied to a temporary file, which is deleted when the
+ * stream is closed, and the range is read from the file.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = "ocket")
+final class Download extends FilterInputStream {
+
+    /**
+     * Ocket to read.
+     */
+    private final transient Ocket ocket;
+
+    /**
+     * Ctor.
+     * @param ocket Ocket to read
+     * @throws IOException If fails
+     */
+    Download(final Ocket ocket) throws IOException {
+        this(ocket, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Ctor.
+     * @param ocket Ocket to read
+     * @param offset Offset of the range, in bytes
+     * @param length Length of the range, in bytes
+     * @throws IOException If fails
+     */
+    Download(final Ocket ocket, final long offset, final long length)
+        throws IOException {
+        super(Download.open(ocket, offset, length));
+        this.ocket = ocket;
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            return super.read();
+        } catch (final IOException ex) {
+            throw this.failure(ex);
+        } catch (final AmazonClientException ex) {
+            throw this.failure(ex);
+        }
+    }
+
+    @Override
+    public int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        try {
+            return super.read(buf, off, len);
+        } catch (final IOException ex) {
+            throw this.failure(ex);
+        } catch (final AmazonClientException ex) {
+            throw this.failure(ex);
+        }
+    }
+
+    /**
+     * Failure of the download.
+     * @param cause Cause
+     * @return Exception to throw
+     */
+    private IOException failure(final Exception cause) {
+        return new IOException(
+            String.format("failed to download %s", this.ocket.key()),
+            cause
+        );
+    }
+
+    /**
+     * Open the content of the ocket.
+     * @param ocket Ocket to read
+     * @param offset Offset of the range, in bytes
+     * @param length Length of the range, in bytes
+     * @return Stream
+     * @throws IOException If fails
+     */
+    private static InputStream open(final Ocket ocket, final long offset,
+        final long length) throws IOException {
+        final Region region = ocket.bucket().region();
+        final InputStream stream;
+        if (region instanceof MkRegion) {
+            final File temp = File.createTempFile("netbout", ".s3");
+            final OutputStream output = new FileOutputStream(temp);
+            try {
+                ocket.read(output);
+            } finally {
+                output.close();
+            }
+            final InputStream input = new Download.Temporary(
+                new FileInputStream(temp), temp
+            );
+            IOUtils.skipFully(input, Math.min(offset, temp.length()));
+            stream = new BoundedInputStream(input, length);
+        } else {
+            final GetObjectRequest request = new GetObjectRequest(
+                ocket.bucket().name(), ocket.key()
+            );
+            if (length < Long.MAX_VALUE) {
+                request.setRange(offset, offset + length - 1L);
+            }
+            final AmazonS3 aws = region.aws();
+            try {
+                stream = new Download.Shutdown(
+                    aws.getObject(request).getObjectContent(), aws
+                );
+            } catch (final AmazonClientException ex) {
+                aws.shutdown();
+                throw new IOException(ex);
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * Stream of a temporary file, which deletes the file when closed.
+     */
+    private static final class Temporary extends FilterInputStream {
+        /**
+         * The file.
+         */
+        private final transient File file;
+        /**
+         * Ctor.
+         * @param stream Content of the file
+         * @param temp The file
+         */
+        Temporary(final InputStream stream, final File temp) {
+            super(stream);
+            this.file = temp;
+        }
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (!this.file.delete()) {
+                    Logger.warn(this, "failed to delete %s", this.file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream, which shuts down the S3 client when closed.
+    private static final class Shutdown extends FilterInputStream {
+        /**
+         * S3 client.
+         */
+        private final transient AmazonS3 aws;
+        /**
+         * Ctor.
+         * @param stream Content of the object
+         * @param client S3 client
+         */
+        Shutdown(final InputStream stream, final AmazonS3 client) {
+            super(stream);
+            this.aws = client;
+        }
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                this.aws.shutdown();
+            }
+        }
+    }
+
+}
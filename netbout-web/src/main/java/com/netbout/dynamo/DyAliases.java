@@ -90,6 +90,18 @@ final class DyAliases implements Aliases {
      */
     public static final String ATTR_EMAIL = "email";
 
+    /**
+     * Total number of unread messages in all bouts.
+     * @since 2.19
+     */
+    public static final String ATTR_UNREAD = "unread";
+
+    /**
+     * When the total of unread messages was reconciled last time.
+     * @since 2.19
+     */
+    public static final String ATTR_RECONCILED = "reconciled";
+
     /**
      * Index name.
      */
@@ -29,15 +29,12 @@ package com.netbout.dynamo;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Async;
 import com.jcabi.aspects.Cacheable;
-import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
@@ -45,15 +42,19 @@ import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
 import com.jcabi.manifests.Manifests;
 import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
 import com.jcabi.s3.mock.MkRegion;
 import com.netbout.spi.Attachment;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.codec.CharEncoding;
@@ -62,15 +63,17 @@ import org.apache.commons.io.IOUtils;
 /**
  * Dynamo attachment.
  *
+ * <p>Not {@code @Immutable}, because of my own friend row, which is
+ * updated in memory, see {@link Row}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
-@Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "item")
-@EqualsAndHashCode(of = { "region", "item", "self" })
+@EqualsAndHashCode(of = { "region", "item", "self", "row" })
 @SuppressWarnings({ "PMD.TooManyMethods", "PMD.ExcessiveImports" })
 final class DyAttachment implements Attachment {
 
@@ -79,6 +82,16 @@ final class DyAttachment implements Attachment {
      */
     private static final int MAX_SIZE = 50000;
 
+    /**
+     * Maximum size of content to try to compress and store in DynamoDB.
+     */
+    private static final int MAX_PLAIN = 200000;
+
+    /**
+     * Codec of compressed inline content.
+     */
+    private static final String GZIP = "gzip";
+
     /**
      * Bucket with attachments.
      */
@@ -99,14 +112,22 @@ final class DyAttachment implements Attachment {
      */
     private final transient String self;
 
+    /**
+     * My own row in "friends" table, loaded.
+     */
+    private final transient Item row;
+
     /**
      * Ctor.
      * @param reg Region
      * @param itm Item
      * @param slf Self alias
+     * @param rw My own row in "friends" table, see {@link Row}
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    DyAttachment(final Region reg, final Item itm, final String slf) {
-        this(reg, DyAttachment.storage(), itm, slf);
+    DyAttachment(final Region reg, final Item itm, final String slf,
+        final Item rw) {
+        this(reg, DyAttachment.storage(), itm, slf, rw);
     }
 
     /**
@@ -115,15 +136,17 @@ final class DyAttachment implements Attachment {
      * @param bkt Bucket
      * @param itm Item
      * @param slf Self alias
+     * @param rw My own row in "friends" table, see {@link Row}
      * @since 2.8
      * @checkstyle ParameterNumberCheck (5 lines)
      */
     DyAttachment(final Region reg, final Bucket bkt,
-        final Item itm, final String slf) {
+        final Item itm, final String slf, final Item rw) {
         this.region = reg;
         this.bucket = bkt;
         this.item = itm;
         this.self = slf;
+        this.row = rw;
     }
 
     @Override
@@ -149,67 +172,112 @@ final class DyAttachment implements Attachment {
 
     @Override
     public boolean unseen() throws IOException {
-        final Item itm = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNSEEN)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
-        return itm.has(DyFriends.ATTR_UNSEEN)
-            && itm.get(DyFriends.ATTR_UNSEEN).getSS().contains(this.name());
+        return this.row.has(DyFriends.ATTR_UNSEEN)
+            && this.row.get(DyFriends.ATTR_UNSEEN).getSS().contains(
+                this.name()
+            );
     }
 
     @Override
     public InputStream read() throws IOException {
         this.seen();
-        final byte[] bytes;
+        final InputStream stream;
         if (this.item.has(DyAttachments.ATTR_KEY)) {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            this.bucket.ocket(
-                this.item.get(DyAttachments.ATTR_KEY).getS()
-            ).read(baos);
-            bytes = baos.toByteArray();
+            stream = new Download(this.bucket.ocket(this.key()));
         } else {
-            final ByteBuffer buf =
-                this.item.get(DyAttachments.ATTR_DATA).getB();
-            if (buf == null) {
-                bytes = "temporary unavailable".getBytes(CharEncoding.UTF_8);
-            } else {
-                bytes = buf.array();
-            }
+            stream = new ByteArrayInputStream(this.inline());
         }
-        return new ByteArrayInputStream(bytes);
+        return stream;
     }
 
     @Override
-    public void write(final InputStream stream, final String ctype,
-        final String etag) throws IOException {
-        if (etag.isEmpty()) {
-            throw new Attachment.BrokenContentException(
-                "etag can't be empty"
+    public long size() throws IOException {
+        final long size;
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            size = this.bucket.ocket(this.key()).meta().getContentLength();
+        } else {
+            size = (long) this.inline().length;
+        }
+        return size;
+    }
+
+    @Override
+    public InputStream read(final long offset, final long length)
+        throws IOException {
+        this.seen();
+        final InputStream stream;
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            stream = new Download(
+                this.bucket.ocket(this.key()), offset, length
+            );
+        } else {
+            final byte[] bytes = this.inline();
+            final int start = (int) Math.min(offset, (long) bytes.length);
+            stream = new ByteArrayInputStream(
+                bytes, start,
+                (int) Math.min(length, (long) (bytes.length - start))
             );
         }
-        if (etag.length() > 2 * Tv.HUNDRED) {
-            throw new Attachment.BrokenContentException(
-                "etag is too big, 200 bytes maximum is allowed"
+        return stream;
+    }
+
+    @Override
+    public String direct() throws IOException {
+        final String url;
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            url = new Presigned(this.bucket).get(
+                this.key(), this.ctype(), this.name()
             );
+        } else {
+            url = "";
         }
-        if (ctype.isEmpty()) {
-            throw new Attachment.BrokenContentException(
-                "ctype is empty"
+        if (!url.isEmpty()) {
+            this.seen();
+        }
+        return url;
+    }
+
+    @Override
+    public InputStream thumbnail() throws IOException {
+        if (!Thumbnails.supports(this.ctype())) {
+            throw new Attachment.NoThumbnailException(
+                String.format(
+                    "attachment \"%s\" is not an image or a PDF", this.name()
+                )
             );
         }
-        if (ctype.length() > Tv.HUNDRED) {
-            throw new Attachment.BrokenContentException(
-                "ctype is too long, 100 bytes maximum allowed"
+        final Ocket ocket = this.bucket.ocket(
+            Thumbnails.key(this.bout(), this.name(), this.etag())
+        );
+        if (Thumbnails.INSTANCE.failed(ocket)) {
+            throw new Attachment.NoThumbnailException(
+                String.format(
+                    "thumbnail of \"%s\" can't be rendered", this.name()
+                )
             );
         }
-        final byte[] data = IOUtils.toByteArray(stream);
-        if (data.length == 0) {
+        if (!ocket.exists()) {
+            this.preview();
+            throw new Attachment.NoThumbnailException(
+                String.format(
+                    "thumbnail of \"%s\" is not ready yet", this.name()
+                )
+            );
+        }
+        return new Download(ocket);
+    }
+
+    @Override
+    public void write(final InputStream stream, final String ctype,
+        final String etag) throws IOException {
+        DyAttachment.checkEtag(etag);
+        DyAttachment.checkCtype(ctype);
+        final Limited input = new Limited(
+            stream, (long) (Tv.TEN * Tv.MILLION)
+        );
+        final byte[] head = new byte[DyAttachment.MAX_PLAIN];
+        final int len = IOUtils.read(input, head);
+        if (len == 0) {
             throw new Attachment.BrokenContentException(
                 String.format(
                     "content of attachment \"%s\" can't be empty",
@@ -217,75 +285,302 @@ final class DyAttachment implements Attachment {
                 )
             );
         }
-        if (data.length > Tv.TEN * Tv.MILLION) {
-            throw new Attachment.TooBigException(
-                "attachment is too big, 10Mb is the maximum size"
-            );
-        }
         if (!etag.equals(this.etag())) {
-            final AttributeUpdates updates = this.save(data, ctype)
-                .with(DyAttachments.ATTR_ETAG, etag);
-            this.item.put(updates);
-            this.updated();
+            final AttributeUpdates updates = this.save(
+                head, len, input, ctype
+            ).with(DyAttachments.ATTR_ETAG, etag);
+            this.replace(updates);
             Logger.info(
                 this, "attachment %s (%d bytes) uploaded into #%d by @%s",
-                this.name(), data.length, this.bout(), this.self
+                this.name(), input.count(), this.bout(), this.self
             );
         }
     }
 
+    @Override
+    public String begin(final String ctype) throws IOException {
+        DyAttachment.checkCtype(ctype);
+        return this.multipart().begin(
+            this.blobs().temporary(), ctype, this.self
+        );
+    }
+
+    // @checkstyle ParameterNumberCheck (4 lines)
+    @Override
+    public void part(final String upload, final int number,
+        final InputStream stream, final long length) throws IOException {
+        this.multipart().part(upload, number, stream, length);
+    }
+
+    @Override
+    public String direct(final String upload, final int number)
+        throws IOException {
+        return this.multipart().direct(upload, number);
+    }
+
+    @Override
+    public void complete(final String upload, final String etag)
+        throws IOException {
+        DyAttachment.checkEtag(etag);
+        final Map<String, AttributeValue> done =
+            this.multipart().complete(upload);
+        final AttributeValue key = done.get(Multipart.ATTR_KEY);
+        this.replace(
+            new AttributeUpdates()
+                .with(DyAttachments.ATTR_CTYPE, done.get(Multipart.ATTR_CTYPE))
+                .with(DyAttachments.ATTR_DATA, key)
+                .with(DyAttachments.ATTR_KEY, key)
+                .with(DyAttachments.ATTR_ETAG, etag)
+                .with(
+                    DyAttachments.ATTR_CODEC,
+                    new AttributeValueUpdate().withAction(
+                        AttributeAction.DELETE
+                    )
+                )
+        );
+        Logger.info(
+            this, "attachment %s (%s) uploaded in parts into #%d by @%s",
+            this.name(), upload, this.bout(), this.self
+        );
+    }
+
+    @Override
+    public void abort(final String upload) throws IOException {
+        this.multipart().abort(upload);
+    }
+
     /**
      * Save content.
-     * @param data Data to save
+     *
+     * <p>Content shorter than {@link #MAX_PLAIN} is compressed and, if it
+     * gets shorter than {@link #MAX_SIZE}, is stored in DynamoDB, the rest
+     * of the stream is never touched then. When compression doesn't help,
+     * content shorter than {@link #MAX_SIZE} is stored as is, with no
+     * codec attribute, just like items stored before compression was
+     * introduced. Longer content flows to S3 starting with the head already
+     * read, and is stored there by its hash, see {@link Blobs}.
+     *
+     * @param head The head of the content, already read
+     * @param len How many bytes are there in the head
+     * @param rest The rest of the content
      * @param ctype CType
      * @return Updates to apply
      * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    private AttributeUpdates save(final byte[] data, final String ctype)
-        throws IOException {
+    private AttributeUpdates save(final byte[] head, final int len,
+        final InputStream rest, final String ctype) throws IOException {
         AttributeUpdates updates = new AttributeUpdates()
             .with(DyAttachments.ATTR_CTYPE, ctype);
-        if (data.length < DyAttachment.MAX_SIZE) {
-            if (this.item.has(DyAttachments.ATTR_KEY)) {
-                this.bucket.remove(
-                    this.item.get(DyAttachments.ATTR_KEY).getS()
+        byte[] packed = new byte[0];
+        if (len < DyAttachment.MAX_PLAIN) {
+            packed = DyAttachment.pack(head, len);
+        }
+        if (packed.length > 0 && packed.length < len
+            && packed.length < DyAttachment.MAX_SIZE) {
+            updates = updates
+                .with(
+                    DyAttachments.ATTR_DATA,
+                    new AttributeValue().withB(ByteBuffer.wrap(packed))
+                )
+                .with(DyAttachments.ATTR_CODEC, DyAttachment.GZIP)
+                .with(
+                    DyAttachments.ATTR_KEY,
+                    new AttributeValueUpdate().withAction(
+                        AttributeAction.DELETE
+                    )
                 );
-            }
-            updates = updates.with(
-                DyAttachments.ATTR_DATA,
-                new AttributeValue().withB(ByteBuffer.wrap(data))
-            );
-            updates = updates.with(
-                DyAttachments.ATTR_KEY,
-                new AttributeValueUpdate().withAction(
-                    AttributeAction.DELETE
+        } else if (len < DyAttachment.MAX_SIZE) {
+            updates = updates
+                .with(
+                    DyAttachments.ATTR_DATA,
+                    new AttributeValue().withB(
+                        ByteBuffer.wrap(Arrays.copyOf(head, len))
+                    )
                 )
+                .with(
+                    DyAttachments.ATTR_CODEC,
+                    new AttributeValueUpdate().withAction(
+                        AttributeAction.DELETE
+                    )
+                )
+                .with(
+                    DyAttachments.ATTR_KEY,
+                    new AttributeValueUpdate().withAction(
+                        AttributeAction.DELETE
+                    )
+                );
+        } else {
+            final String key = this.blobs().upload(
+                new SequenceInputStream(
+                    new ByteArrayInputStream(head, 0, len), rest
+                ),
+                ctype
             );
+            updates = updates
+                .with(DyAttachments.ATTR_DATA, key)
+                .with(DyAttachments.ATTR_KEY, key)
+                .with(
+                    DyAttachments.ATTR_CODEC,
+                    new AttributeValueUpdate().withAction(
+                        AttributeAction.DELETE
+                    )
+                );
+        }
+        return updates;
+    }
+
+    /**
+     * Multipart uploads of this attachment.
+     * @return Uploads
+     * @throws IOException If fails
+     */
+    private Multipart multipart() throws IOException {
+        return new Multipart(
+            this.region, this.bucket, this.bout(), this.name()
+        );
+    }
+
+    /**
+     * Blobs with the content.
+     * @return Blobs
+     */
+    private Blobs blobs() {
+        return new Blobs(this.region, this.bucket);
+    }
+
+    /**
+     * Replace the content and release the blob it was in before.
+     *
+     * <p>The old blob is released only after the item refers to the new
+     * one, so the content stays readable all the time, even when both
+     * blobs are the same. The thumbnail of the old content is removed and
+     * a new one is rendered in background, see {@link Thumbnails}.
+     *
+     * @param updates Updates to apply
+     * @throws IOException If fails
+     */
+    private void replace(final AttributeUpdates updates) throws IOException {
+        final String before;
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            before = this.key();
         } else {
-            final String key;
+            before = "";
+        }
+        final String thumb;
+        if (Thumbnails.supports(this.ctype())) {
+            thumb = Thumbnails.key(this.bout(), this.name(), this.etag());
+        } else {
+            thumb = "";
+        }
+        this.item.put(updates);
+        if (!before.isEmpty()) {
+            this.blobs().release(before);
+        }
+        if (!thumb.isEmpty()) {
+            this.bucket.remove(thumb);
+        }
+        this.updated();
+        if (Thumbnails.supports(
+            updates.get(DyAttachments.ATTR_CTYPE).getValue().getS()
+        )) {
+            this.fresh().preview();
+        }
+    }
+
+    /**
+     * The same attachment, loaded again, with all its attributes.
+     * @return Attachment
+     * @throws IOException If fails
+     */
+    private DyAttachment fresh() throws IOException {
+        return new DyAttachment(
+            this.region, this.bucket,
+            this.region.table(DyAttachments.TBL)
+                .frame()
+                .through(new QueryValve().withLimit(1))
+                .where(DyAttachments.HASH, Conditions.equalTo(this.bout()))
+                .where(DyAttachments.RANGE, this.name())
+                .iterator()
+                .next(),
+            this.self, this.row
+        );
+    }
+
+    /**
+     * Render a thumbnail of the content in background, if possible.
+     *
+     * <p>The content is captured now, in order to render exactly what
+     * the etag of the thumbnail stands for, see {@link Thumbnails}.
+     *
+     * @throws IOException If fails
+     */
+    private void preview() throws IOException {
+        final String ctype = this.ctype();
+        if (Thumbnails.supports(ctype)) {
+            final Thumbnails.Source source;
             if (this.item.has(DyAttachments.ATTR_KEY)) {
-                key = this.item.get(DyAttachments.ATTR_KEY).getS();
+                final Ocket content = this.bucket.ocket(this.key());
+                source = new Thumbnails.Source() {
+                    @Override
+                    public InputStream open() throws IOException {
+                        return new Download(content);
+                    }
+                };
             } else {
-                key = String.format(
-                    "%d/%s",
-                    Long.parseLong(
-                        this.item.get(DyAttachments.HASH).getN()
-                    ),
-                    this.item.get(DyAttachments.RANGE).getS()
+                final byte[] content = this.inline();
+                source = new Thumbnails.Source() {
+                    @Override
+                    public InputStream open() {
+                        return new ByteArrayInputStream(content);
+                    }
+                };
+            }
+            Thumbnails.INSTANCE.submit(
+                this.bucket.ocket(
+                    Thumbnails.key(this.bout(), this.name(), this.etag())
+                ),
+                ctype, source
+            );
+        }
+    }
+
+    /**
+     * Key of the content in S3.
+     * @return Key
+     * @throws IOException If fails
+     */
+    private String key() throws IOException {
+        return this.item.get(DyAttachments.ATTR_KEY).getS();
+    }
+
+    /**
+     * Content stored inline, in DynamoDB.
+     *
+     * <p>Items without codec attribute keep their content as is.
+     *
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    private byte[] inline() throws IOException {
+        final ByteBuffer buf = this.item.get(DyAttachments.ATTR_DATA).getB();
+        final byte[] bytes;
+        if (buf == null) {
+            bytes = "temporary unavailable".getBytes(CharEncoding.UTF_8);
+        } else if (this.item.has(DyAttachments.ATTR_CODEC)) {
+            final String codec = this.item.get(DyAttachments.ATTR_CODEC).getS();
+            if (!DyAttachment.GZIP.equals(codec)) {
+                throw new IOException(
+                    String.format("unknown codec \"%s\"", codec)
                 );
             }
-            final ObjectMetadata meta = new ObjectMetadata();
-            meta.setContentType(ctype);
-            meta.setContentLength((long) data.length);
-            this.bucket.ocket(key).write(
-                new ByteArrayInputStream(data),
-                meta
+            bytes = IOUtils.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(buf.array()))
             );
-            updates = updates
-                .with(DyAttachments.ATTR_DATA, key)
-                .with(DyAttachments.ATTR_KEY, key);
+        } else {
+            bytes = buf.array();
         }
-        return updates;
+        return bytes;
     }
 
     /**
@@ -299,42 +594,37 @@ final class DyAttachment implements Attachment {
 
     /**
      * It was updated just now.
+     *
+     * <p>Rows are updated in the background, see {@link Fanout}. The name
+     * of the attachment is added to the set of unseen ones on the server
+     * side, so every friend costs exactly one write and concurrent uploads
+     * don't overwrite each other.
+     *
      * @throws IOException If fails
      */
-    @Async
     private void updated() throws IOException {
-        Iterables.all(
+        final String name = this.name();
+        Fanout.INSTANCE.submit(
             this.region.table(DyFriends.TBL).frame()
                 .through(new QueryValve())
                 .where(DyFriends.HASH, Conditions.equalTo(this.bout())),
-            // @checkstyle AnonInnerLengthCheck (50 lines)
-            new Predicate<Item>() {
+            new Fanout.Job() {
                 @Override
-                public boolean apply(final Item input) {
+                public void apply(final Item row) throws IOException {
                     AttributeUpdates updates = new AttributeUpdates().with(
                         DyFriends.ATTR_UPDATED,
                         System.currentTimeMillis()
                     );
-                    try {
-                        final String alias = input.get(DyFriends.RANGE).getS();
-                        if (!alias.equals(DyAttachment.this.self)) {
-                            final Set<String> list =
-                                DyAttachment.this.list(alias);
-                            list.add(DyAttachment.this.name());
-                            updates = updates.with(
-                                DyFriends.ATTR_UNSEEN,
-                                new AttributeValueUpdate()
-                                    .withAction(AttributeAction.PUT)
-                                    .withValue(
-                                        new AttributeValue().withSS(list)
-                                    )
-                            );
-                        }
-                        input.put(updates);
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
+                    final String alias = row.get(DyFriends.RANGE).getS();
+                    if (!alias.equals(DyAttachment.this.self)) {
+                        updates = updates.with(
+                            DyFriends.ATTR_UNSEEN,
+                            new AttributeValueUpdate()
+                                .withAction(AttributeAction.ADD)
+                                .withValue(new AttributeValue().withSS(name))
+                        );
                     }
-                    return true;
+                    row.put(updates);
                 }
             }
         );
@@ -342,69 +632,83 @@ final class DyAttachment implements Attachment {
 
     /**
      * It was seen just now.
+     *
+     * <p>The name is removed from the set of unseen attachments on the
+     * server side, without reading the set first. DynamoDB removes the
+     * attribute, when the set gets empty.
+     *
      * @throws IOException If fails
      */
     @Async
     private void seen() throws IOException {
-        Iterables.all(
-            this.region.table(DyFriends.TBL).frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-                .where(DyFriends.RANGE, this.self),
-            new Predicate<Item>() {
-                @Override
-                public boolean apply(final Item input) {
-                    try {
-                        final Set<String> list =
-                            DyAttachment.this.list(DyAttachment.this.self);
-                        list.remove(DyAttachment.this.name());
-                        if (list.isEmpty()) {
-                            input.put(
-                                new AttributeUpdates().with(
-                                    DyFriends.ATTR_UNSEEN,
-                                    new AttributeValueUpdate().withAction(
-                                        AttributeAction.DELETE
-                                    )
-                                )
-                            );
-                        } else {
-                            input.put(
-                                new AttributeUpdates().with(
-                                    DyFriends.ATTR_UNSEEN,
-                                    new AttributeValueUpdate()
-                                        .withAction(AttributeAction.PUT)
-                                        .withValue(
-                                            new AttributeValue().withSS(list)
-                                        )
-                                )
-                            );
-                        }
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                    return true;
-                }
-            }
+        new Keyed(
+            this.region, DyFriends.TBL,
+            new Attributes()
+                .with(DyFriends.HASH, this.bout())
+                .with(DyFriends.RANGE, this.self)
+        ).putIfExists(
+            new AttributeUpdates().with(
+                DyFriends.ATTR_UNSEEN,
+                new AttributeValueUpdate()
+                    .withAction(AttributeAction.DELETE)
+                    .withValue(new AttributeValue().withSS(this.name()))
+            )
         );
     }
 
     /**
-     * Existing list of unseen attachments.
-     * @param alias Alias
-     * @return List of attachments that are unseen
+     * Check etag.
+     * @param etag ETag
+     * @throws IOException If it's not valid
+     */
+    private static void checkEtag(final String etag) throws IOException {
+        if (etag.isEmpty()) {
+            throw new Attachment.BrokenContentException(
+                "etag can't be empty"
+            );
+        }
+        if (etag.length() > 2 * Tv.HUNDRED) {
+            throw new Attachment.BrokenContentException(
+                "etag is too big, 200 bytes maximum is allowed"
+            );
+        }
+    }
+
+    /**
+     * Check content type.
+     * @param ctype Content type
+     * @throws IOException If it's not valid
+     */
+    private static void checkCtype(final String ctype) throws IOException {
+        if (ctype.isEmpty()) {
+            throw new Attachment.BrokenContentException(
+                "ctype is empty"
+            );
+        }
+        if (ctype.length() > Tv.HUNDRED) {
+            throw new Attachment.BrokenContentException(
+                "ctype is too long, 100 bytes maximum allowed"
+            );
+        }
+    }
+
+    /**
+     * Compress the content.
+     * @param bytes Content
+     * @param len How many bytes of it to compress
+     * @return Compressed bytes
      * @throws IOException If fails
      */
-    private Set<String> list(final String alias) throws IOException {
-        final Item itm = this.region.table(DyFriends.TBL)
-            .frame().through(new QueryValve())
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-            .where(DyFriends.RANGE, Conditions.equalTo(alias))
-            .iterator().next();
-        final Set<String> list = new HashSet<String>(0);
-        if (itm.has(DyFriends.ATTR_UNSEEN)) {
-            list.addAll(itm.get(DyFriends.ATTR_UNSEEN).getSS());
+    private static byte[] pack(final byte[] bytes, final int len)
+        throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(len);
+        final GZIPOutputStream gzip = new GZIPOutputStream(baos);
+        try {
+            gzip.write(bytes, 0, len);
+        } finally {
+            gzip.close();
         }
-        return list;
+        return baos.toByteArray();
     }
 
     /**
@@ -412,7 +716,7 @@ final class DyAttachment implements Attachment {
      * @return Bucket
      */
     @Cacheable(forever = true)
-    private static Bucket storage() {
+    static Bucket storage() {
         final String key = Manifests.read("Netbout-S3Key");
         final com.jcabi.s3.Region region;
         if (key.matches("[0-9A-Z]{20}")) {
@@ -28,7 +28,6 @@ package com.netbout.dynamo;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.Attributes;
@@ -47,14 +46,16 @@ import lombok.ToString;
 /**
  * Dynamo attachments.
  *
+ * <p>It shares my own friend row with the bout, see {@link Row}, which
+ * is mutable, that's why the class is not {@code @Immutable}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
  */
-@Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "bout")
-@EqualsAndHashCode(of = { "region", "bout", "self" })
+@EqualsAndHashCode(of = { "region", "bout", "self", "row" })
 final class DyAttachments implements Attachments {
 
     /**
@@ -97,6 +98,11 @@ final class DyAttachments implements Attachments {
      */
     public static final String ATTR_KEY = "s3";
 
+    /**
+     * Codec of the data, if it's compressed.
+     */
+    public static final String ATTR_CODEC = "codec";
+
     /**
      * Region to work with.
      */
@@ -112,16 +118,25 @@ final class DyAttachments implements Attachments {
      */
     private final transient String self;
 
+    /**
+     * My own row in "friends" table, loaded.
+     */
+    private final transient Item row;
+
     /**
      * Ctor.
      * @param reg Region
      * @param num Bout number
      * @param slf Self
+     * @param rw My own row in "friends" table, see {@link Row}
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    DyAttachments(final Region reg, final long num, final String slf) {
+    DyAttachments(final Region reg, final long num, final String slf,
+        final Item rw) {
         this.region = reg;
         this.bout = num;
         this.self = slf;
+        this.row = rw;
     }
 
     @Override
@@ -135,7 +150,8 @@ final class DyAttachments implements Attachments {
                     .withAttributesToGet(
                         DyAttachments.ATTR_CTYPE,
                         DyAttachments.ATTR_ETAG,
-                        DyAttachments.ATTR_KEY
+                        DyAttachments.ATTR_KEY,
+                        DyAttachments.ATTR_CODEC
                     )
             )
             .where(DyAttachments.HASH, Conditions.equalTo(this.bout))
@@ -146,7 +162,9 @@ final class DyAttachments implements Attachments {
                 String.format("attachment \"%s\" not found", name)
             );
         }
-        return new DyAttachment(this.region, items.next(), this.self);
+        return new DyAttachment(
+            this.region, items.next(), this.self, this.row
+        );
     }
 
     @Override
@@ -167,7 +185,8 @@ final class DyAttachments implements Attachments {
                 public Attachment apply(final Item item) {
                     return new DyAttachment(
                         DyAttachments.this.region,
-                        item, DyAttachments.this.self
+                        item, DyAttachments.this.self,
+                        DyAttachments.this.row
                     );
                 }
             }
@@ -176,19 +195,9 @@ final class DyAttachments implements Attachments {
 
     @Override
     public int unseen() throws IOException {
-        final Item itm = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNSEEN)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
         final int unseen;
-        if (itm.has(DyFriends.ATTR_UNSEEN)) {
-            unseen = itm.get(DyFriends.ATTR_UNSEEN).getSS().size();
+        if (this.row.has(DyFriends.ATTR_UNSEEN)) {
+            unseen = this.row.get(DyFriends.ATTR_UNSEEN).getSS().size();
         } else {
             unseen = 0;
         }
@@ -245,8 +254,24 @@ final class DyAttachments implements Attachments {
                 )
             );
         }
-        items.next();
+        final Item item = items.next();
+        final String key;
+        if (item.has(DyAttachments.ATTR_KEY)) {
+            key = item.get(DyAttachments.ATTR_KEY).getS();
+        } else {
+            key = "";
+        }
         items.remove();
+        if (!key.isEmpty()) {
+            new Blobs(this.region, DyAttachment.storage()).release(key);
+        }
+        if (Thumbnails.supports(item.get(DyAttachments.ATTR_CTYPE).getS())) {
+            DyAttachment.storage().remove(
+                Thumbnails.key(
+                    this.bout, name, item.get(DyAttachments.ATTR_ETAG).getS()
+                )
+            );
+        }
     }
 
 }
@@ -26,7 +26,6 @@
  */
 package com.netbout.dynamo;
 
-import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.AttributeUpdates;
@@ -48,11 +47,13 @@ import lombok.ToString;
 /**
  * Dynamo bout.
  *
+ * <p>The class is not {@code @Immutable}, since it holds my own row
+ * in "friends" table, which changes in memory, see {@link Row}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
  */
-@Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "self")
 @EqualsAndHashCode(of = { "region", "item", "self" })
@@ -77,7 +78,7 @@ final class DyBout implements Bout {
     /**
      * Ctor.
      * @param reg Region we're in
-     * @param itm Item in "friends" table
+     * @param itm Row in "friends" table, loaded entirely, see {@link Row}
      * @param slf Self alias
      */
     DyBout(final Region reg, final Item itm, final String slf) {
@@ -137,21 +138,26 @@ final class DyBout implements Bout {
 
     @Override
     public boolean subscription(final String alias) throws IOException {
-        final QueryValve thr = new QueryValve()
-            .withLimit(1)
-            .withAttributesToGet(DyFriends.ATTR_SUBSCRIPTION);
-        final Iterator<Item> items = this.region.table(DyFriends.TBL).frame()
-            .where(DyFriends.RANGE, alias)
-            .where(DyFriends.HASH, Conditions.equalTo(this.number()))
-            .through(thr)
-            .iterator();
         boolean subs = true;
-        if (items.hasNext()) {
-            final Item itm = items.next();
-            if (itm.has(DyFriends.ATTR_SUBSCRIPTION)) {
-                subs = Boolean.parseBoolean(
-                    itm.get(DyFriends.ATTR_SUBSCRIPTION).getS()
-                );
+        if (alias.equals(this.self)) {
+            subs = this.subscription();
+        } else {
+            final QueryValve thr = new QueryValve()
+                .withLimit(1)
+                .withAttributesToGet(DyFriends.ATTR_SUBSCRIPTION);
+            final Iterator<Item> items = this.region.table(DyFriends.TBL)
+                .frame()
+                .where(DyFriends.RANGE, alias)
+                .where(DyFriends.HASH, Conditions.equalTo(this.number()))
+                .through(thr)
+                .iterator();
+            if (items.hasNext()) {
+                final Item itm = items.next();
+                if (itm.has(DyFriends.ATTR_SUBSCRIPTION)) {
+                    subs = Boolean.parseBoolean(
+                        itm.get(DyFriends.ATTR_SUBSCRIPTION).getS()
+                    );
+                }
             }
         }
         return subs;
@@ -172,7 +178,9 @@ final class DyBout implements Bout {
 
     @Override
     public Messages messages() throws IOException {
-        return new DyMessages(this.region, this.number(), this.self);
+        return new DyMessages(
+            this.region, this.number(), this.self, this.item
+        );
     }
 
     @Override
@@ -182,6 +190,8 @@ final class DyBout implements Bout {
 
     @Override
     public Attachments attachments() throws IOException {
-        return new DyAttachments(this.region, this.number(), this.self);
+        return new DyAttachments(
+            this.region, this.number(), this.self, this.item
+        );
     }
 }
@@ -0,0 +1,445 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.google.common.collect.Iterables;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.netbout.cached.Bus;
+import com.netbout.cached.CdBout;
+import com.netbout.cached.CdInbox;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+
+/**
+ * Bus of cache invalidations in DynamoDB.
+ *
+ * <p>Published tags are not written right away, they are collected in
+ * memory and sent in the background twice a second, many tags in one
+ * row, and all rows of one round in one batch. Rows are spread among
+ * partitions by the minute of publishing and a random shard, in order
+ * not to send all writes to the same partition. Every node polls the
+ * partitions of the time passed since its previous poll, a few seconds
+ * more, and tells its listeners about the rows published by other nodes,
+ * skipping the rows it has already seen. Partitions older than an hour
+ * are deleted by the pollers, from time to time.
+ *
+ * <p>When friend rows of a bout are written in the background, see
+ * {@link Fanout}, the tags of the bout and of the inboxes of its friends
+ * are flushed once again, on this node and on all others, since values
+ * loaded between the change and the end of the fan-out are stale.
+ *
+ * <p>The bus is mutable, that's why it is not {@code @Immutable} and
+ * it has to be created only once per node.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@ToString(of = { "node", "start" })
+@SuppressWarnings({ "PMD.ExcessiveImports", "PMD.TooManyMethods" })
+public final class DyBus implements Bus {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "flushes";
+
+    /**
+     * Partition: the minute of publishing and the shard.
+     */
+    public static final String HASH = "bus";
+
+    /**
+     * Unique ID of the row, starting with the time of publishing.
+     */
+    public static final String RANGE = "id";
+
+    /**
+     * Flushed tags.
+     */
+    public static final String ATTR_TAGS = "tags";
+
+    /**
+     * Node that published them.
+     */
+    public static final String ATTR_NODE = "node";
+
+    /**
+     * Time span of a partition, in msec.
+     */
+    private static final long BUCKET = TimeUnit.MINUTES.toMillis(1L);
+
+    /**
+     * Number of partitions in every time span.
+     */
+    private static final int SHARDS = Tv.FOUR;
+
+    /**
+     * Maximum number of tags in one row.
+     */
+    private static final int MAX = Tv.HUNDRED;
+
+    /**
+     * Delay between sending rounds, in msec.
+     */
+    private static final long SEND = 500L;
+
+    /**
+     * Rows published earlier than the latest poll by this time, in msec,
+     * are read again, because of clock skew and late writes.
+     */
+    private static final long SKEW = TimeUnit.SECONDS.toMillis(10L);
+
+    /**
+     * How long rows are kept, in msec.
+     */
+    private static final long TTL = TimeUnit.HOURS.toMillis(1L);
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * ID of this node.
+     */
+    private final transient String node;
+
+    /**
+     * Tags published, but not sent yet.
+     */
+    private final transient Set<String> pending;
+
+    /**
+     * When the latest poll started, in msec.
+     */
+    private final transient AtomicLong start;
+
+    /**
+     * IDs of rows seen during the latest polls.
+     */
+    private final transient NavigableSet<String> seen;
+
+    /**
+     * Number of polls made.
+     */
+    private final transient AtomicLong polls;
+
+    /**
+     * The time span, which partitions are not deleted yet, starting
+     * from it.
+     */
+    private final transient AtomicLong cleaned;
+
+    /**
+     * Listeners.
+     */
+    private final transient Collection<Bus.Listener> listeners;
+
+    /**
+     * Public ctor.
+     */
+    public DyBus() {
+        this(DyBase.connect(), (long) Tv.THREE);
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param delay Delay between polls, in seconds
+     */
+    DyBus(final Region reg, final long delay) {
+        this.region = reg;
+        this.node = UUID.randomUUID().toString();
+        this.pending = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+        this.start = new AtomicLong(System.currentTimeMillis());
+        this.seen = new ConcurrentSkipListSet<String>();
+        this.polls = new AtomicLong();
+        this.cleaned = new AtomicLong(
+            (this.start.get() - DyBus.TTL * 2L) / DyBus.BUCKET
+        );
+        this.listeners = new CopyOnWriteArrayList<Bus.Listener>();
+        final ScheduledExecutorService service =
+            Executors.newScheduledThreadPool(
+                2, new VerboseThreads(DyBus.class)
+            );
+        service.scheduleWithFixedDelay(
+            new Runnable() {
+                @Override
+                public void run() {
+                    DyBus.this.poll();
+                }
+            },
+            delay, delay, TimeUnit.SECONDS
+        );
+        service.scheduleWithFixedDelay(
+            new Runnable() {
+                @Override
+                public void run() {
+                    DyBus.this.send();
+                }
+            },
+            DyBus.SEND, DyBus.SEND, TimeUnit.MILLISECONDS
+        );
+        Fanout.INSTANCE.listen(
+            new Fanout.Listener() {
+                @Override
+                public void written(final long bout,
+                    final Collection<String> aliases) {
+                    DyBus.this.written(bout, aliases);
+                }
+            }
+        );
+    }
+
+    @Override
+    public void publish(final String tag) {
+        this.pending.add(tag);
+    }
+
+    @Override
+    public void listen(final Bus.Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Friend rows of the bout are written, flush their tags here
+     * and on all other nodes.
+     * @param bout Number of the bout
+     * @param aliases Aliases of friends
+     */
+    private void written(final long bout, final Collection<String> aliases) {
+        final Collection<String> tags = new LinkedList<String>();
+        tags.add(CdBout.tag(bout));
+        for (final String alias : aliases) {
+            tags.add(CdInbox.tag(alias));
+        }
+        for (final String tag : tags) {
+            for (final Bus.Listener listener : this.listeners) {
+                listener.flushed(tag);
+            }
+            this.publish(tag);
+        }
+    }
+
+    /**
+     * Send tags published since the previous round.
+     *
+     * <p>When the batch fails, its tags are published again, to be sent
+     * in the next round.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void send() {
+        final Collection<String> tags = new LinkedList<String>();
+        final Iterator<String> iterator = this.pending.iterator();
+        while (iterator.hasNext()) {
+            tags.add(iterator.next());
+            iterator.remove();
+        }
+        if (!tags.isEmpty()) {
+            final long now = System.currentTimeMillis();
+            final Collection<Attributes> rows = new LinkedList<Attributes>();
+            for (final List<String> chunk
+                : Iterables.partition(tags, DyBus.MAX)) {
+                rows.add(
+                    new Attributes()
+                        .with(
+                            DyBus.HASH,
+                            DyBus.partition(
+                                now / DyBus.BUCKET,
+                                ThreadLocalRandom.current().nextInt(
+                                    DyBus.SHARDS
+                                )
+                            )
+                        )
+                        .with(
+                            DyBus.RANGE,
+                            DyBus.id(now, UUID.randomUUID().toString())
+                        )
+                        .with(
+                            DyBus.ATTR_TAGS,
+                            new AttributeValue().withSS(chunk)
+                        )
+                        .with(DyBus.ATTR_NODE, this.node)
+                );
+            }
+            try {
+                new Bulk(this.region, DyBus.TBL).put(rows);
+            // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final RuntimeException | IOException ex) {
+                this.pending.addAll(tags);
+                Logger.error(
+                    this, "failed to send %d tag(s): %s", tags.size(), ex
+                );
+            }
+        }
+    }
+
+    /**
+     * Read new rows and clean old ones, if it's time.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void poll() {
+        final long now = System.currentTimeMillis();
+        final long since = this.start.getAndSet(now) - DyBus.SKEW;
+        final String from = DyBus.id(since, "");
+        this.seen.headSet(from).clear();
+        try {
+            for (long bucket = since / DyBus.BUCKET;
+                bucket <= now / DyBus.BUCKET; ++bucket) {
+                for (int shard = 0; shard < DyBus.SHARDS; ++shard) {
+                    this.read(DyBus.partition(bucket, shard), from);
+                }
+            }
+            if (this.polls.incrementAndGet() % (long) Tv.HUNDRED == 0L) {
+                this.clean();
+            }
+        // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final RuntimeException | IOException ex) {
+            Logger.error(this, "failed to poll: %s", ex);
+        }
+    }
+
+    /**
+     * Read new rows of the partition and tell listeners about them.
+     * @param partition The partition
+     * @param from ID to read rows after
+     */
+    private void read(final String partition, final String from) {
+        for (final Item item : this.rows(partition, from)) {
+            try {
+                if (this.seen.add(item.get(DyBus.RANGE).getS())
+                    && !this.node.equals(item.get(DyBus.ATTR_NODE).getS())) {
+                    for (final String tag : item.get(DyBus.ATTR_TAGS).getSS()) {
+                        for (final Bus.Listener listener : this.listeners) {
+                            listener.flushed(tag);
+                        }
+                    }
+                }
+            } catch (final IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    /**
+     * Delete partitions older than TTL.
+     * @throws IOException If fails
+     */
+    private void clean() throws IOException {
+        final long last = (System.currentTimeMillis() - DyBus.TTL)
+            / DyBus.BUCKET;
+        final Collection<Attributes> keys = new LinkedList<Attributes>();
+        for (long bucket = this.cleaned.getAndSet(last); bucket < last;
+            ++bucket) {
+            for (int shard = 0; shard < DyBus.SHARDS; ++shard) {
+                final String partition = DyBus.partition(bucket, shard);
+                for (final Item item
+                    : this.rows(partition, DyBus.id(0L, ""))) {
+                    keys.add(
+                        new Attributes()
+                            .with(DyBus.HASH, partition)
+                            .with(DyBus.RANGE, item.get(DyBus.RANGE).getS())
+                    );
+                }
+            }
+        }
+        new Bulk(this.region, DyBus.TBL).delete(keys);
+    }
+
+    /**
+     * Rows of the partition with IDs greater than the given one.
+     * @param partition The partition
+     * @param id ID to compare with
+     * @return Rows, in the order of publishing
+     */
+    private Iterable<Item> rows(final String partition, final String id) {
+        return this.region.table(DyBus.TBL)
+            .frame()
+            .where(DyBus.HASH, partition)
+            .where(
+                DyBus.RANGE,
+                new Condition()
+                    .withComparisonOperator(ComparisonOperator.GT)
+                    .withAttributeValueList(new AttributeValue(id))
+            )
+            .through(
+                new QueryValve()
+                    .withConsistentRead(true)
+                    .withLimit(Tv.HUNDRED)
+            );
+    }
+
+    /**
+     * Make a partition.
+     * @param bucket Time span of publishing
+     * @param shard Shard
+     * @return Value of HASH
+     */
+    private static String partition(final long bucket, final int shard) {
+        return String.format("%d-%d", bucket, shard);
+    }
+
+    /**
+     * Make an ID of a row.
+     * @param time Time of publishing, in msec
+     * @param suffix Unique suffix
+     * @return ID, ordered by time
+     */
+    private static String id(final long time, final String suffix) {
+        return String.format("%013d-%s", time, suffix);
+    }
+
+}
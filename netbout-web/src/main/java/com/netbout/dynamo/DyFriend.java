@@ -29,20 +29,21 @@ package com.netbout.dynamo;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.dynamo.Item;
-import com.jcabi.dynamo.QueryValve;
-import com.jcabi.dynamo.Region;
-import com.jcabi.dynamo.Table;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Friend;
 import java.io.IOException;
 import java.net.URI;
-import java.util.Iterator;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 /**
  * Dynamo friend.
  *
+ * <p>The friend is made of a row of "aliases" table, which must have
+ * photo and email attributes loaded, if they exist, see {@link Profiles}.
+ * The row may be loaded on demand, see {@link Profile}, that's why
+ * nothing but {@link #alias()} is read when only aliases are needed.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
@@ -50,13 +51,13 @@ import lombok.ToString;
 @Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "name")
-@EqualsAndHashCode(of = { "table", "name" })
+@EqualsAndHashCode(of = "name")
 final class DyFriend implements Friend {
 
     /**
-     * Table with aliases.
+     * Row of the alias.
      */
-    private final transient Table table;
+    private final transient Item profile;
 
     /**
      * This alias.
@@ -65,12 +66,13 @@ final class DyFriend implements Friend {
 
     /**
      * Ctor.
-     * @param region Region we're in
      * @param alias Alias
+     * @param item Row of the alias in "aliases" table
+     * @since 2.19
      */
-    DyFriend(final Region region, final String alias) {
-        this.table = region.table(DyAliases.TBL);
+    DyFriend(final String alias, final Item item) {
         this.name = alias;
+        this.profile = item;
     }
 
     @Override
@@ -80,17 +82,9 @@ final class DyFriend implements Friend {
 
     @Override
     public URI photo() throws IOException {
-        final Iterator<Item> items = this.table.frame()
-            .where(DyAliases.HASH, this.name)
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyAliases.ATTR_PHOTO)
-            )
-            .iterator();
         final URI uri;
-        if (items.hasNext()) {
-            uri = URI.create(items.next().get(DyAliases.ATTR_PHOTO).getS());
+        if (this.profile.has(DyAliases.ATTR_PHOTO)) {
+            uri = URI.create(this.profile.get(DyAliases.ATTR_PHOTO).getS());
         } else {
             uri = Alias.BLANK;
         }
@@ -99,20 +93,9 @@ final class DyFriend implements Friend {
 
     @Override
     public String email() throws IOException {
-        final Iterator<Item> items = this.table.frame()
-            .where(DyAliases.HASH, this.name)
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyAliases.ATTR_EMAIL)
-            )
-            .iterator();
         String email = "";
-        if (items.hasNext()) {
-            final Item item = items.next();
-            if (item.has(DyAliases.ATTR_EMAIL)) {
-                email = item.get(DyAliases.ATTR_EMAIL).getS();
-            }
+        if (this.profile.has(DyAliases.ATTR_EMAIL)) {
+            email = this.profile.get(DyAliases.ATTR_EMAIL).getS();
         }
         return email;
     }
@@ -27,8 +27,6 @@
 package com.netbout.dynamo;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
@@ -41,7 +39,10 @@ import com.jcabi.log.Logger;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
@@ -140,6 +141,10 @@ final class DyFriends implements Friends {
                 .with(DyFriends.ATTR_SUBSCRIPTION, true)
                 .with(DyFriends.ATTR_UPDATED, System.currentTimeMillis())
         );
+        final long number = Long.parseLong(this.bout().getN());
+        new Hits(this.region, alias).index(
+            number, new Terms(this.region, number).latest()
+        );
         Logger.info(this, "@%s invited to #%s", friend, this.bout().getN());
     }
 
@@ -156,32 +161,37 @@ final class DyFriends implements Friends {
                 String.format("alias '%s' is not in the bout", friend)
             );
         }
-        items.next();
+        final Item row = items.next();
+        if (row.has(DyFriends.ATTR_UNREAD)) {
+            new Unread(this.region, alias).add(
+                -Long.parseLong(row.get(DyFriends.ATTR_UNREAD).getN())
+            );
+        }
         items.remove();
+        final long number = Long.parseLong(this.bout().getN());
+        new Hits(this.region, alias).forget(
+            number, new Terms(this.region, number).latest().keySet()
+        );
         Logger.info(this, "@%s kicked off #%s", friend, this.bout().getN());
     }
 
     @Override
     public Iterable<Friend> iterate() throws IOException {
-        return Iterables.transform(
-            this.region.table(DyFriends.TBL)
-                .frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout())),
-            new Function<Item, Friend>() {
-                @Override
-                public Friend apply(final Item input) {
-                    try {
-                        return new DyFriend(
-                            DyFriends.this.region,
-                            input.get(DyFriends.RANGE).getS()
-                        );
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                }
-            }
-        );
+        final Collection<String> aliases = new ArrayList<String>(0);
+        for (final Item item : this.region.table(DyFriends.TBL)
+            .frame()
+            .through(new QueryValve().withAttributesToGet(DyFriends.RANGE))
+            .where(DyFriends.HASH, Conditions.equalTo(this.bout()))) {
+            aliases.add(item.get(DyFriends.RANGE).getS());
+        }
+        final Map<String, Item> profiles =
+            new Profiles(this.region).lazy(aliases);
+        final Collection<Friend> friends =
+            new ArrayList<Friend>(aliases.size());
+        for (final String alias : aliases) {
+            friends.add(new DyFriend(alias, profiles.get(alias)));
+        }
+        return friends;
     }
 
     /**
@@ -39,8 +39,8 @@ import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.Attributes;
-import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
@@ -52,8 +52,11 @@ import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -136,40 +139,9 @@ final class DyInbox implements Inbox {
         return number;
     }
 
-    /**
-     * {@inheritDoc}
-     * @todo #1 DynamoDBLocal doesn't work with all attributes
-     *  in global index. If we remove this check for a local version,
-     *  most tests fail. I'm not sure how to fix that. I suspect, it's
-     *  a bug in DynamoDBLocal, but I don't even know how to report
-     *  it to them :( Anyway, let's try to investigate and either fix
-     *  property or introduce a better workaround. Pay attention that this
-     *  code works correctly in production.
-     */
     @Override
     public long unread() throws IOException {
-        long unread = 0L;
-        if (!"1.0-LOCAL".equals(Manifests.read("Netbout-Version"))) {
-            final Iterable<Item> items = this.region.table(DyFriends.TBL)
-                .frame()
-                .where(DyFriends.RANGE, this.self)
-                .through(
-                    new QueryValve()
-                        .withIndexName(DyFriends.INDEX)
-                        .withConsistentRead(false)
-                        .withSelect(Select.SPECIFIC_ATTRIBUTES)
-                        .withAttributesToGet(DyFriends.ATTR_UNREAD)
-                        .withScanIndexForward(false)
-                );
-            for (final Item item : items) {
-                if (item.has(DyFriends.ATTR_UNREAD)) {
-                    unread += Long.parseLong(
-                        item.get(DyFriends.ATTR_UNREAD).getN()
-                    );
-                }
-            }
-        }
-        return unread;
+        return new Unread(this.region, this.self).total();
     }
 
     @Override
@@ -178,22 +150,31 @@ final class DyInbox implements Inbox {
         ignore = Inbox.BoutNotFoundException.class
     )
     public Bout bout(final long number) throws Inbox.BoutNotFoundException {
-        final Iterator<Item> items = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve().withLimit(1)
-                    .withSelect(Select.SPECIFIC_ATTRIBUTES)
-                    .withAttributesToGet(
-                        DyFriends.HASH, DyFriends.RANGE
-                    )
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(number))
-            .where(DyFriends.RANGE, this.self)
-            .iterator();
-        if (!items.hasNext()) {
+        final Map<String, AttributeValue> attrs;
+        try {
+            attrs = new Keyed(
+                this.region, DyFriends.TBL,
+                new Attributes()
+                    .with(DyFriends.HASH, number)
+                    .with(DyFriends.RANGE, this.self)
+            ).load();
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        if (attrs.isEmpty()) {
             throw new Inbox.BoutNotFoundException(number);
         }
-        return new DyBout(this.region, items.next(), this.self);
+        return new DyBout(
+            this.region,
+            new Row(
+                this.region,
+                new Snapshot(
+                    this.region, DyFriends.TBL,
+                    Arrays.asList(DyFriends.HASH, DyFriends.RANGE), attrs
+                )
+            ),
+            this.self
+        );
     }
 
     @Override
@@ -203,68 +184,123 @@ final class DyInbox implements Inbox {
 
     @Override
     public Iterable<Bout> iterate() {
-        return Iterables.transform(
-            this.region.table(DyFriends.TBL)
-                .frame()
-                .where(DyFriends.RANGE, this.self)
-                .where(
-                    DyFriends.ATTR_UPDATED,
-                    new Condition()
-                        .withComparisonOperator(ComparisonOperator.LT)
-                        .withAttributeValueList(
-                            new AttributeValue().withN(
-                                Long.toString(this.since)
-                            )
+        return Iterables.concat(
+            Iterables.transform(
+                Iterables.partition(
+                    this.region.table(DyFriends.TBL)
+                        .frame()
+                        .where(DyFriends.RANGE, this.self)
+                        .where(
+                            DyFriends.ATTR_UPDATED,
+                            new Condition()
+                                .withComparisonOperator(ComparisonOperator.LT)
+                                .withAttributeValueList(
+                                    new AttributeValue().withN(
+                                        Long.toString(this.since)
+                                    )
+                                )
                         )
-                )
-                .through(
-                    new QueryValve()
-                        .withIndexName(DyFriends.INDEX)
-                        .withConsistentRead(false)
-                        .withLimit(Inbox.PAGE)
-                        .withSelect(Select.ALL_PROJECTED_ATTRIBUTES)
-                        .withScanIndexForward(false)
+                        .through(
+                            new QueryValve()
+                                .withIndexName(DyFriends.INDEX)
+                                .withConsistentRead(false)
+                                .withLimit(Inbox.PAGE)
+                                .withSelect(Select.SPECIFIC_ATTRIBUTES)
+                                .withAttributesToGet(DyFriends.HASH)
+                                .withScanIndexForward(false)
+                        ),
+                    Inbox.PAGE
                 ),
-            new Function<Item, Bout>() {
-                @Override
-                public Bout apply(final Item item) {
-                    return new Bout.ReadOnly(
-                        new DyBout(
-                            DyInbox.this.region,
-                            item, DyInbox.this.self
-                        )
-                    );
+                new Function<List<Item>, Iterable<Bout>>() {
+                    @Override
+                    public Iterable<Bout> apply(final List<Item> items) {
+                        final List<Long> numbers =
+                            new ArrayList<Long>(items.size());
+                        try {
+                            for (final Item item : items) {
+                                numbers.add(
+                                    Long.parseLong(
+                                        item.get(DyFriends.HASH).getN()
+                                    )
+                                );
+                            }
+                            return DyInbox.this.page(numbers);
+                        } catch (final IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
                 }
-            }
+            )
         );
     }
 
     @Override
     public Iterable<Bout> search(final String term) throws IOException {
-        final List<Bout> result = new ArrayList<>(16);
-        for (final Bout bout : this.iterate()) {
-            if (bout.messages().search(term).iterator().hasNext()) {
-                result.add(bout);
+        return this.page(
+            Iterables.limit(
+                new Hits(this.region, this.self).find(term, this.since),
+                Inbox.PAGE
+            )
+        );
+    }
+
+    /**
+     * Page of bouts, with their rows loaded by one batch.
+     * @param numbers Numbers of bouts, in the order required
+     * @return Bouts
+     * @throws IOException If fails
+     */
+    private List<Bout> page(final Iterable<Long> numbers) throws IOException {
+        final Collection<Attributes> keys =
+            new ArrayList<Attributes>(Inbox.PAGE);
+        for (final Long number : numbers) {
+            keys.add(
+                new Attributes()
+                    .with(DyFriends.HASH, number)
+                    .with(DyFriends.RANGE, this.self)
+            );
+        }
+        final Map<Long, Snapshot> found =
+            new HashMap<Long, Snapshot>(keys.size());
+        final Bulk bulk = new Bulk(this.region, DyFriends.TBL);
+        for (final Snapshot row : bulk.get(keys)) {
+            found.put(Long.parseLong(row.get(DyFriends.HASH).getN()), row);
+        }
+        final List<Bout> result = new ArrayList<Bout>(found.size());
+        for (final Long number : numbers) {
+            if (found.containsKey(number)) {
+                result.add(
+                    new Bout.ReadOnly(
+                        new DyBout(
+                            this.region,
+                            new Row(this.region, found.get(number)),
+                            this.self
+                        )
+                    )
+                );
             }
         }
         return result;
     }
 
     /**
-     * Sttc counter.
+     * Sttc counter, reserving numbers by blocks, see {@link Blocks}.
      * @return Counter
      */
     @Cacheable(forever = true)
     private static Counter sttc() {
         try {
-            return new CdSttc(
-                new ReSttc(
-                    RtSttc.make(
-                        URN.create(Manifests.read("Netbout-SttcUrn")),
-                        Manifests.read("Netbout-SttcToken")
+            return new Blocks(
+                new CdSttc(
+                    new ReSttc(
+                        RtSttc.make(
+                            URN.create(Manifests.read("Netbout-SttcUrn")),
+                            Manifests.read("Netbout-SttcToken")
+                        )
                     )
-                )
-            ).counters().get("nb-bout");
+                ).counters().get("nb-bout"),
+                (long) Tv.THOUSAND
+            );
         } catch (final IOException ex) {
             throw new IllegalStateException(ex);
         }
@@ -35,12 +35,11 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Async;
 import com.jcabi.aspects.Cacheable;
-import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.AttributeUpdates;
@@ -58,13 +57,21 @@ import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * Dynamo messages.
+ *
+ * <p>My own row in "friends" table, which the class holds, changes in
+ * memory, see {@link Row}, that's why it is not {@code @Immutable}.
+ *
  * @todo #603:30min Refactor DyMessages class to avoid suppressing of
  *  PMD.TooManyMethods and PMD.ExcessiveImports warnings. for example
  *  there are some private static methods there, those could be easily
@@ -74,10 +81,11 @@ import org.apache.commons.lang3.StringUtils;
  * @since 2.0
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
-@Immutable
 @Loggable(Loggable.DEBUG)
 @ToString(of = "bout")
-@EqualsAndHashCode(of = { "counter", "region", "bout", "self", "start" })
+@EqualsAndHashCode(
+    of = { "counter", "region", "bout", "self", "row", "start" }
+)
 @SuppressWarnings({ "PMD.TooManyMethods", "PMD.ExcessiveImports" })
 final class DyMessages implements Messages {
 
@@ -131,6 +139,11 @@ final class DyMessages implements Messages {
      */
     private final transient String self;
 
+    /**
+     * My own row in "friends" table, loaded.
+     */
+    private final transient Item row;
+
     /**
      * Start.
      */
@@ -141,9 +154,12 @@ final class DyMessages implements Messages {
      * @param reg Region
      * @param num Bout number
      * @param slf Self alias
+     * @param rw My own row in "friends" table, see {@link Row}
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    DyMessages(final Region reg, final long num, final String slf) {
-        this(reg, num, slf, DyMessages.sttc(), Inbox.NEVER);
+    DyMessages(final Region reg, final long num, final String slf,
+        final Item rw) {
+        this(reg, num, slf, rw, DyMessages.numbering(reg, num), Inbox.NEVER);
     }
 
     /**
@@ -151,16 +167,18 @@ final class DyMessages implements Messages {
      * @param reg Region
      * @param num Bout number
      * @param slf Self alias
+     * @param rw My own row in "friends" table, see {@link Row}
      * @param ctr Counter
      * @param strt Start message number
      * @since 2.7.1
      * @checkstyle ParameterNumberCheck (5 lines)
      */
     DyMessages(final Region reg, final long num, final String slf,
-        final Counter ctr, final long strt) {
+        final Item rw, final Counter ctr, final long strt) {
         this.region = reg;
         this.bout = num;
         this.self = slf;
+        this.row = rw;
         this.counter = ctr;
         this.start = strt;
     }
@@ -179,33 +197,30 @@ final class DyMessages implements Messages {
             );
         }
         final long number = this.counter.incrementAndGet(1L);
+        final long date = System.currentTimeMillis();
         this.region.table(DyMessages.TBL).put(
             new Attributes()
                 .with(DyMessages.HASH, this.bout)
                 .with(DyMessages.RANGE, number)
                 .with(DyMessages.ATTR_TEXT, clean)
                 .with(DyMessages.ATTR_ALIAS, this.self)
-                .with(DyMessages.ATTR_DATE, System.currentTimeMillis())
+                .with(DyMessages.ATTR_DATE, date)
         );
-        this.updated();
+        final Map<String, Long> terms = new HashMap<String, Long>(0);
+        for (final String term
+            : new Terms(this.region, this.bout).index(number, clean, date)) {
+            terms.put(term, date);
+        }
+        new Hits(this.region, this.self).index(this.bout, terms);
+        this.updated(this.friends(), terms);
         Logger.info(this, "posted to #%d by @%s", this.bout, this.self);
     }
 
     @Override
     public long unread() throws IOException {
-        final Item item = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNREAD)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
         final long unread;
-        if (item.has(DyFriends.ATTR_UNREAD)) {
-            unread = Long.parseLong(item.get(DyFriends.ATTR_UNREAD).getN());
+        if (this.row.has(DyFriends.ATTR_UNREAD)) {
+            unread = Long.parseLong(this.row.get(DyFriends.ATTR_UNREAD).getN());
         } else {
             unread = 0L;
         }
@@ -215,7 +230,7 @@ final class DyMessages implements Messages {
     @Override
     public Pageable<Message> jump(final long number) {
         return new DyMessages(
-            this.region, this.bout, this.self, this.counter, number
+            this.region, this.bout, this.self, this.row, this.counter, number
         );
     }
 
@@ -259,47 +274,95 @@ final class DyMessages implements Messages {
 
     @Override
     public Iterable<Message> search(final String term) throws IOException {
-        final List<Message> result = new ArrayList<>(16);
-        for (final Message message : this.iterate()) {
-            if (message.text().contains(term)) {
-                result.add(message);
+        final Collection<Long> numbers = new ArrayList<Long>(Messages.PAGE);
+        final Collection<Attributes> keys =
+            new ArrayList<Attributes>(Messages.PAGE);
+        for (final Long number : Iterables.limit(
+            new Terms(this.region, this.bout).find(term, this.start),
+            Messages.PAGE
+        )) {
+            numbers.add(number);
+            keys.add(
+                new Attributes()
+                    .with(DyMessages.HASH, this.bout)
+                    .with(DyMessages.RANGE, number)
+            );
+        }
+        final Map<Long, Item> found = new HashMap<Long, Item>(numbers.size());
+        for (final Item item : new Bulk(this.region, DyMessages.TBL).get(
+            keys,
+            DyMessages.RANGE,
+            DyMessages.ATTR_TEXT,
+            DyMessages.ATTR_ALIAS,
+            DyMessages.ATTR_DATE
+        )) {
+            found.put(Long.parseLong(item.get(DyMessages.RANGE).getN()), item);
+        }
+        final List<Message> result = new ArrayList<Message>(found.size());
+        for (final Long number : numbers) {
+            if (found.containsKey(number)) {
+                result.add(new DyMessage(found.get(number)));
             }
         }
         return result;
     }
 
     /**
-     * It was updated just now.
+     * All friend rows of the bout.
+     * @return Friend rows
      */
-    @Async
-    private void updated() {
-        final String alias = this.self;
-        Iterables.all(
+    private Collection<Item> friends() {
+        final Collection<Item> rows = new ArrayList<Item>(0);
+        Iterables.addAll(
+            rows,
             this.region.table(DyFriends.TBL).frame()
                 .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout)),
-            // @checkstyle AnonInnerLengthCheck (50 lines)
-            new Predicate<Item>() {
+                .where(DyFriends.HASH, Conditions.equalTo(this.bout))
+        );
+        return rows;
+    }
+
+    /**
+     * It was updated just now.
+     *
+     * <p>Every friend, except the author, gets one more unread message,
+     * both in his "friends" row and in his total, see {@link Unread}.
+     * Terms of the message are indexed in the inbox of every friend,
+     * see {@link Hits}, except the author, whose inbox is indexed right
+     * in {@link #post(String)}. Rows are updated in the background, see
+     * {@link Fanout}.
+     *
+     * @param friends Friend rows
+     * @param terms Terms of the message and the date of posting
+     */
+    private void updated(final Iterable<Item> friends,
+        final Map<String, Long> terms) {
+        final String alias = this.self;
+        final Region reg = this.region;
+        final long number = this.bout;
+        Fanout.INSTANCE.submit(
+            friends,
+            new Fanout.Job() {
                 @Override
-                public boolean apply(final Item input) {
+                public void apply(final Item row) throws IOException {
                     AttributeUpdates updates = new AttributeUpdates().with(
                         DyFriends.ATTR_UPDATED,
                         System.currentTimeMillis()
                     );
-                    try {
-                        if (!input.get(DyFriends.RANGE).getS().equals(alias)) {
-                            updates = updates.with(
-                                DyFriends.ATTR_UNREAD,
-                                new AttributeValueUpdate()
-                                    .withAction(AttributeAction.ADD)
-                                    .withValue(new AttributeValue().withN("1"))
-                            );
-                        }
-                        input.put(updates);
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
+                    final String friend = row.get(DyFriends.RANGE).getS();
+                    if (!friend.equals(alias)) {
+                        updates = updates.with(
+                            DyFriends.ATTR_UNREAD,
+                            new AttributeValueUpdate()
+                                .withAction(AttributeAction.ADD)
+                                .withValue(new AttributeValue().withN("1"))
+                        );
+                    }
+                    row.put(updates);
+                    if (!friend.equals(alias)) {
+                        new Unread(reg, friend).add(1L);
+                        new Hits(reg, friend).index(number, terms);
                     }
-                    return true;
                 }
             }
         );
@@ -307,34 +370,100 @@ final class DyMessages implements Messages {
 
     /**
      * It was seen just now.
+     *
+     * <p>We subtract exactly what we've seen in the row loaded, instead
+     * of setting the counter to zero, in order not to lose messages posted
+     * concurrently and to keep the total in {@link Unread} consistent.
      */
     @Async
     private void seen() {
-        Iterables.all(
-            this.region.table(DyFriends.TBL).frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-                .where(DyFriends.RANGE, this.self),
-            new Predicate<Item>() {
-                @Override
-                public boolean apply(final Item input) {
-                    try {
-                        input.put(
-                            new AttributeUpdates().with(
-                                DyFriends.ATTR_UNREAD, 0L
+        try {
+            if (this.row.has(DyFriends.ATTR_UNREAD)) {
+                this.subtract(
+                    this.row,
+                    Long.parseLong(this.row.get(DyFriends.ATTR_UNREAD).getN())
+                );
+            }
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Subtract seen messages from the friend row and the total.
+     *
+     * <p>The row is updated only if its counter is still what we've seen,
+     * otherwise somebody else has already subtracted them, or new messages
+     * were posted, and they will be subtracted when seen next time.
+     *
+     * @param input Friend row of myself
+     * @param seen How many messages were seen
+     * @throws IOException If fails
+     */
+    private void subtract(final Item input, final long seen)
+        throws IOException {
+        if (seen > 0L) {
+            try {
+                new Keyed(
+                    this.region, DyFriends.TBL,
+                    new Attributes()
+                        .with(DyFriends.HASH, input.get(DyFriends.HASH))
+                        .with(DyFriends.RANGE, input.get(DyFriends.RANGE))
+                ).put(
+                    new AttributeUpdates().with(
+                        DyFriends.ATTR_UNREAD,
+                        new AttributeValueUpdate()
+                            .withAction(AttributeAction.ADD)
+                            .withValue(
+                                new AttributeValue().withN(
+                                    Long.toString(-seen)
+                                )
                             )
-                        );
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                    return true;
-                }
+                    ),
+                    Collections.singletonMap(
+                        DyFriends.ATTR_UNREAD,
+                        new ExpectedAttributeValue(
+                            new AttributeValue().withN(Long.toString(seen))
+                        )
+                    )
+                );
+                new Unread(this.region, this.self).add(-seen);
+            } catch (final Keyed.ConflictException ex) {
+                Logger.info(
+                    this, "unread of @%s in #%d changed, %d not subtracted",
+                    this.self, this.bout, seen
+                );
             }
-        );
+        }
+    }
+
+    /**
+     * Counter of message numbers, according to the numbering mode.
+     *
+     * <p>In "bout" mode every bout has its own sequence of numbers, see
+     * {@link Sequence}, otherwise all bouts share one global counter.
+     *
+     * @param reg Region
+     * @param num Bout number
+     * @return Counter
+     */
+    private static Counter numbering(final Region reg, final long num) {
+        final Counter ctr;
+        if ("bout".equals(Manifests.read("Netbout-Numbering"))) {
+            ctr = new Sequence(reg, num);
+        } else {
+            ctr = DyMessages.sttc();
+        }
+        return ctr;
     }
 
     /**
      * Sttc counter.
+     *
+     * <p>Numbers are not reserved by {@link Blocks} here, since with a few
+     * JVMs they wouldn't follow the time of posting, while messages are
+     * paged by their numbers.
+     *
      * @return Counter
      */
     @Cacheable(forever = true)
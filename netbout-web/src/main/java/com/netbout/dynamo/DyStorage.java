@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.s3.Bucket;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Our own stand-in of S3 presigned links, for the S3 stand-in.
+ *
+ * <p>When we work with {@link com.jcabi.s3.mock.MkRegion}, there is no S3
+ * for browsers to talk to, and direct links lead to our own routes,
+ * signed the same way, see {@link Presigned}. Objects are read from the
+ * bucket and parts of multipart uploads are saved into it, only when
+ * the link is signed by this node and didn't expire yet.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "bucket")
+@EqualsAndHashCode(of = "bucket")
+public final class DyStorage {
+
+    /**
+     * Path of links to download objects.
+     */
+    public static final String GET = "/storage/get";
+
+    /**
+     * Path of links to upload parts.
+     */
+    public static final String PART = "/storage/part";
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Public ctor.
+     */
+    public DyStorage() {
+        this(DyAttachment.storage());
+    }
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     */
+    DyStorage(final Bucket bkt) {
+        this.bucket = bkt;
+    }
+
+    /**
+     * Read the object.
+     * @param key S3 key
+     * @param ctype Content type from the link
+     * @param name File name from the link
+     * @param expires When the link expires, in msec
+     * @param signature Signature of the link
+     * @return Content
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public InputStream read(final String key, final String ctype,
+        final String name, final long expires, final String signature)
+        throws IOException {
+        DyStorage.check(
+            Presigned.valid(
+                signature, expires, DyStorage.GET, key, ctype, name
+            )
+        );
+        return new Download(this.bucket.ocket(key));
+    }
+
+    /**
+     * Save a part of a multipart upload.
+     * @param key S3 key of the upload
+     * @param upload Upload ID
+     * @param number Number of the part
+     * @param expires When the link expires, in msec
+     * @param signature Signature of the link
+     * @param stream Content of the part
+     * @param length Length of the part
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public void write(final String key, final String upload,
+        final int number, final long expires, final String signature,
+        final InputStream stream, final long length) throws IOException {
+        DyStorage.check(
+            Presigned.valid(
+                signature, expires, DyStorage.PART, key, upload,
+                Integer.toString(number)
+            )
+        );
+        Multipart.save(this.bucket, key, number, stream, length);
+    }
+
+    /**
+     * Check the link.
+     * @param valid Is it valid?
+     * @throws DyStorage.InvalidLinkException If it's not
+     */
+    private static void check(final boolean valid)
+        throws DyStorage.InvalidLinkException {
+        if (!valid) {
+            throw new DyStorage.InvalidLinkException(
+                "the link is not valid or has expired"
+            );
+        }
+    }
+
+    /**
+     * The link is not signed by this node or has expired.
+     */
+    public static final class InvalidLinkException extends IOException {
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = -2837916054385293816L;
+        /**
+         * Ctor.
+         * @param cause Cause of the problem
+         */
+        public InvalidLinkException(final String cause) {
+            super(cause);
+        }
+    }
+
+}
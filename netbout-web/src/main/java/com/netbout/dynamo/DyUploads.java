@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.jcabi.s3.Bucket;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.ToString;
+
+/**
+ * Janitor of multipart uploads.
+ *
+ * <p>Once a minute, completed uploads are adopted by blobs, see
+ * {@link Multipart#adopt(Region, Bucket)}, since that requires reading
+ * the entire content back from S3, which is too long for an HTTP request.
+ *
+ * <p>Once an hour, uploads started more than a day ago and neither
+ * completed nor aborted are aborted, see
+ * {@link Multipart#sweep(Region, Bucket, long)}, in order not to pay
+ * for their parts in S3 forever.
+ *
+ * <p>The janitor runs threads after {@link #start()}, that's why it is
+ * not {@code @Immutable} and it has to be started only once per node.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = "bucket")
+public final class DyUploads {
+
+    /**
+     * Uploads older than this are abandoned, in msec.
+     */
+    private static final long AGE = TimeUnit.DAYS.toMillis(1L);
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bucket with attachments.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Public ctor.
+     */
+    public DyUploads() {
+        this(DyBase.connect(), DyAttachment.storage());
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param bkt Bucket
+     */
+    DyUploads(final Region reg, final Bucket bkt) {
+        this.region = reg;
+        this.bucket = bkt;
+    }
+
+    /**
+     * Start adopting and sweeping in background.
+     */
+    public void start() {
+        final ScheduledExecutorService exec =
+            Executors.newSingleThreadScheduledExecutor(
+                new VerboseThreads(DyUploads.class)
+            );
+        exec.scheduleWithFixedDelay(
+            new Runnable() {
+                @Override
+                public void run() {
+                    DyUploads.this.adopt();
+                }
+            },
+            1L, 1L, TimeUnit.MINUTES
+        );
+        exec.scheduleWithFixedDelay(
+            new Runnable() {
+                @Override
+                public void run() {
+                    DyUploads.this.sweep();
+                }
+            },
+            1L, 1L, TimeUnit.HOURS
+        );
+    }
+
+    /**
+     * Adopt completed uploads.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void adopt() {
+        try {
+            final int total = Multipart.adopt(this.region, this.bucket);
+            Logger.info(this, "%d completed uploads adopted", total);
+        } catch (final RuntimeException | IOException ex) {
+            Logger.warn(this, "failed to adopt uploads: %s", ex);
+        }
+    }
+
+    /**
+     * Abort abandoned uploads.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void sweep() {
+        try {
+            final int total = Multipart.sweep(
+                this.region, this.bucket,
+                System.currentTimeMillis() - DyUploads.AGE
+            );
+            Logger.info(this, "%d abandoned uploads aborted", total);
+        } catch (final RuntimeException | IOException ex) {
+            Logger.warn(this, "failed to sweep uploads: %s", ex);
+        }
+    }
+
+}
@@ -92,8 +92,7 @@ final class DyUser implements User {
                 public Friend apply(final Item input) {
                     try {
                         return new DyFriend(
-                            DyUser.this.region,
-                            input.get(DyAliases.HASH).getS()
+                            input.get(DyAliases.HASH).getS(), input
                         );
                     } catch (final IOException ex) {
                         throw new IllegalStateException(ex);
@@ -0,0 +1,356 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.google.common.collect.Iterables;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Item;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+
+/**
+ * Fan-out of updates to friend rows.
+ *
+ * <p>Rows are grouped into batches, every batch is written by one
+ * thread of a bounded pool, row by row, while batches are written in
+ * parallel. When the queue of batches is full, the caller writes the
+ * batch itself, which slows it down instead of piling up more work.
+ * The depth of the queue and the lag are logged every minute, see
+ * {@link #depth()} and {@link #lag()}.
+ *
+ * <p>When all rows of a submission are written, listeners are told
+ * about the bout and the aliases of the rows, see {@link #listen(Listener)},
+ * since whatever was read from them before is stale now.
+ *
+ * <p>The engine is mutable, that's why it is not {@code @Immutable} and
+ * is used through {@link #INSTANCE} only.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = { "batch", "pending", "delay" })
+final class Fanout {
+
+    /**
+     * Shared instance.
+     */
+    public static final Fanout INSTANCE = Fanout.reported(
+        new Fanout(Tv.FOUR, Tv.TWENTY, Tv.HUNDRED)
+    );
+
+    /**
+     * Batches waiting longer than this, in msec, are reported.
+     */
+    private static final long SLOW = TimeUnit.SECONDS.toMillis(1L);
+
+    /**
+     * How often depth and lag are logged, in msec.
+     */
+    private static final long REPORT = TimeUnit.MINUTES.toMillis(1L);
+
+    /**
+     * Pool of threads.
+     */
+    private final transient ThreadPoolExecutor pool;
+
+    /**
+     * Maximum number of rows in one batch.
+     */
+    private final transient int batch;
+
+    /**
+     * Rows submitted but not written yet.
+     */
+    private final transient AtomicLong pending;
+
+    /**
+     * How long, in msec, the latest started batch waited in the queue.
+     */
+    private final transient AtomicLong delay;
+
+    /**
+     * Listeners.
+     */
+    private final transient Collection<Fanout.Listener> listeners;
+
+    /**
+     * Ctor.
+     * @param threads Maximum number of batches written in parallel
+     * @param size Maximum number of rows in one batch
+     * @param queue Maximum number of batches waiting in the queue
+     */
+    Fanout(final int threads, final int size, final int queue) {
+        this.pool = new ThreadPoolExecutor(
+            threads, threads, 1L, TimeUnit.MINUTES,
+            new ArrayBlockingQueue<Runnable>(queue),
+            new VerboseThreads(Fanout.class),
+            new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        this.pool.allowCoreThreadTimeOut(true);
+        this.batch = size;
+        this.pending = new AtomicLong();
+        this.delay = new AtomicLong();
+        this.listeners = new CopyOnWriteArrayList<Fanout.Listener>();
+    }
+
+    /**
+     * Apply the job to all rows, in the background.
+     * @param rows Friend rows
+     * @param job The job to apply to every row
+     */
+    public void submit(final Iterable<Item> rows, final Fanout.Job job) {
+        final Fanout.Done done = new Fanout.Done();
+        for (final List<Item> chunk : Iterables.partition(rows, this.batch)) {
+            done.add(chunk);
+            this.pending.addAndGet(chunk.size());
+            this.pool.execute(new Fanout.Batch(chunk, job, done));
+        }
+        done.finish();
+    }
+
+    /**
+     * Listen to submissions written.
+     * @param listener The listener
+     */
+    public void listen(final Fanout.Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Queue depth, the number of rows submitted, but not written yet.
+     * @return Number of rows
+     */
+    public long depth() {
+        return this.pending.get();
+    }
+
+    /**
+     * Lag, how long the latest started batch waited in the queue.
+     * @return Time in milliseconds
+     */
+    public long lag() {
+        return this.delay.get();
+    }
+
+    /**
+     * Wait until all rows submitted are written.
+     * @param msec How long to wait, at most, in milliseconds
+     * @return TRUE if all of them are written
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean await(final long msec) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        while (this.depth() > 0L
+            && System.currentTimeMillis() - start < msec) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.TEN);
+        }
+        return this.depth() == 0L;
+    }
+
+    /**
+     * Job to apply to a friend row.
+     */
+    interface Job {
+        /**
+         * Apply it.
+         * @param row Friend row
+         * @throws IOException If fails
+         */
+        void apply(Item row) throws IOException;
+    }
+
+    /**
+     * Log depth and lag of the fan-out every minute.
+     * @param fanout The fan-out
+     * @return The same fan-out
+     */
+    private static Fanout reported(final Fanout fanout) {
+        Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(Fanout.class)
+        ).scheduleWithFixedDelay(
+            new Runnable() {
+                @Override
+                public void run() {
+                    Logger.info(
+                        fanout, "depth is %d, lag is %[ms]s",
+                        fanout.depth(), fanout.lag()
+                    );
+                }
+            },
+            Fanout.REPORT, Fanout.REPORT, TimeUnit.MILLISECONDS
+        );
+        return fanout;
+    }
+
+    /**
+     * Listener of submissions written.
+     */
+    interface Listener {
+        /**
+         * All rows of the submission are written.
+         * @param bout Number of the bout
+         * @param aliases Aliases of the rows
+         */
+        void written(long bout, Collection<String> aliases);
+    }
+
+    /**
+     * Tell listeners that the rows are written.
+     * @param rows Friend rows of one bout
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void written(final Collection<Item> rows) {
+        if (!rows.isEmpty()) {
+            try {
+                final long bout = Long.parseLong(
+                    rows.iterator().next().get(DyFriends.HASH).getN()
+                );
+                final Collection<String> aliases = new LinkedList<String>();
+                for (final Item row : rows) {
+                    aliases.add(row.get(DyFriends.RANGE).getS());
+                }
+                for (final Fanout.Listener listener : this.listeners) {
+                    listener.written(bout, aliases);
+                }
+            // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final RuntimeException | IOException ex) {
+                Logger.error(
+                    this, "failed to tell about %d rows: %s", rows.size(), ex
+                );
+            }
+        }
+    }
+
+    /**
+     * Rows of one submission, written when all its batches are done.
+     */
+    private final class Done {
+        /**
+         * Batches not done yet, plus one for the submitter.
+         */
+        private final transient AtomicInteger left = new AtomicInteger(1);
+        /**
+         * Rows.
+         */
+        private final transient Collection<Item> rows =
+            new ConcurrentLinkedQueue<Item>();
+        /**
+         * One more batch submitted.
+         * @param chunk Rows of the batch
+         */
+        public void add(final List<Item> chunk) {
+            this.left.incrementAndGet();
+            this.rows.addAll(chunk);
+        }
+        /**
+         * One more batch done, or the submission is over.
+         */
+        public void finish() {
+            if (this.left.decrementAndGet() == 0) {
+                Fanout.this.written(this.rows);
+            }
+        }
+    }
+
+    /**
+     * Batch of rows.
+     */
+    private final class Batch implements Runnable {
+        /**
+         * Rows.
+         */
+        private final transient List<Item> rows;
+        /**
+         * Job.
+         */
+        private final transient Fanout.Job job;
+        /**
+         * When it was submitted.
+         */
+        private final transient long start;
+        /**
+         * Submission it belongs to.
+         */
+        private final transient Fanout.Done done;
+        /**
+         * Ctor.
+         * @param list Rows
+         * @param jbb Job
+         * @param submission Submission it belongs to
+         */
+        Batch(final List<Item> list, final Fanout.Job jbb,
+            final Fanout.Done submission) {
+            this.rows = list;
+            this.job = jbb;
+            this.start = System.currentTimeMillis();
+            this.done = submission;
+        }
+        @Override
+        @SuppressWarnings("PMD.AvoidCatchingGenericException")
+        public void run() {
+            final long waited = System.currentTimeMillis() - this.start;
+            Fanout.this.delay.set(waited);
+            if (waited > Fanout.SLOW) {
+                Logger.warn(
+                    Fanout.this, "batch of %d rows waited %[ms]s, depth is %d",
+                    this.rows.size(), waited, Fanout.this.depth()
+                );
+            }
+            try {
+                for (final Item row : this.rows) {
+                    try {
+                        this.job.apply(row);
+                    // @checkstyle IllegalCatchCheck (1 line)
+                    } catch (final RuntimeException | IOException ex) {
+                        Logger.error(
+                            Fanout.this, "failed to update %s: %s", row, ex
+                        );
+                    } finally {
+                        Fanout.this.pending.decrementAndGet();
+                    }
+                }
+            } finally {
+                this.done.finish();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.google.common.collect.Iterables;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Index of terms in all bouts of one alias.
+ *
+ * <p>Every term of every bout the alias is a friend of is an item in
+ * "hits" table, where the range key is the term followed by the bout
+ * number, and "updated" is the date of the latest message with this
+ * term. The index is maintained when a message is posted and when
+ * a friend is invited or kicked off, see {@link Terms}. Query terms
+ * match the same way they do in {@link Terms#prefix(String)}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "alias")
+@EqualsAndHashCode(of = { "region", "alias" })
+final class Hits {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "hits";
+
+    /**
+     * Alias attribute.
+     */
+    public static final String HASH = "alias";
+
+    /**
+     * Term and bout number attribute.
+     */
+    public static final String RANGE = "term";
+
+    /**
+     * Bout number.
+     */
+    public static final String ATTR_BOUT = "bout";
+
+    /**
+     * Date of the latest message with the term.
+     */
+    public static final String ATTR_UPDATED = "updated";
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Alias.
+     */
+    private final transient String alias;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param name Alias
+     */
+    Hits(final Region reg, final String name) {
+        this.region = reg;
+        this.alias = name;
+    }
+
+    /**
+     * Index terms of the bout.
+     * @param bout Bout number
+     * @param terms Terms and dates of the latest messages with them
+     * @throws IOException If fails
+     */
+    public void index(final long bout, final Map<String, Long> terms)
+        throws IOException {
+        final Collection<Attributes> items = new ArrayList<Attributes>(0);
+        for (final Map.Entry<String, Long> term : terms.entrySet()) {
+            items.add(
+                this.key(bout, term.getKey())
+                    .with(Hits.ATTR_BOUT, bout)
+                    .with(Hits.ATTR_UPDATED, term.getValue())
+            );
+        }
+        new Bulk(this.region, Hits.TBL).put(items);
+    }
+
+    /**
+     * Remove terms of the bout from the index.
+     * @param bout Bout number
+     * @param terms Terms to remove
+     * @throws IOException If fails
+     */
+    public void forget(final long bout, final Iterable<String> terms)
+        throws IOException {
+        final Collection<Attributes> keys = new ArrayList<Attributes>(0);
+        for (final String term : terms) {
+            keys.add(this.key(bout, term));
+        }
+        new Bulk(this.region, Hits.TBL).delete(keys);
+    }
+
+    /**
+     * Find bouts matching all terms of the query.
+     * @param query Query
+     * @param before Only bouts with matching messages posted before
+     * @return Numbers of bouts, the most recently updated first
+     * @throws IOException If fails
+     */
+    public List<Long> find(final String query, final long before)
+        throws IOException {
+        Map<Long, Long> found = null;
+        for (final String term : Terms.split(query)) {
+            final Map<Long, Long> matched = this.matched(term);
+            if (found == null) {
+                found = matched;
+            } else {
+                found.keySet().retainAll(matched.keySet());
+                for (final Map.Entry<Long, Long> entry : found.entrySet()) {
+                    entry.setValue(
+                        Math.max(entry.getValue(), matched.get(entry.getKey()))
+                    );
+                }
+            }
+            if (found.isEmpty()) {
+                break;
+            }
+        }
+        final List<Long> bouts = new ArrayList<Long>(0);
+        if (found != null) {
+            for (final Map.Entry<Long, Long> entry : found.entrySet()) {
+                if (entry.getValue() < before) {
+                    bouts.add(entry.getKey());
+                }
+            }
+            Collections.sort(bouts, new Hits.Recent(found));
+        }
+        return bouts;
+    }
+
+    /**
+     * Bouts matching one term.
+     * @param term The term
+     * @return Bout numbers and dates of their latest matching messages
+     * @throws IOException If fails
+     */
+    private Map<Long, Long> matched(final String term) throws IOException {
+        final Iterable<Item> items = Iterables.limit(
+            this.region.table(Hits.TBL)
+                .frame()
+                .through(
+                    new QueryValve().withAttributesToGet(
+                        Hits.ATTR_BOUT, Hits.ATTR_UPDATED
+                    )
+                )
+                .where(Hits.HASH, Conditions.equalTo(this.alias))
+                .where(Hits.RANGE, Terms.prefix(term)),
+            Terms.MAX_MATCHES
+        );
+        final Map<Long, Long> matched = new HashMap<Long, Long>(0);
+        for (final Item item : items) {
+            final long bout = Long.parseLong(item.get(Hits.ATTR_BOUT).getN());
+            final long updated = Long.parseLong(
+                item.get(Hits.ATTR_UPDATED).getN()
+            );
+            if (!matched.containsKey(bout) || matched.get(bout) < updated) {
+                matched.put(bout, updated);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Key of the item.
+     * @param bout Bout number
+     * @param term The term
+     * @return Key
+     */
+    private Attributes key(final long bout, final String term) {
+        return new Attributes()
+            .with(Hits.HASH, this.alias)
+            .with(Hits.RANGE, String.format("%s %d", term, bout));
+    }
+
+    /**
+     * Most recently updated bouts first.
+     */
+    private static final class Recent implements Comparator<Long> {
+        /**
+         * Bouts and their dates.
+         */
+        private final transient Map<Long, Long> dates;
+        /**
+         * Ctor.
+         * @param map Bouts and their dates
+         */
+        Recent(final Map<Long, Long> map) {
+            this.dates = map;
+        }
+        @Override
+        public int compare(final Long left, final Long right) {
+            return this.dates.get(right).compareTo(this.dates.get(left));
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Item addressed by its key only.
+ *
+ * <p>Unlike {@link com.jcabi.dynamo.Item}, which we always get from
+ * a query, this one sends its updates straight to DynamoDB, without
+ * reading the item first. Pay attention that DynamoDB creates the item
+ * if it doesn't exist yet.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = { "table", "keys" })
+@EqualsAndHashCode(of = { "region", "table", "keys" })
+final class Keyed {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Table name.
+     */
+    private final transient String table;
+
+    /**
+     * Key attributes of the item.
+     */
+    private final transient Attributes keys;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param tbl Table name
+     * @param key Key attributes
+     */
+    Keyed(final Region reg, final String tbl, final Attributes key) {
+        this.region = reg;
+        this.table = tbl;
+        this.keys = key;
+    }
+
+    /**
+     * Load all attributes of the item, with a consistent read.
+     * @return Attributes, empty if the item is absent
+     * @throws IOException If fails
+     */
+    public Map<String, AttributeValue> load() throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            final Map<String, AttributeValue> attrs = aws.getItem(
+                new GetItemRequest()
+                    .withTableName(this.region.table(this.table).name())
+                    .withKey(this.keys)
+                    .withConsistentRead(true)
+            ).getItem();
+            final Map<String, AttributeValue> found;
+            if (attrs == null) {
+                found = Collections.emptyMap();
+            } else {
+                found = attrs;
+            }
+            return found;
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Apply updates.
+     * @param updates Updates to apply
+     * @return Updated attributes, with their new values
+     * @throws IOException If fails
+     */
+    public Map<String, AttributeValue> put(final AttributeUpdates updates)
+        throws IOException {
+        return this.update(
+            new UpdateItemRequest().withAttributeUpdates(updates)
+        ).getAttributes();
+    }
+
+    /**
+     * Apply updates, only if expectations are met.
+     * @param updates Updates to apply
+     * @param expected Expected values of attributes
+     * @return Updated attributes, with their new values
+     * @throws IOException If fails
+     * @throws Keyed.ConflictException If expectations are not met
+     */
+    public Map<String, AttributeValue> put(final AttributeUpdates updates,
+        final Map<String, ExpectedAttributeValue> expected)
+        throws IOException {
+        try {
+            return this.update(
+                new UpdateItemRequest()
+                    .withAttributeUpdates(updates)
+                    .withExpected(expected)
+            ).getAttributes();
+        } catch (final IOException ex) {
+            if (ex.getCause() instanceof ConditionalCheckFailedException) {
+                throw new Keyed.ConflictException(ex.getCause());
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Apply updates, only if the item exists.
+     * @param updates Updates to apply
+     * @return TRUE if the item exists and was updated
+     * @throws IOException If fails
+     */
+    public boolean putIfExists(final AttributeUpdates updates)
+        throws IOException {
+        final Map<String, ExpectedAttributeValue> expected =
+            new HashMap<String, ExpectedAttributeValue>(this.keys.size());
+        for (final Map.Entry<String, AttributeValue> key
+            : this.keys.entrySet()) {
+            expected.put(
+                key.getKey(), new ExpectedAttributeValue(key.getValue())
+            );
+        }
+        boolean exists = true;
+        try {
+            this.put(updates, expected);
+        } catch (final Keyed.ConflictException ex) {
+            exists = false;
+        }
+        return exists;
+    }
+
+    /**
+     * Delete the item, only if expectations are met.
+     * @param expected Expected values of attributes
+     * @throws IOException If fails
+     * @throws Keyed.ConflictException If expectations are not met
+     * @since 2.19
+     */
+    public void delete(final Map<String, ExpectedAttributeValue> expected)
+        throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            aws.deleteItem(
+                new DeleteItemRequest()
+                    .withTableName(this.region.table(this.table).name())
+                    .withKey(this.keys)
+                    .withExpected(expected)
+            );
+        } catch (final ConditionalCheckFailedException ex) {
+            throw new Keyed.ConflictException(ex);
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Send update request.
+     * @param request Request without table and key
+     * @return Result
+     * @throws IOException If fails
+     */
+    private UpdateItemResult update(final UpdateItemRequest request)
+        throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            return aws.updateItem(
+                request
+                    .withTableName(this.region.table(this.table).name())
+                    .withKey(this.keys)
+                    .withReturnValues(ReturnValue.UPDATED_NEW)
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Thrown when expected values of attributes don't match.
+     */
+    static final class ConflictException extends IOException {
+        /**
+         * Serialization marker.
+         */
+        private static final long serialVersionUID = 0x3F2A91C0D4E6B157L;
+        /**
+         * Ctor.
+         * @param cause Cause of it
+         */
+        ConflictException(final Throwable cause) {
+            super(cause);
+        }
+    }
+
+}
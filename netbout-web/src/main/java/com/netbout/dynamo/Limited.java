@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.netbout.spi.Attachment;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+import org.apache.commons.io.input.ProxyInputStream;
+
+/**
+ * Input stream that counts bytes and stops at the limit.
+ *
+ * <p>The size of an upload is not known in advance, that's why it is
+ * checked while the bytes flow, and {@link Attachment.TooBigException}
+ * is thrown as soon as the limit is exceeded.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = { "max", "total" })
+final class Limited extends ProxyInputStream {
+
+    /**
+     * Maximum number of bytes allowed.
+     */
+    private final transient long max;
+
+    /**
+     * Bytes read so far.
+     */
+    private final transient AtomicLong total;
+
+    /**
+     * Ctor.
+     * @param input Stream to read
+     * @param limit Maximum number of bytes allowed
+     */
+    Limited(final InputStream input, final long limit) {
+        super(input);
+        this.max = limit;
+        this.total = new AtomicLong();
+    }
+
+    /**
+     * How many bytes were read so far.
+     * @return Total
+     */
+    public long count() {
+        return this.total.get();
+    }
+
+    @Override
+    protected void afterRead(final int len) throws IOException {
+        if (len > 0 && this.total.addAndGet((long) len) > this.max) {
+            throw new Attachment.TooBigException(
+                String.format(
+                    "attachment is too big, %d bytes is the maximum size",
+                    this.max
+                )
+            );
+        }
+    }
+
+}
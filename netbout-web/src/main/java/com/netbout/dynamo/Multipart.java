@@ -0,0 +1,836 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.ScanValve;
+import com.jcabi.log.Logger;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.mock.MkRegion;
+import com.netbout.spi.Attachment;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Multipart uploads of an attachment.
+ *
+ * <p>Every upload is an S3 multipart upload, parts go straight to S3 and
+ * may arrive in any order and in parallel. Uploads in progress are kept
+ * in "uploads" table, together with the size of every part received and
+ * their total, which is updated on condition that it doesn't get bigger
+ * than the maximum, before the part is accepted. Parts may also be sent
+ * by browsers right to S3, see {@link #direct(String, int)}, then the
+ * total is checked only at the end. Uploads, which are neither completed
+ * nor aborted, are aborted later, see {@link #sweep(Region, Bucket, long)}.
+ *
+ * <p>A completed upload stays under its temporary key and is moved to its
+ * blob later, in background, see {@link #adopt(Region, Bucket)}, since
+ * the content has to be read back from S3 to calculate its hash, which
+ * takes too long for an HTTP request. The temporary object is removed
+ * by the sweep, a day later, since the attachment may still be cached
+ * with the temporary key until then.
+ *
+ * <p>The {@link MkRegion} stand-in has no multipart uploads, there every
+ * part is saved as an object of its own and the parts are glued together
+ * when the upload is completed. Parts sent by browsers go to our own
+ * route there, see {@link DyStorage}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = { "bout", "name" })
+@EqualsAndHashCode(of = { "region", "bucket", "bout", "name" })
+@SuppressWarnings({ "PMD.ExcessiveImports", "PMD.TooManyMethods" })
+final class Multipart {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "uploads";
+
+    /**
+     * Upload ID, given by S3.
+     */
+    public static final String HASH = "id";
+
+    /**
+     * Bout number.
+     */
+    public static final String ATTR_BOUT = "bout";
+
+    /**
+     * Attachment name.
+     */
+    public static final String ATTR_NAME = "name";
+
+    /**
+     * S3 key.
+     */
+    public static final String ATTR_KEY = "s3";
+
+    /**
+     * Content type.
+     */
+    public static final String ATTR_CTYPE = "ctype";
+
+    /**
+     * Alias of the uploader.
+     */
+    public static final String ATTR_ALIAS = "alias";
+
+    /**
+     * When it was started, in msec.
+     */
+    public static final String ATTR_TIME = "time";
+
+    /**
+     * Total size of parts received, in bytes.
+     */
+    public static final String ATTR_SIZE = "size";
+
+    /**
+     * When it was completed, in msec.
+     */
+    public static final String ATTR_DONE = "done";
+
+    /**
+     * When its content was moved to its blob, in msec.
+     */
+    public static final String ATTR_ADOPTED = "adopted";
+
+    /**
+     * Prefix of attributes with sizes of parts.
+     */
+    private static final String PART = "part-";
+
+    /**
+     * Maximum size of an upload.
+     */
+    private static final long MAX = (long) Tv.THOUSAND * (long) Tv.MILLION;
+
+    /**
+     * Maximum number of parts, S3 doesn't allow more.
+     */
+    private static final int PARTS = Tv.TEN * Tv.THOUSAND;
+
+    /**
+     * How many times to try to count a part, while others are counted.
+     */
+    private static final int ATTEMPTS = Tv.TEN;
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bucket with attachments.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Attachment name.
+     */
+    private final transient String name;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param bkt Bucket
+     * @param num Bout number
+     * @param label Attachment name
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Multipart(final Region reg, final Bucket bkt, final long num,
+        final String label) {
+        this.region = reg;
+        this.bucket = bkt;
+        this.bout = num;
+        this.name = label;
+    }
+
+    /**
+     * Start new upload.
+     * @param key S3 key to upload to
+     * @param ctype Content type
+     * @param alias Alias of the uploader
+     * @return Upload ID
+     * @throws IOException If fails
+     */
+    public String begin(final String key, final String ctype,
+        final String alias) throws IOException {
+        final String upload;
+        if (this.bucket.region() instanceof MkRegion) {
+            upload = UUID.randomUUID().toString();
+        } else {
+            final ObjectMetadata meta = new ObjectMetadata();
+            meta.setContentType(ctype);
+            final AmazonS3 aws = this.bucket.region().aws();
+            try {
+                upload = aws.initiateMultipartUpload(
+                    new InitiateMultipartUploadRequest(
+                        this.bucket.name(), key, meta
+                    )
+                ).getUploadId();
+            } catch (final AmazonClientException ex) {
+                throw new IOException(ex);
+            } finally {
+                aws.shutdown();
+            }
+        }
+        this.region.table(Multipart.TBL).put(
+            new Attributes()
+                .with(Multipart.HASH, upload)
+                .with(Multipart.ATTR_BOUT, this.bout)
+                .with(Multipart.ATTR_NAME, this.name)
+                .with(Multipart.ATTR_KEY, key)
+                .with(Multipart.ATTR_CTYPE, ctype)
+                .with(Multipart.ATTR_ALIAS, alias)
+                .with(Multipart.ATTR_TIME, System.currentTimeMillis())
+                .with(Multipart.ATTR_SIZE, 0L)
+        );
+        return upload;
+    }
+
+    /**
+     * Upload one part.
+     * @param upload Upload ID
+     * @param number Number of the part
+     * @param stream Content of the part
+     * @param length Length of the part
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public void part(final String upload, final int number,
+        final InputStream stream, final long length) throws IOException {
+        Multipart.check(number);
+        final Map<String, AttributeValue> row = this.reserve(
+            upload, number, length
+        );
+        final String key = row.get(Multipart.ATTR_KEY).getS();
+        if (this.bucket.region() instanceof MkRegion) {
+            Multipart.save(this.bucket, key, number, stream, length);
+        } else {
+            final AmazonS3 aws = this.bucket.region().aws();
+            try {
+                aws.uploadPart(
+                    new UploadPartRequest()
+                        .withBucketName(this.bucket.name())
+                        .withKey(key)
+                        .withUploadId(upload)
+                        .withPartNumber(number)
+                        .withPartSize(length)
+                        .withInputStream(new Limited(stream, length))
+                );
+            } catch (final AmazonClientException ex) {
+                throw new IOException(ex);
+            } finally {
+                aws.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Link to upload one part straight to S3.
+     *
+     * <p>Parts uploaded this way are not counted before they arrive, their
+     * total size is checked when the upload is completed.
+     *
+     * @param upload Upload ID
+     * @param number Number of the part
+     * @return URL or empty string, see {@link Presigned}
+     * @throws IOException If fails
+     */
+    public String direct(final String upload, final int number)
+        throws IOException {
+        Multipart.check(number);
+        return new Presigned(this.bucket).part(
+            this.row(upload).get(Multipart.ATTR_KEY).getS(), upload, number
+        );
+    }
+
+    /**
+     * Complete the upload.
+     *
+     * <p>The content stays under the temporary key, until it is moved to
+     * its blob, see {@link #adopt(Region, Bucket)}.
+     *
+     * @param upload Upload ID
+     * @return Attributes of the upload
+     * @throws IOException If fails
+     */
+    public Map<String, AttributeValue> complete(final String upload)
+        throws IOException {
+        final Map<String, AttributeValue> row = this.row(upload);
+        if (this.bucket.region() instanceof MkRegion) {
+            this.glue(upload, row);
+        } else {
+            this.assemble(upload, row.get(Multipart.ATTR_KEY).getS());
+        }
+        this.keyed(upload).put(
+            new AttributeUpdates().with(
+                Multipart.ATTR_DONE, System.currentTimeMillis()
+            )
+        );
+        return row;
+    }
+
+    /**
+     * Abort the upload.
+     * @param upload Upload ID
+     * @throws IOException If fails
+     */
+    public void abort(final String upload) throws IOException {
+        final Map<String, AttributeValue> row = this.row(upload);
+        final String key = row.get(Multipart.ATTR_KEY).getS();
+        if (this.bucket.region() instanceof MkRegion) {
+            for (final String chunk : this.chunks(key).values()) {
+                this.bucket.remove(chunk);
+            }
+        } else {
+            final AmazonS3 aws = this.bucket.region().aws();
+            try {
+                aws.abortMultipartUpload(
+                    new AbortMultipartUploadRequest(
+                        this.bucket.name(), key, upload
+                    )
+                );
+            } catch (final AmazonS3Exception ex) {
+                if (ex.getStatusCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                    throw new IOException(ex);
+                }
+            } catch (final AmazonClientException ex) {
+                throw new IOException(ex);
+            } finally {
+                aws.shutdown();
+            }
+        }
+        this.forget(upload);
+    }
+
+    /**
+     * Abort all uploads started before the given time, which were neither
+     * completed nor aborted by their uploaders, and forget completed ones,
+     * removing their temporary objects, if they were moved to blobs.
+     * @param region Region
+     * @param bucket Bucket with attachments
+     * @param before Time in msec
+     * @return How many uploads were aborted
+     * @throws IOException If fails
+     */
+    public static int sweep(final Region region, final Bucket bucket,
+        final long before) throws IOException {
+        final Iterable<Item> items = region.table(Multipart.TBL)
+            .frame()
+            .through(
+                new ScanValve()
+                    .withLimit(Tv.HUNDRED)
+                    .withAttributeToGet(
+                        Multipart.HASH, Multipart.ATTR_BOUT,
+                        Multipart.ATTR_NAME, Multipart.ATTR_KEY,
+                        Multipart.ATTR_DONE, Multipart.ATTR_ADOPTED
+                    )
+            )
+            .where(
+                Multipart.ATTR_TIME,
+                new Condition()
+                    .withComparisonOperator(ComparisonOperator.LT)
+                    .withAttributeValueList(
+                        new AttributeValue().withN(Long.toString(before))
+                    )
+            );
+        int total = 0;
+        for (final Item item : items) {
+            final String upload = item.get(Multipart.HASH).getS();
+            final Multipart multipart = Multipart.of(region, bucket, item);
+            try {
+                if (item.has(Multipart.ATTR_DONE)) {
+                    if (item.has(Multipart.ATTR_ADOPTED)) {
+                        bucket.remove(item.get(Multipart.ATTR_KEY).getS());
+                    }
+                    multipart.forget(upload);
+                } else {
+                    multipart.abort(upload);
+                    ++total;
+                }
+            } catch (final IOException ex) {
+                Logger.warn(
+                    Multipart.class, "failed to sweep upload %s: %s",
+                    upload, ex
+                );
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Move content of all completed uploads to their blobs.
+     * @param region Region
+     * @param bucket Bucket with attachments
+     * @return How many uploads were moved
+     * @throws IOException If fails
+     */
+    public static int adopt(final Region region, final Bucket bucket)
+        throws IOException {
+        final Iterable<Item> items = region.table(Multipart.TBL)
+            .frame()
+            .through(
+                new ScanValve()
+                    .withLimit(Tv.HUNDRED)
+                    .withAttributeToGet(
+                        Multipart.HASH, Multipart.ATTR_BOUT,
+                        Multipart.ATTR_NAME, Multipart.ATTR_KEY
+                    )
+            )
+            .where(
+                Multipart.ATTR_DONE,
+                new Condition().withComparisonOperator(
+                    ComparisonOperator.NOT_NULL
+                )
+            )
+            .where(
+                Multipart.ATTR_ADOPTED,
+                new Condition().withComparisonOperator(ComparisonOperator.NULL)
+            );
+        int total = 0;
+        for (final Item item : items) {
+            final String upload = item.get(Multipart.HASH).getS();
+            try {
+                Multipart.of(region, bucket, item).adopt(
+                    upload, item.get(Multipart.ATTR_KEY).getS()
+                );
+                ++total;
+            } catch (final IOException ex) {
+                Logger.warn(
+                    Multipart.class, "failed to adopt upload %s: %s",
+                    upload, ex
+                );
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Move content of the completed upload to its blob.
+     *
+     * <p>The attachment is switched to the blob on condition that it still
+     * refers to the temporary key. Otherwise, it was replaced or deleted in
+     * the meantime and the blob is released back.
+     *
+     * @param upload Upload ID
+     * @param temp Temporary S3 key with the content
+     * @throws IOException If fails
+     */
+    private void adopt(final String upload, final String temp)
+        throws IOException {
+        final Blobs blobs = new Blobs(this.region, this.bucket);
+        final String key = blobs.adopt(temp);
+        try {
+            new Keyed(
+                this.region, DyAttachments.TBL,
+                new Attributes()
+                    .with(DyAttachments.HASH, this.bout)
+                    .with(DyAttachments.RANGE, this.name)
+            ).put(
+                new AttributeUpdates()
+                    .with(DyAttachments.ATTR_DATA, key)
+                    .with(DyAttachments.ATTR_KEY, key),
+                Collections.singletonMap(
+                    DyAttachments.ATTR_KEY,
+                    new ExpectedAttributeValue(new AttributeValue(temp))
+                )
+            );
+            this.keyed(upload).put(
+                new AttributeUpdates().with(
+                    Multipart.ATTR_ADOPTED, System.currentTimeMillis()
+                )
+            );
+            Logger.info(this, "upload %s moved to %s", upload, key);
+        } catch (final Keyed.ConflictException ex) {
+            blobs.release(key);
+            this.forget(upload);
+            Logger.info(
+                this, "upload %s was replaced, %s released", upload, key
+            );
+        }
+    }
+
+    /**
+     * Complete the upload in S3.
+     * @param upload Upload ID
+     * @param key S3 key
+     * @throws IOException If fails
+     */
+    private void assemble(final String upload, final String key)
+        throws IOException {
+        final AmazonS3 aws = this.bucket.region().aws();
+        try {
+            final List<PartETag> tags = new LinkedList<PartETag>();
+            long total = 0L;
+            Integer marker = null;
+            PartListing listing;
+            do {
+                listing = aws.listParts(
+                    new ListPartsRequest(this.bucket.name(), key, upload)
+                        .withPartNumberMarker(marker)
+                );
+                for (final PartSummary part : listing.getParts()) {
+                    tags.add(
+                        new PartETag(part.getPartNumber(), part.getETag())
+                    );
+                    total += part.getSize();
+                }
+                marker = listing.getNextPartNumberMarker();
+            } while (listing.isTruncated());
+            this.verify(upload, tags.size(), total);
+            aws.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(
+                    this.bucket.name(), key, upload, tags
+                )
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Complete the upload in the {@link MkRegion} stand-in, by gluing
+     * its parts together, in the order of their numbers.
+     * @param upload Upload ID
+     * @param row Attributes of the upload
+     * @throws IOException If fails
+     */
+    private void glue(final String upload,
+        final Map<String, AttributeValue> row) throws IOException {
+        final String key = row.get(Multipart.ATTR_KEY).getS();
+        final SortedMap<Integer, String> chunks = this.chunks(key);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        for (final String chunk : chunks.values()) {
+            this.bucket.ocket(chunk).read(baos);
+        }
+        this.verify(upload, chunks.size(), (long) baos.size());
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentType(row.get(Multipart.ATTR_CTYPE).getS());
+        meta.setContentLength((long) baos.size());
+        this.bucket.ocket(key).write(
+            new ByteArrayInputStream(baos.toByteArray()), meta
+        );
+        for (final String chunk : chunks.values()) {
+            this.bucket.remove(chunk);
+        }
+    }
+
+    /**
+     * Check the parts of the upload, before completing it.
+     * @param upload Upload ID
+     * @param parts Number of parts
+     * @param total Total size of them, in bytes
+     * @throws IOException If they are not valid
+     */
+    private void verify(final String upload, final int parts,
+        final long total) throws IOException {
+        if (parts == 0) {
+            throw new Attachment.BrokenContentException(
+                String.format("upload \"%s\" has no parts", upload)
+            );
+        }
+        if (total > Multipart.MAX) {
+            this.abort(upload);
+            throw new Attachment.TooBigException(
+                String.format(
+                    "upload is too big, %d bytes is the maximum size",
+                    Multipart.MAX
+                )
+            );
+        }
+    }
+
+    /**
+     * Load the upload, which must belong to this attachment.
+     * @param upload Upload ID
+     * @return Its attributes
+     * @throws IOException If fails
+     */
+    private Map<String, AttributeValue> row(final String upload)
+        throws IOException {
+        final Map<String, AttributeValue> row = this.keyed(upload).load();
+        if (row.isEmpty() || row.containsKey(Multipart.ATTR_DONE)
+            || Long.parseLong(row.get(Multipart.ATTR_BOUT).getN()) != this.bout
+            || !row.get(Multipart.ATTR_NAME).getS().equals(this.name)) {
+            throw new Attachment.BrokenContentException(
+                String.format("upload \"%s\" is not found", upload)
+            );
+        }
+        return row;
+    }
+
+    /**
+     * Count the part in the total size of the upload, on condition that
+     * the total doesn't get bigger than the maximum.
+     *
+     * <p>The condition is checked by DynamoDB, together with the size of
+     * the part counted before, if it is sent again, so parts sent in
+     * parallel can't exceed the maximum together. When somebody else
+     * changes the total in the meantime, we read it and try again.
+     *
+     * @param upload Upload ID
+     * @param number Number of the part
+     * @param length Length of the part
+     * @return Attributes of the upload
+     * @throws IOException If fails
+     */
+    private Map<String, AttributeValue> reserve(final String upload,
+        final int number, final long length) throws IOException {
+        final String attr = String.format("%s%d", Multipart.PART, number);
+        Map<String, AttributeValue> row = null;
+        int attempt = 0;
+        while (row == null) {
+            final Map<String, AttributeValue> before = this.row(upload);
+            long delta = length;
+            final Map<String, ExpectedAttributeValue> expected =
+                new HashMap<String, ExpectedAttributeValue>(2);
+            if (before.containsKey(attr)) {
+                delta -= Long.parseLong(before.get(attr).getN());
+                expected.put(
+                    attr, new ExpectedAttributeValue(before.get(attr))
+                );
+            } else {
+                expected.put(attr, new ExpectedAttributeValue(false));
+            }
+            long total = delta;
+            if (before.containsKey(Multipart.ATTR_SIZE)) {
+                total += Long.parseLong(before.get(Multipart.ATTR_SIZE).getN());
+                expected.put(
+                    Multipart.ATTR_SIZE,
+                    new ExpectedAttributeValue()
+                        .withComparisonOperator(ComparisonOperator.LE)
+                        .withAttributeValueList(
+                            new AttributeValue().withN(
+                                Long.toString(Multipart.MAX - delta)
+                            )
+                        )
+                );
+            } else {
+                expected.put(
+                    Multipart.ATTR_SIZE, new ExpectedAttributeValue(false)
+                );
+            }
+            if (total > Multipart.MAX) {
+                throw new Attachment.TooBigException(
+                    String.format(
+                        "upload is too big, %d bytes is the maximum size",
+                        Multipart.MAX
+                    )
+                );
+            }
+            try {
+                this.keyed(upload).put(
+                    new AttributeUpdates()
+                        .with(attr, length)
+                        .with(
+                            Multipart.ATTR_SIZE,
+                            new AttributeValueUpdate()
+                                .withAction(AttributeAction.ADD)
+                                .withValue(
+                                    new AttributeValue().withN(
+                                        Long.toString(delta)
+                                    )
+                                )
+                        ),
+                    expected
+                );
+                row = before;
+            } catch (final Keyed.ConflictException ex) {
+                ++attempt;
+                if (attempt >= Multipart.ATTEMPTS) {
+                    throw new IOException(
+                        String.format(
+                            "upload %s is changed by others all the time",
+                            upload
+                        ),
+                        ex
+                    );
+                }
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Item of the upload in "uploads" table.
+     * @param upload Upload ID
+     * @return Item
+     */
+    private Keyed keyed(final String upload) {
+        return new Keyed(
+            this.region, Multipart.TBL,
+            new Attributes().with(Multipart.HASH, upload)
+        );
+    }
+
+    /**
+     * Uploads of the attachment the upload belongs to.
+     * @param region Region
+     * @param bucket Bucket with attachments
+     * @param item Item of the upload in "uploads" table
+     * @return Uploads
+     * @throws IOException If fails
+     */
+    private static Multipart of(final Region region, final Bucket bucket,
+        final Item item) throws IOException {
+        return new Multipart(
+            region, bucket,
+            Long.parseLong(item.get(Multipart.ATTR_BOUT).getN()),
+            item.get(Multipart.ATTR_NAME).getS()
+        );
+    }
+
+    /**
+     * Check the number of a part.
+     * @param number Number of the part
+     * @throws IOException If it's not valid
+     */
+    private static void check(final int number) throws IOException {
+        if (number < 1 || number > Multipart.PARTS) {
+            throw new Attachment.BrokenContentException(
+                String.format(
+                    "part number must be between 1 and %d", Multipart.PARTS
+                )
+            );
+        }
+    }
+
+    /**
+     * Save a part in the {@link MkRegion} stand-in, as an object of
+     * its own.
+     * @param bucket Bucket
+     * @param key S3 key of the upload
+     * @param number Number of the part
+     * @param stream Content of the part
+     * @param length Length of the part
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    static void save(final Bucket bucket, final String key,
+        final int number, final InputStream stream, final long length)
+        throws IOException {
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentLength(length);
+        bucket.ocket(Multipart.chunk(key, number)).write(
+            new Limited(stream, length), meta
+        );
+    }
+
+    /**
+     * Parts saved in the {@link MkRegion} stand-in, by their numbers.
+     * @param key S3 key of the upload
+     * @return S3 keys of parts
+     * @throws IOException If fails
+     */
+    private SortedMap<Integer, String> chunks(final String key)
+        throws IOException {
+        final String prefix = String.format("%s.%s", key, Multipart.PART);
+        final SortedMap<Integer, String> chunks =
+            new TreeMap<Integer, String>();
+        for (final String chunk : this.bucket.list(prefix)) {
+            chunks.put(
+                Integer.parseInt(chunk.substring(prefix.length())), chunk
+            );
+        }
+        return chunks;
+    }
+
+    /**
+     * S3 key of a part in the {@link MkRegion} stand-in.
+     * @param key S3 key of the upload
+     * @param number Number of the part
+     * @return S3 key
+     */
+    private static String chunk(final String key, final int number) {
+        return String.format("%s.%s%d", key, Multipart.PART, number);
+    }
+
+    /**
+     * Forget the upload.
+     * @param upload Upload ID
+     * @throws IOException If fails
+     */
+    private void forget(final String upload) throws IOException {
+        this.region.table(Multipart.TBL).delete(
+            new Attributes().with(Multipart.HASH, upload)
+        );
+    }
+
+}
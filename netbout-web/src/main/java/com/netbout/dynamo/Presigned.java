@@ -0,0 +1,320 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.HttpMethod;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.manifests.Manifests;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.mock.MkRegion;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.codec.CharEncoding;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Presigned links to S3 objects, for browsers to talk to S3 directly.
+ *
+ * <p>Links are given only when "Netbout-S3Direct" is "true" in the
+ * manifest, otherwise they are empty, and the content goes through us,
+ * as usual. With the {@link MkRegion} stand-in, which has no S3 to talk
+ * to, links lead to our own route, see {@link DyStorage}, and are signed
+ * with a secret of this node, see {@link #signature(String...)}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = { "bucket", "direct" })
+@EqualsAndHashCode(of = { "bucket", "direct" })
+final class Presigned {
+
+    /**
+     * How long a link is valid, in msec.
+     */
+    private static final long TTL = TimeUnit.MINUTES.toMillis(10L);
+
+    /**
+     * Algorithm of signatures of local links.
+     */
+    private static final String HMAC = "HmacSHA256";
+
+    /**
+     * Secret of signatures of local links, random for every node.
+     */
+    private static final byte[] SECRET = Presigned.secret();
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Are links given at all?
+     */
+    private final transient boolean direct;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     */
+    Presigned(final Bucket bkt) {
+        this(bkt, "true".equals(Manifests.read("Netbout-S3Direct")));
+    }
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     * @param enabled Are links given at all?
+     */
+    Presigned(final Bucket bkt, final boolean enabled) {
+        this.bucket = bkt;
+        this.direct = enabled;
+    }
+
+    /**
+     * Are links given at all?
+     * @return TRUE if they are
+     */
+    public boolean enabled() {
+        return this.direct;
+    }
+
+    /**
+     * Link to download the object.
+     * @param key S3 key
+     * @param ctype Content type to send to the browser
+     * @param name File name to send to the browser
+     * @return URL or empty string
+     * @throws IOException If fails
+     */
+    public String get(final String key, final String ctype,
+        final String name) throws IOException {
+        final String url;
+        if (!this.enabled()) {
+            url = "";
+        } else if (this.bucket.region() instanceof MkRegion) {
+            url = Presigned.local(
+                DyStorage.GET, "key", key, "type", ctype, "name", name
+            );
+        } else {
+            url = this.sign(
+                new GeneratePresignedUrlRequest(
+                    this.bucket.name(), key, HttpMethod.GET
+                ).withResponseHeaders(
+                    new ResponseHeaderOverrides()
+                        .withContentType(ctype)
+                        .withContentDisposition(
+                            String.format(
+                                "attachment; filename=\"%s\"",
+                                URLEncoder.encode(name, CharEncoding.UTF_8)
+                            )
+                        )
+                )
+            );
+        }
+        return url;
+    }
+
+    /**
+     * Link to upload one part of a multipart upload.
+     * @param key S3 key
+     * @param upload Upload ID
+     * @param number Number of the part
+     * @return URL or empty string
+     * @throws IOException If fails
+     */
+    public String part(final String key, final String upload,
+        final int number) throws IOException {
+        final String url;
+        if (!this.enabled()) {
+            url = "";
+        } else if (this.bucket.region() instanceof MkRegion) {
+            url = Presigned.local(
+                DyStorage.PART, "key", key, "upload", upload,
+                "number", Integer.toString(number)
+            );
+        } else {
+            final GeneratePresignedUrlRequest request =
+                new GeneratePresignedUrlRequest(
+                    this.bucket.name(), key, HttpMethod.PUT
+                );
+            request.addRequestParameter("uploadId", upload);
+            request.addRequestParameter(
+                "partNumber", Integer.toString(number)
+            );
+            url = this.sign(request);
+        }
+        return url;
+    }
+
+    /**
+     * Signature of a local link.
+     * @param parts Path and values of all parameters of the link, except
+     *  the signature, in the order of the link
+     * @return Signature, in hex
+     */
+    static String signature(final String... parts) {
+        try {
+            final Mac mac = Mac.getInstance(Presigned.HMAC);
+            mac.init(new SecretKeySpec(Presigned.SECRET, Presigned.HMAC));
+            return Hex.encodeHexString(
+                mac.doFinal(
+                    StringUtils.join(parts, '\n')
+                        .getBytes(StandardCharsets.UTF_8)
+                )
+            );
+        } catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Is it a valid signature of a local link, which didn't expire yet?
+     * @param signature Signature
+     * @param expires When the link expires, in msec
+     * @param parts Path and values of all parameters of the link, except
+     *  the signature and the expiration time, in the order of the link
+     * @return TRUE if valid
+     */
+    static boolean valid(final String signature, final long expires,
+        final String... parts) {
+        final String[] all = new String[parts.length + 1];
+        System.arraycopy(parts, 0, all, 0, parts.length);
+        all[parts.length] = Long.toString(expires);
+        return expires > System.currentTimeMillis()
+            && MessageDigest.isEqual(
+                Presigned.signature(all).getBytes(StandardCharsets.UTF_8),
+                signature.getBytes(StandardCharsets.UTF_8)
+            );
+    }
+
+    /**
+     * Local link, which expires in {@link #TTL}.
+     * @param path Path of the route
+     * @param params Names and values of parameters
+     * @return URL
+     * @throws IOException If fails
+     */
+    private static String local(final String path, final String... params)
+        throws IOException {
+        final String expires = Long.toString(
+            System.currentTimeMillis() + Presigned.TTL
+        );
+        final String[] parts = new String[params.length / 2 + 2];
+        parts[0] = path;
+        final StringBuilder url = new StringBuilder(path);
+        for (int idx = 0; idx < params.length; idx += 2) {
+            parts[idx / 2 + 1] = params[idx + 1];
+            url.append(Presigned.param(idx == 0, params[idx], params[idx + 1]));
+        }
+        parts[parts.length - 1] = expires;
+        return url
+            .append(Presigned.param(false, "expires", expires))
+            .append(
+                Presigned.param(
+                    false, "signature", Presigned.signature(parts)
+                )
+            )
+            .toString();
+    }
+
+    /**
+     * Parameter of a local link.
+     * @param first Is it the first one?
+     * @param name Name
+     * @param value Value
+     * @return Text to append to the link
+     * @throws IOException If fails
+     */
+    private static String param(final boolean first, final String name,
+        final String value) throws IOException {
+        final char sep;
+        if (first) {
+            sep = '?';
+        } else {
+            sep = '&';
+        }
+        return String.format(
+            "%c%s=%s", sep, name, URLEncoder.encode(value, CharEncoding.UTF_8)
+        );
+    }
+
+    /**
+     * Sign the request.
+     * @param request Request
+     * @return URL
+     * @throws IOException If fails
+     */
+    private String sign(final GeneratePresignedUrlRequest request)
+        throws IOException {
+        final AmazonS3 aws = this.bucket.region().aws();
+        final String url;
+        try {
+            url = aws.generatePresignedUrl(
+                request.withExpiration(
+                    new Date(System.currentTimeMillis() + Presigned.TTL)
+                )
+            ).toString();
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return url;
+    }
+
+    /**
+     * Make a random secret of this node.
+     * @return Secret
+     */
+    private static byte[] secret() {
+        final byte[] secret = new byte[Tv.THIRTY];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+}
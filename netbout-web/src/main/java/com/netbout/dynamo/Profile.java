@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import java.io.IOException;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Row of "aliases" table, loaded on demand, together with others.
+ *
+ * <p>Profiles of a group of aliases, for example all friends of a bout,
+ * are loaded by one batch, see {@link Profiles}, the first time any of
+ * them is asked for an attribute. Until then, nothing is read from
+ * DynamoDB. That's why the class is not {@code @Immutable}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Loggable(Loggable.DEBUG)
+@ToString(of = "alias")
+@EqualsAndHashCode(of = "alias")
+final class Profile implements Item {
+
+    /**
+     * The alias.
+     */
+    private final transient String alias;
+
+    /**
+     * Profiles of the group, loaded on demand.
+     */
+    private final transient Profiles.Group group;
+
+    /**
+     * Ctor.
+     * @param name The alias
+     * @param grp Profiles of the group
+     */
+    Profile(final String name, final Profiles.Group grp) {
+        this.alias = name;
+        this.group = grp;
+    }
+
+    @Override
+    public AttributeValue get(final String name) throws IOException {
+        return this.loaded().get(name);
+    }
+
+    @Override
+    public boolean has(final String name) throws IOException {
+        return this.loaded().has(name);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(final String name,
+        final AttributeValueUpdate value) throws IOException {
+        return this.loaded().put(name, value);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(
+        final Map<String, AttributeValueUpdate> updates) throws IOException {
+        return this.loaded().put(updates);
+    }
+
+    @Override
+    public Frame frame() {
+        return this.group.frame();
+    }
+
+    /**
+     * The profile, loaded.
+     * @return Item
+     * @throws IOException If fails
+     */
+    private Item loaded() throws IOException {
+        return this.group.load().get(this.alias);
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Profiles of aliases, loaded together.
+ *
+ * <p>All aliases needed by one operation are loaded from "aliases"
+ * table with batched reads, see {@link Bulk}, instead of one query
+ * per alias. They may also be loaded on demand, only when somebody
+ * needs any of them, see {@link #lazy(Collection)}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString
+@EqualsAndHashCode(of = "region")
+final class Profiles {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     */
+    Profiles(final Region reg) {
+        this.region = reg;
+    }
+
+    /**
+     * Profiles to be loaded when any of them is needed.
+     * @param aliases Aliases
+     * @return Profiles, by alias, in the order of aliases
+     */
+    public Map<String, Item> lazy(final Collection<String> aliases) {
+        final Profiles.Group group = new Profiles.Group(this, aliases);
+        final Map<String, Item> profiles = new LinkedHashMap<String, Item>(
+            aliases.size()
+        );
+        for (final String alias : aliases) {
+            profiles.put(alias, new Profile(alias, group));
+        }
+        return profiles;
+    }
+
+    /**
+     * Load profiles.
+     *
+     * <p>Every alias gets a profile, even if it is absent in the table,
+     * in which case it has nothing but the alias itself.
+     *
+     * @param aliases Aliases
+     * @return Profiles, by alias
+     * @throws IOException If fails
+     */
+    public Map<String, Item> load(final Iterable<String> aliases)
+        throws IOException {
+        final Collection<String> unique = new LinkedHashSet<String>(0);
+        for (final String alias : aliases) {
+            unique.add(alias);
+        }
+        final Collection<Attributes> keys = new LinkedHashSet<Attributes>(0);
+        for (final String alias : unique) {
+            keys.add(new Attributes().with(DyAliases.HASH, alias));
+        }
+        final Map<String, Item> profiles = new TreeMap<String, Item>();
+        for (final Item item : new Bulk(this.region, DyAliases.TBL).get(
+            keys, DyAliases.HASH, DyAliases.ATTR_PHOTO, DyAliases.ATTR_EMAIL
+        )) {
+            profiles.put(item.get(DyAliases.HASH).getS(), item);
+        }
+        for (final String alias : unique) {
+            if (!profiles.containsKey(alias)) {
+                profiles.put(
+                    alias,
+                    new Snapshot(
+                        this.region, DyAliases.TBL,
+                        Collections.singleton(DyAliases.HASH),
+                        Collections.singletonMap(
+                            DyAliases.HASH, new AttributeValue(alias)
+                        )
+                    )
+                );
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Profiles of a group of aliases, loaded once, on demand.
+     */
+    static final class Group {
+        /**
+         * Profiles to load from.
+         */
+        private final transient Profiles origin;
+        /**
+         * Aliases of the group.
+         */
+        private final transient Collection<String> aliases;
+        /**
+         * Profiles loaded, or NULL if not yet.
+         */
+        private final transient AtomicReference<Map<String, Item>> loaded;
+        /**
+         * Ctor.
+         * @param profiles Profiles to load from
+         * @param names Aliases of the group
+         */
+        Group(final Profiles profiles, final Collection<String> names) {
+            this.origin = profiles;
+            this.aliases = names;
+            this.loaded = new AtomicReference<Map<String, Item>>();
+        }
+        /**
+         * Load all profiles of the group, if not yet.
+         * @return Profiles, by alias
+         * @throws IOException If fails
+         */
+        public Map<String, Item> load() throws IOException {
+            synchronized (this.loaded) {
+                if (this.loaded.get() == null) {
+                    this.loaded.set(this.origin.load(this.aliases));
+                }
+                return this.loaded.get();
+            }
+        }
+        /**
+         * Frame of "aliases" table.
+         * @return Frame
+         */
+        public Frame frame() {
+            return this.origin.region.table(DyAliases.TBL).frame();
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Row of "friends" table, loaded into memory entirely.
+ *
+ * <p>Unlike {@link com.jcabi.dynamo.Item} we get from a query, it never
+ * goes to DynamoDB for an attribute: an attribute that is absent in
+ * memory is absent in the table. Updates are sent straight to the table
+ * and their results are applied to the attributes in memory, that's why
+ * the class is not {@code @Immutable}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Loggable(Loggable.DEBUG)
+@ToString(of = "attrs")
+@EqualsAndHashCode(of = "target")
+final class Row implements Item {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Where updates go.
+     */
+    private final transient Keyed target;
+
+    /**
+     * Attributes loaded.
+     */
+    private final transient ConcurrentMap<String, AttributeValue> attrs;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param loaded All attributes of the row
+     */
+    Row(final Region reg, final Snapshot loaded) {
+        this.region = reg;
+        this.attrs = new ConcurrentHashMap<String, AttributeValue>(
+            loaded.attributes()
+        );
+        this.target = new Keyed(
+            reg, DyFriends.TBL,
+            new Attributes()
+                .with(DyFriends.HASH, loaded.get(DyFriends.HASH))
+                .with(DyFriends.RANGE, loaded.get(DyFriends.RANGE))
+        );
+    }
+
+    @Override
+    public AttributeValue get(final String name) {
+        final AttributeValue value = this.attrs.get(name);
+        if (value == null) {
+            throw new NoSuchElementException(
+                String.format("attribute \"%s\" is absent", name)
+            );
+        }
+        return value;
+    }
+
+    @Override
+    public boolean has(final String name) {
+        return this.attrs.containsKey(name);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(final String name,
+        final AttributeValueUpdate value) throws IOException {
+        return this.put(Collections.singletonMap(name, value));
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(
+        final Map<String, AttributeValueUpdate> updates) throws IOException {
+        final Map<String, AttributeValue> result =
+            this.target.put(new AttributeUpdates(updates));
+        for (final String name : updates.keySet()) {
+            if (result != null && result.containsKey(name)) {
+                this.attrs.put(name, result.get(name));
+            } else {
+                this.attrs.remove(name);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Frame frame() {
+        return this.region.table(DyFriends.TBL).frame();
+    }
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Sequence of message numbers of one bout.
+ *
+ * <p>The sequence is a header item of the bout in "counters" table,
+ * incremented atomically, only if it exists. When it doesn't exist yet,
+ * it is created with the number of the latest message in the bout, in
+ * order to keep numbers of new messages above the existing ones, no
+ * matter how they were numbered before.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "bout")
+@EqualsAndHashCode(of = { "region", "bout" })
+final class Sequence implements Counter {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "counters";
+
+    /**
+     * Counter name attribute.
+     */
+    public static final String HASH = "name";
+
+    /**
+     * Value of the counter.
+     */
+    public static final String ATTR_VALUE = "value";
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param num Bout number
+     */
+    Sequence(final Region reg, final long num) {
+        this.region = reg;
+        this.bout = num;
+    }
+
+    @Override
+    public String name() {
+        return String.format("bout-%d", this.bout);
+    }
+
+    @Override
+    public void set(final long value) throws IOException {
+        this.header().put(
+            new AttributeUpdates().with(Sequence.ATTR_VALUE, value)
+        );
+    }
+
+    @Override
+    public long incrementAndGet(final long delta) throws IOException {
+        long number;
+        try {
+            number = this.add(delta);
+        } catch (final Keyed.ConflictException ex) {
+            this.create();
+            number = this.add(delta);
+        }
+        return number;
+    }
+
+    /**
+     * Increment existing header.
+     * @param delta Delta to add
+     * @return New value
+     * @throws IOException If fails
+     */
+    private long add(final long delta) throws IOException {
+        return Long.parseLong(
+            this.header().put(
+                new AttributeUpdates().with(
+                    Sequence.ATTR_VALUE,
+                    new AttributeValueUpdate()
+                        .withAction(AttributeAction.ADD)
+                        .withValue(
+                            new AttributeValue().withN(Long.toString(delta))
+                        )
+                ),
+                Collections.singletonMap(
+                    Sequence.ATTR_VALUE,
+                    new ExpectedAttributeValue(true)
+                )
+            ).get(Sequence.ATTR_VALUE).getN()
+        );
+    }
+
+    /**
+     * Create the header, if it is still absent.
+     * @throws IOException If fails
+     */
+    private void create() throws IOException {
+        final Iterator<Item> items = this.region.table(DyMessages.TBL)
+            .frame()
+            .through(
+                new QueryValve()
+                    .withLimit(1)
+                    .withScanIndexForward(false)
+                    .withAttributesToGet(DyMessages.RANGE)
+            )
+            .where(DyMessages.HASH, Conditions.equalTo(this.bout))
+            .iterator();
+        long latest = 0L;
+        if (items.hasNext()) {
+            latest = Long.parseLong(items.next().get(DyMessages.RANGE).getN());
+        }
+        try {
+            this.header().put(
+                new AttributeUpdates().with(Sequence.ATTR_VALUE, latest),
+                Collections.singletonMap(
+                    Sequence.ATTR_VALUE,
+                    new ExpectedAttributeValue(false)
+                )
+            );
+            Logger.info(
+                this, "sequence of #%d started after %d", this.bout, latest
+            );
+        } catch (final Keyed.ConflictException ex) {
+            Logger.info(
+                this, "sequence of #%d is already started", this.bout
+            );
+        }
+    }
+
+    /**
+     * Header item.
+     * @return Item
+     */
+    private Keyed header() {
+        return new Keyed(
+            this.region, Sequence.TBL,
+            new Attributes().with(Sequence.HASH, this.name())
+        );
+    }
+
+}
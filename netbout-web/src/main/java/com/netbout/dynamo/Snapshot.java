@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Item already loaded into memory.
+ *
+ * <p>It never goes to DynamoDB for an attribute, all attributes it knows
+ * about must be loaded before, for example by {@link Bulk}. Updates are
+ * sent straight to the table, by the key of the item, while the snapshot
+ * itself stays as it was loaded.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "attrs")
+@EqualsAndHashCode(of = { "region", "table", "keys", "attrs" })
+final class Snapshot implements Item {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Table name.
+     */
+    private final transient String table;
+
+    /**
+     * Key attributes of the item.
+     */
+    private final transient Attributes keys;
+
+    /**
+     * Attributes loaded.
+     */
+    private final transient Attributes attrs;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param tbl Table name
+     * @param key Names of key attributes
+     * @param map Attributes loaded, including the key ones
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Snapshot(final Region reg, final String tbl,
+        final Iterable<String> key, final Map<String, AttributeValue> map) {
+        this.region = reg;
+        this.table = tbl;
+        this.attrs = new Attributes(map);
+        Attributes found = new Attributes();
+        for (final String name : key) {
+            found = found.with(name, this.get(name));
+        }
+        this.keys = found;
+    }
+
+    /**
+     * All attributes loaded.
+     * @return Attributes
+     */
+    public Map<String, AttributeValue> attributes() {
+        return this.attrs;
+    }
+
+    @Override
+    public AttributeValue get(final String name) {
+        if (!this.attrs.containsKey(name)) {
+            throw new NoSuchElementException(
+                String.format("attribute \"%s\" is not loaded", name)
+            );
+        }
+        return this.attrs.get(name);
+    }
+
+    @Override
+    public boolean has(final String name) {
+        return this.attrs.containsKey(name);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(final String name,
+        final AttributeValueUpdate value) throws IOException {
+        return this.put(Collections.singletonMap(name, value));
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(
+        final Map<String, AttributeValueUpdate> updates) throws IOException {
+        return new Keyed(this.region, this.table, this.keys).put(
+            new AttributeUpdates(updates)
+        );
+    }
+
+    @Override
+    public Frame frame() {
+        return this.region.table(this.table).frame();
+    }
+
+}
@@ -0,0 +1,455 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.google.common.collect.Iterables;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Inverted index of terms in messages of a bout.
+ *
+ * <p>Every distinct term of a message is an item in "terms" table,
+ * where the range key is the term followed by the message number,
+ * padded with zeros.
+ * Every distinct term of the bout is also an item in "lexicon" table,
+ * with the date of the latest message it was seen in, which is what
+ * is copied to the inbox of an invited friend, see {@link #latest()}.
+ * A query term matches all terms that start with it, messages must
+ * match all query terms. Query terms shorter than {@link #MIN_PREFIX}
+ * match only equal terms, since there are too many terms starting with
+ * them, see {@link #prefix(String)}. No more than {@link #MAX_MATCHES}
+ * latest messages are read for one query term.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "bout")
+@EqualsAndHashCode(of = { "region", "bout" })
+final class Terms {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "terms";
+
+    /**
+     * Bout attribute.
+     */
+    public static final String HASH = "bout";
+
+    /**
+     * Term and message number attribute.
+     */
+    public static final String RANGE = "term";
+
+    /**
+     * Table name of the summary, with one item per term of the bout.
+     */
+    public static final String LEXICON = "lexicon";
+
+    /**
+     * Message number.
+     */
+    public static final String ATTR_MESSAGE = "message";
+
+    /**
+     * Minimum length of a query term, which matches terms starting
+     * with it.
+     */
+    public static final int MIN_PREFIX = Tv.THREE;
+
+    /**
+     * Maximum number of items read for one query term.
+     */
+    public static final int MAX_MATCHES = Tv.TEN * Tv.THOUSAND;
+
+    /**
+     * Maximum number of terms one query term matches.
+     */
+    public static final int MAX_WORDS = Tv.HUNDRED;
+
+    /**
+     * Date of the message.
+     */
+    public static final String ATTR_DATE = "date";
+
+    /**
+     * Everything that separates terms.
+     */
+    private static final Pattern SPACES = Pattern.compile(
+        "[^\\p{L}\\p{Nd}]+"
+    );
+
+    /**
+     * Maximum length of a term.
+     */
+    private static final int MAX_LENGTH = Tv.FIFTY;
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param num Bout number
+     */
+    Terms(final Region reg, final long num) {
+        this.region = reg;
+        this.bout = num;
+    }
+
+    /**
+     * Index the message.
+     * @param message Message number
+     * @param text Text of the message
+     * @param date When it was posted
+     * @return Distinct terms found in the text
+     * @throws IOException If fails
+     */
+    public Set<String> index(final long message, final String text,
+        final long date) throws IOException {
+        final Set<String> terms = Terms.split(text);
+        final Collection<Attributes> items = new ArrayList<Attributes>(0);
+        for (final String term : terms) {
+            items.add(
+                new Attributes()
+                    .with(Terms.HASH, this.bout)
+                    .with(Terms.RANGE, Terms.key(term, message))
+                    .with(Terms.ATTR_MESSAGE, message)
+                    .with(Terms.ATTR_DATE, date)
+            );
+        }
+        new Bulk(this.region, Terms.TBL).put(items);
+        final Map<String, Long> dates = new HashMap<String, Long>(0);
+        for (final String term : terms) {
+            dates.put(term, date);
+        }
+        this.summary(dates);
+        return terms;
+    }
+
+    /**
+     * All terms of the bout, with the dates of the latest messages
+     * they were seen in.
+     *
+     * <p>They are read from the summary, which has one item per term,
+     * no matter how many messages contain it.
+     *
+     * @return Terms and dates
+     * @throws IOException If fails
+     */
+    public Map<String, Long> latest() throws IOException {
+        final Iterable<Item> items = this.region.table(Terms.LEXICON)
+            .frame()
+            .through(
+                new QueryValve().withAttributesToGet(
+                    Terms.RANGE, Terms.ATTR_DATE
+                )
+            )
+            .where(Terms.HASH, Conditions.equalTo(this.bout));
+        final Map<String, Long> terms = new HashMap<String, Long>(0);
+        for (final Item item : items) {
+            terms.put(
+                item.get(Terms.RANGE).getS(),
+                Long.parseLong(item.get(Terms.ATTR_DATE).getN())
+            );
+        }
+        return terms;
+    }
+
+    /**
+     * Rebuild the summary from all indexed messages of the bout.
+     *
+     * <p>It reads every item of the bout in "terms" table, that's why
+     * it is used only by {@link Backfill}.
+     *
+     * @throws IOException If fails
+     */
+    public void summarize() throws IOException {
+        final Iterable<Item> items = this.region.table(Terms.TBL)
+            .frame()
+            .through(
+                new QueryValve().withAttributesToGet(
+                    Terms.RANGE, Terms.ATTR_DATE
+                )
+            )
+            .where(Terms.HASH, Conditions.equalTo(this.bout));
+        final Map<String, Long> terms = new HashMap<String, Long>(0);
+        for (final Item item : items) {
+            final String range = item.get(Terms.RANGE).getS();
+            final String term = range.substring(0, range.lastIndexOf(' '));
+            long date = 0L;
+            if (item.has(Terms.ATTR_DATE)) {
+                date = Long.parseLong(item.get(Terms.ATTR_DATE).getN());
+            }
+            if (!terms.containsKey(term) || terms.get(term) < date) {
+                terms.put(term, date);
+            }
+        }
+        this.summary(terms);
+    }
+
+    /**
+     * Find messages matching all terms of the query.
+     * @param query Query
+     * @param before Only messages with numbers less than this one
+     * @return Numbers of messages found, the latest ones first
+     * @throws IOException If fails
+     */
+    public SortedSet<Long> find(final String query, final long before)
+        throws IOException {
+        final Set<String> terms = Terms.split(query);
+        final SortedSet<Long> found = new TreeSet<Long>(
+            Collections.reverseOrder()
+        );
+        boolean first = true;
+        for (final String term : terms) {
+            final Set<Long> matched = this.matched(term, before);
+            if (first) {
+                found.addAll(matched);
+                first = false;
+            } else {
+                found.retainAll(matched);
+            }
+            if (found.isEmpty()) {
+                break;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Messages matching one term.
+     *
+     * <p>Every term the query term matches is queried separately, the
+     * latest messages first, with the range key between the term with
+     * zero and the term with the number right before the start. Then the
+     * latest {@link #MAX_MATCHES} messages of all of them are taken.
+     *
+     * @param term The term
+     * @param before Only messages with numbers less than this one
+     * @return Numbers of messages
+     * @throws IOException If fails
+     */
+    private Set<Long> matched(final String term, final long before)
+        throws IOException {
+        final SortedSet<Long> matched = new TreeSet<Long>(
+            Collections.reverseOrder()
+        );
+        if (before > 0L) {
+            for (final String word : this.words(term)) {
+                final Iterable<Item> items = Iterables.limit(
+                    this.region.table(Terms.TBL)
+                        .frame()
+                        .through(
+                            new QueryValve()
+                                .withScanIndexForward(false)
+                                .withAttributesToGet(Terms.ATTR_MESSAGE)
+                        )
+                        .where(Terms.HASH, Conditions.equalTo(this.bout))
+                        .where(
+                            Terms.RANGE,
+                            new Condition()
+                                .withComparisonOperator(
+                                    ComparisonOperator.BETWEEN
+                                )
+                                .withAttributeValueList(
+                                    new AttributeValue(Terms.key(word, 0L)),
+                                    new AttributeValue(
+                                        Terms.key(word, before - 1L)
+                                    )
+                                )
+                        ),
+                    Terms.MAX_MATCHES
+                );
+                for (final Item item : items) {
+                    matched.add(
+                        Long.parseLong(item.get(Terms.ATTR_MESSAGE).getN())
+                    );
+                }
+            }
+        }
+        final Set<Long> latest = new TreeSet<Long>();
+        Iterables.addAll(latest, Iterables.limit(matched, Terms.MAX_MATCHES));
+        return latest;
+    }
+
+    /**
+     * Terms of the bout matching the query term.
+     *
+     * <p>A term shorter than {@link #MIN_PREFIX} matches only itself,
+     * while a longer one matches all terms of the summary that start with
+     * it, no more than {@link #MAX_WORDS} of the most recently used ones.
+     *
+     * @param term The term
+     * @return Terms
+     * @throws IOException If fails
+     */
+    private Collection<String> words(final String term) throws IOException {
+        final Collection<String> words;
+        if (term.length() < Terms.MIN_PREFIX) {
+            words = Collections.singleton(term);
+        } else {
+            final Map<String, Long> dates = new HashMap<String, Long>(0);
+            for (final Item item : this.region.table(Terms.LEXICON)
+                .frame()
+                .through(
+                    new QueryValve().withAttributesToGet(
+                        Terms.RANGE, Terms.ATTR_DATE
+                    )
+                )
+                .where(Terms.HASH, Conditions.equalTo(this.bout))
+                .where(Terms.RANGE, Terms.prefix(term))) {
+                dates.put(
+                    item.get(Terms.RANGE).getS(),
+                    Long.parseLong(item.get(Terms.ATTR_DATE).getN())
+                );
+            }
+            final List<String> recent = new ArrayList<String>(dates.keySet());
+            Collections.sort(
+                recent,
+                new Comparator<String>() {
+                    @Override
+                    public int compare(final String left, final String right) {
+                        return dates.get(right).compareTo(dates.get(left));
+                    }
+                }
+            );
+            words = recent.subList(0, Math.min(recent.size(), Terms.MAX_WORDS));
+        }
+        return words;
+    }
+
+    /**
+     * Save terms to the summary.
+     * @param terms Terms and dates of the latest messages with them
+     * @throws IOException If fails
+     */
+    private void summary(final Map<String, Long> terms) throws IOException {
+        final Collection<Attributes> items = new ArrayList<Attributes>(0);
+        for (final Map.Entry<String, Long> term : terms.entrySet()) {
+            items.add(
+                new Attributes()
+                    .with(Terms.HASH, this.bout)
+                    .with(Terms.RANGE, term.getKey())
+                    .with(Terms.ATTR_DATE, term.getValue())
+            );
+        }
+        new Bulk(this.region, Terms.LEXICON).put(items);
+    }
+
+    /**
+     * Condition on the range key, for items matching a query term.
+     *
+     * <p>Range keys are terms followed by a space and a number, so a term
+     * shorter than {@link #MIN_PREFIX} is followed by a space in the
+     * condition, in order to match only items with the same term.
+     *
+     * @param term The term
+     * @return Condition
+     */
+    public static Condition prefix(final String term) {
+        final String prefix;
+        if (term.length() < Terms.MIN_PREFIX) {
+            prefix = String.format("%s ", term);
+        } else {
+            prefix = term;
+        }
+        return new Condition()
+            .withComparisonOperator(ComparisonOperator.BEGINS_WITH)
+            .withAttributeValueList(new AttributeValue(prefix));
+    }
+
+    /**
+     * Range key of the item.
+     *
+     * <p>The number is padded with zeros, in order to make the order of
+     * range keys of one term the order of message numbers.
+     *
+     * @param term The term
+     * @param message Message number
+     * @return Range key
+     */
+    private static String key(final String term, final long message) {
+        return String.format("%s %019d", term, message);
+    }
+
+    /**
+     * Split text into distinct terms.
+     * @param text Text
+     * @return Terms, in lower case
+     */
+    public static Set<String> split(final String text) {
+        final Set<String> terms = new LinkedHashSet<String>(0);
+        for (final String term
+            : Terms.SPACES.split(text.toLowerCase(Locale.ENGLISH))) {
+            if (!term.isEmpty()) {
+                terms.add(
+                    term.substring(0, Math.min(term.length(), Terms.MAX_LENGTH))
+                );
+            }
+        }
+        return terms;
+    }
+
+}
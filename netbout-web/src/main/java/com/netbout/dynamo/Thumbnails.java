@@ -0,0 +1,431 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.jcabi.s3.Ocket;
+import com.netbout.spi.Attachment;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import lombok.ToString;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+/**
+ * Thumbnails of images and PDF documents, rendered in background.
+ *
+ * <p>Rendering takes a lot of memory and CPU, that's why only a few
+ * thumbnails are rendered in parallel and only a few more are waiting.
+ * When the queue is full, new jobs are dropped; the thumbnail is requested
+ * again when somebody needs it, see {@link DyAttachment#thumbnail()}.
+ * The same thumbnail is never rendered twice at the same time, and
+ * a thumbnail, which failed to render, is not tried again for an hour.
+ * Images with too many pixels are not rendered at all.
+ *
+ * <p>The engine is mutable, that's why it is not {@code @Immutable} and
+ * is used through {@link #INSTANCE} only.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@ToString(of = "running")
+final class Thumbnails {
+
+    /**
+     * Shared instance.
+     */
+    public static final Thumbnails INSTANCE = new Thumbnails(
+        Tv.TWO, Tv.FIFTY
+    );
+
+    /**
+     * Content types we can render.
+     */
+    private static final Pattern TYPES = Pattern.compile(
+        Attachment.THUMBNAILS
+    );
+
+    /**
+     * Content type of PDF documents.
+     */
+    private static final String PDF = "application/pdf";
+
+    /**
+     * Maximum width and height of a thumbnail, in pixels.
+     */
+    private static final int SIZE = 240;
+
+    /**
+     * Maximum size of content to render, in bytes.
+     */
+    private static final long MAX = (long) (Tv.TWENTY * Tv.MILLION);
+
+    /**
+     * Maximum number of pixels in an image to render.
+     */
+    private static final long PIXELS = 25L * (long) Tv.MILLION;
+
+    /**
+     * Resolution of rendered pages of PDF documents, in DPI.
+     */
+    private static final int DPI = Tv.FIFTY;
+
+    /**
+     * Points in one inch, the unit of page sizes in PDF documents.
+     */
+    private static final float POINTS = 72.0f;
+
+    /**
+     * Pool of threads.
+     */
+    private final transient ThreadPoolExecutor pool;
+
+    /**
+     * Keys of thumbnails being rendered or waiting in the queue.
+     */
+    private final transient Set<String> running;
+
+    /**
+     * Keys of thumbnails failed to render recently.
+     */
+    private final transient Cache<String, Boolean> failed;
+
+    /**
+     * Ctor.
+     * @param threads Maximum number of thumbnails rendered in parallel
+     * @param queue Maximum number of thumbnails waiting in the queue
+     */
+    Thumbnails(final int threads, final int queue) {
+        this.pool = new ThreadPoolExecutor(
+            threads, threads, 1L, TimeUnit.MINUTES,
+            new ArrayBlockingQueue<Runnable>(queue),
+            new VerboseThreads(Thumbnails.class),
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.pool.allowCoreThreadTimeOut(true);
+        this.running = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+        this.failed = CacheBuilder.newBuilder()
+            .expireAfterWrite(1L, TimeUnit.HOURS)
+            .maximumSize((long) Tv.TEN * (long) Tv.THOUSAND)
+            .<String, Boolean>build();
+    }
+
+    /**
+     * Can we render a thumbnail of this content type?
+     * @param ctype Content type
+     * @return TRUE if we can
+     */
+    public static boolean supports(final String ctype) {
+        return Thumbnails.TYPES.matcher(ctype).matches();
+    }
+
+    /**
+     * S3 key of the thumbnail of an attachment.
+     *
+     * <p>The key depends on the etag, so a thumbnail of old content
+     * is never served after the content is replaced.
+     *
+     * @param bout Bout number
+     * @param name Attachment name
+     * @param etag Etag of the content
+     * @return S3 key
+     */
+    public static String key(final long bout, final String name,
+        final String etag) {
+        return String.format(
+            "thumbs/%d/%s/%s.png", bout, name, DigestUtils.md5Hex(etag)
+        );
+    }
+
+    /**
+     * Did the thumbnail fail to render recently?
+     * @param target Where the thumbnail is saved
+     * @return TRUE if it failed
+     */
+    public boolean failed(final Ocket target) {
+        return this.failed.getIfPresent(target.key()) != null;
+    }
+
+    /**
+     * Render a thumbnail in background and save it to S3.
+     *
+     * <p>Nothing is done if the thumbnail is being rendered already or
+     * failed to render recently, see {@link #failed(Ocket)}.
+     *
+     * @param target Where to save the thumbnail
+     * @param ctype Content type of the content
+     * @param source Content
+     */
+    public void submit(final Ocket target, final String ctype,
+        final Thumbnails.Source source) {
+        final String key = target.key();
+        if (!this.failed(target) && this.running.add(key)) {
+            try {
+                this.pool.execute(new Thumbnails.Job(target, ctype, source));
+            } catch (final RejectedExecutionException ex) {
+                this.running.remove(key);
+                Logger.warn(this, "thumbnail %s dropped, queue is full", key);
+            }
+        }
+    }
+
+    /**
+     * Content to render.
+     */
+    interface Source {
+        /**
+         * Open the content.
+         * @return Stream
+         * @throws IOException If fails
+         */
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Rendering of one thumbnail.
+     */
+    private final class Job implements Runnable {
+        /**
+         * Where to save the thumbnail.
+         */
+        private final transient Ocket target;
+        /**
+         * Content type of the content.
+         */
+        private final transient String ctype;
+        /**
+         * Content.
+         */
+        private final transient Thumbnails.Source source;
+        /**
+         * Ctor.
+         * @param ocket Where to save the thumbnail
+         * @param type Content type of the content
+         * @param src Content
+         */
+        Job(final Ocket ocket, final String type,
+            final Thumbnails.Source src) {
+            this.target = ocket;
+            this.ctype = type;
+            this.source = src;
+        }
+        @Override
+        public void run() {
+            try {
+                Thumbnails.save(this.target, this.ctype, this.source);
+            } catch (final IOException ex) {
+                Thumbnails.this.failed.put(this.target.key(), true);
+                Logger.warn(
+                    Thumbnails.this, "failed to render %s: %s",
+                    this.target.key(), ex
+                );
+            } finally {
+                Thumbnails.this.running.remove(this.target.key());
+            }
+        }
+    }
+
+    /**
+     * Render a thumbnail and save it.
+     * @param target Where to save the thumbnail
+     * @param ctype Content type of the content
+     * @param source Content
+     * @throws IOException If fails
+     */
+    private static void save(final Ocket target, final String ctype,
+        final Thumbnails.Source source) throws IOException {
+        final InputStream input = new Limited(source.open(), Thumbnails.MAX);
+        final BufferedImage image;
+        try {
+            image = Thumbnails.image(input, ctype);
+        } finally {
+            input.close();
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(Thumbnails.scale(image), "png", baos);
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentType("image/png");
+        meta.setContentLength((long) baos.size());
+        target.write(new ByteArrayInputStream(baos.toByteArray()), meta);
+        Logger.info(
+            Thumbnails.class, "thumbnail %s rendered, %d bytes",
+            target.key(), baos.size()
+        );
+    }
+
+    /**
+     * Read the image, or render the first page of a PDF document.
+     * @param input Content
+     * @param ctype Content type of the content
+     * @return Image
+     * @throws IOException If fails
+     */
+    private static BufferedImage image(final InputStream input,
+        final String ctype) throws IOException {
+        final BufferedImage image;
+        if (Thumbnails.PDF.equals(ctype)) {
+            final PDDocument doc = PDDocument.load(input);
+            try {
+                final PDPage page = PDPage.class.cast(
+                    doc.getDocumentCatalog().getAllPages().get(0)
+                );
+                final PDRectangle box = page.findMediaBox();
+                final float scale = (float) Thumbnails.DPI / Thumbnails.POINTS;
+                Thumbnails.check(
+                    (long) (box.getWidth() * scale),
+                    (long) (box.getHeight() * scale)
+                );
+                image = page.convertToImage(
+                    BufferedImage.TYPE_INT_RGB, Thumbnails.DPI
+                );
+            } finally {
+                doc.close();
+            }
+        } else {
+            image = Thumbnails.decode(input, ctype);
+        }
+        return image;
+    }
+
+    /**
+     * Decode the image, after checking its dimensions.
+     *
+     * <p>Dimensions are read from the header, before the image is decoded,
+     * since a small file may claim a huge image and take all the memory
+     * we have while being decoded.
+     *
+     * @param input Content
+     * @param ctype Content type of the content
+     * @return Image
+     * @throws IOException If fails
+     */
+    private static BufferedImage decode(final InputStream input,
+        final String ctype) throws IOException {
+        final ImageInputStream stream = ImageIO.createImageInputStream(input);
+        if (stream == null) {
+            throw new IOException("can't read the content");
+        }
+        final BufferedImage image;
+        try {
+            final Iterator<ImageReader> readers =
+                ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException(
+                    String.format("content is not a valid %s", ctype)
+                );
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                Thumbnails.check(
+                    (long) reader.getWidth(0), (long) reader.getHeight(0)
+                );
+                image = reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+        return image;
+    }
+
+    /**
+     * Check the dimensions of the image to render.
+     * @param width Width, in pixels
+     * @param height Height, in pixels
+     * @throws IOException If it's too big
+     */
+    private static void check(final long width, final long height)
+        throws IOException {
+        if (width * height > Thumbnails.PIXELS) {
+            throw new IOException(
+                String.format(
+                    "image is too big, %dx%d pixels, %d is the maximum",
+                    width, height, Thumbnails.PIXELS
+                )
+            );
+        }
+    }
+
+    /**
+     * Scale the image down, keeping its proportions.
+     * @param image Image
+     * @return Thumbnail
+     */
+    private static BufferedImage scale(final BufferedImage image) {
+        final double ratio = Math.min(
+            1.0d,
+            (double) Thumbnails.SIZE
+                / (double) Math.max(image.getWidth(), image.getHeight())
+        );
+        final int width = Math.max(1, (int) (image.getWidth() * ratio));
+        final int height = Math.max(1, (int) (image.getHeight() * ratio));
+        final BufferedImage thumb = new BufferedImage(
+            width, height, BufferedImage.TYPE_INT_ARGB
+        );
+        final Graphics2D graphics = thumb.createGraphics();
+        try {
+            graphics.setRenderingHint(
+                RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR
+            );
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return thumb;
+    }
+
+}
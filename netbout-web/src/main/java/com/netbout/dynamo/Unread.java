@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.Select;
+import com.jcabi.aspects.Async;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.ScanValve;
+import com.jcabi.log.Logger;
+import com.jcabi.manifests.Manifests;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Total number of unread messages of an alias.
+ *
+ * <p>The total is kept in the alias item of "aliases" table and
+ * is adjusted atomically every time a message is posted or seen,
+ * see {@link DyMessages}. The adjustments are not transactional with
+ * the updates of "friends" rows, that's why the total may drift. When
+ * it drifts below zero, is missing or wasn't checked for a day,
+ * it is recomputed from "friends" rows, see {@link #reconcile()}.
+ * The total is never saved when the alias item doesn't exist, in order
+ * not to create items with nothing but a total.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "alias")
+@EqualsAndHashCode(of = { "region", "alias" })
+final class Unread {
+
+    /**
+     * How often to reconcile the total, in milliseconds.
+     */
+    private static final long PERIOD = TimeUnit.DAYS.toMillis(1L);
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Alias.
+     */
+    private final transient String alias;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param name Alias
+     */
+    Unread(final Region reg, final String name) {
+        this.region = reg;
+        this.alias = name;
+    }
+
+    /**
+     * Get the total.
+     * @return Number of unread messages in all bouts
+     * @throws IOException If fails
+     */
+    public long total() throws IOException {
+        final Iterator<Item> items = this.region.table(DyAliases.TBL)
+            .frame()
+            .through(
+                new QueryValve()
+                    .withLimit(1)
+                    .withAttributesToGet(
+                        DyAliases.ATTR_UNREAD,
+                        DyAliases.ATTR_RECONCILED
+                    )
+            )
+            .where(DyAliases.HASH, Conditions.equalTo(this.alias))
+            .iterator();
+        long total = 0L;
+        if (items.hasNext()) {
+            final Item item = items.next();
+            if (item.has(DyAliases.ATTR_UNREAD)
+                && item.has(DyAliases.ATTR_RECONCILED)) {
+                total = Long.parseLong(item.get(DyAliases.ATTR_UNREAD).getN());
+                final long reconciled = Long.parseLong(
+                    item.get(DyAliases.ATTR_RECONCILED).getN()
+                );
+                if (total < 0L) {
+                    total = this.reconcile();
+                } else if (System.currentTimeMillis() - reconciled
+                    > Unread.PERIOD) {
+                    this.refresh();
+                }
+            } else {
+                total = this.reconcile();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Adjust the total, if the alias exists.
+     * @param delta How many messages to add (negative to subtract)
+     * @throws IOException If fails
+     */
+    public void add(final long delta) throws IOException {
+        try {
+            final Map<String, AttributeValue> attrs = this.item().put(
+                new AttributeUpdates().with(
+                    DyAliases.ATTR_UNREAD,
+                    new AttributeValueUpdate()
+                        .withAction(AttributeAction.ADD)
+                        .withValue(
+                            new AttributeValue().withN(Long.toString(delta))
+                        )
+                ),
+                Collections.singletonMap(
+                    DyAliases.HASH,
+                    new ExpectedAttributeValue(new AttributeValue(this.alias))
+                )
+            );
+            if (Long.parseLong(attrs.get(DyAliases.ATTR_UNREAD).getN())
+                < 0L) {
+                this.reconcile();
+            }
+        } catch (final Keyed.ConflictException ex) {
+            Logger.warn(
+                this, "alias @%s doesn't exist, total is not adjusted",
+                this.alias
+            );
+        }
+    }
+
+    /**
+     * Recompute the total from "friends" rows and save it.
+     *
+     * <p>This is the expensive path: it reads the entire "inbox" index
+     * of the alias, one row per bout. The total is saved only if it
+     * wasn't adjusted while the rows were read, otherwise the adjustment
+     * would be lost, and the total is reconciled next time.
+     *
+     * @return Number of unread messages in all bouts
+     * @throws IOException If fails
+     */
+    public long reconcile() throws IOException {
+        final Map<String, ExpectedAttributeValue> expected =
+            new HashMap<String, ExpectedAttributeValue>(2);
+        expected.put(
+            DyAliases.HASH,
+            new ExpectedAttributeValue(new AttributeValue(this.alias))
+        );
+        final AttributeValue before = this.item().load().get(
+            DyAliases.ATTR_UNREAD
+        );
+        if (before == null) {
+            expected.put(
+                DyAliases.ATTR_UNREAD, new ExpectedAttributeValue(false)
+            );
+        } else {
+            expected.put(
+                DyAliases.ATTR_UNREAD, new ExpectedAttributeValue(before)
+            );
+        }
+        long total = 0L;
+        for (final Item item : this.rows()) {
+            if (item.has(DyFriends.ATTR_UNREAD)) {
+                total += Long.parseLong(
+                    item.get(DyFriends.ATTR_UNREAD).getN()
+                );
+            }
+        }
+        try {
+            this.item().put(
+                new AttributeUpdates()
+                    .with(DyAliases.ATTR_UNREAD, total)
+                    .with(
+                        DyAliases.ATTR_RECONCILED, System.currentTimeMillis()
+                    ),
+                expected
+            );
+            Logger.info(
+                this, "unread total of @%s reconciled to %d",
+                this.alias, total
+            );
+        } catch (final Keyed.ConflictException ex) {
+            Logger.info(
+                this, "unread total of @%s changed while reconciled to %d",
+                this.alias, total
+            );
+        }
+        return total;
+    }
+
+    /**
+     * Friend rows of the alias, in all bouts.
+     * @return Rows
+     * @todo #1 DynamoDBLocal doesn't work with all attributes
+     *  in global index, that's why the table is scanned there, instead of
+     *  querying the index. I suspect, it's a bug in DynamoDBLocal, but
+     *  I don't even know how to report it to them :( Anyway, let's try to
+     *  investigate and either fix property or introduce a better
+     *  workaround. Pay attention that the query works correctly
+     *  in production.
+     */
+    private Iterable<Item> rows() {
+        final Iterable<Item> items;
+        if ("1.0-LOCAL".equals(Manifests.read("Netbout-Version"))) {
+            items = this.region.table(DyFriends.TBL)
+                .frame()
+                .where(DyFriends.RANGE, this.alias)
+                .through(
+                    new ScanValve()
+                        .withLimit(Tv.HUNDRED)
+                        .withAttributeToGet(DyFriends.ATTR_UNREAD)
+                );
+        } else {
+            items = this.region.table(DyFriends.TBL)
+                .frame()
+                .where(DyFriends.RANGE, this.alias)
+                .through(
+                    new QueryValve()
+                        .withIndexName(DyFriends.INDEX)
+                        .withConsistentRead(false)
+                        .withSelect(Select.SPECIFIC_ATTRIBUTES)
+                        .withAttributesToGet(DyFriends.ATTR_UNREAD)
+                        .withScanIndexForward(false)
+                );
+        }
+        return items;
+    }
+
+    /**
+     * Reconcile in background.
+     * @throws IOException If fails
+     */
+    @Async
+    private void refresh() throws IOException {
+        this.reconcile();
+    }
+
+    /**
+     * Alias item.
+     * @return Item
+     */
+    private Keyed item() {
+        return new Keyed(
+            this.region, DyAliases.TBL,
+            new Attributes().with(DyAliases.HASH, this.alias)
+        );
+    }
+
+}
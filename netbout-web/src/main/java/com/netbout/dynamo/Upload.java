@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Loggable;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.mock.MkRegion;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.LinkedList;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+
+/**
+ * Upload of a stream of unknown size to S3.
+ *
+ * <p>S3 needs to know the size of an object before it accepts it, that's
+ * why the stream is sent part by part, with a multipart upload. Only one
+ * part is kept in memory at a time, no matter how big the stream is.
+ * Streams that fit into a single part are sent with a plain PUT. When
+ * the stream breaks in the middle, the multipart upload is aborted and
+ * the previous version of the object stays intact. The {@link MkRegion}
+ * stand-in has no S3 client, there the stream is written as it is.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+@Immutable
+@Loggable(Loggable.DEBUG)
+@ToString(of = "key")
+@EqualsAndHashCode(of = { "bucket", "key", "ctype" })
+final class Upload {
+
+    /**
+     * Size of one part, the minimum S3 allows.
+     */
+    private static final int PART = 5 * 1024 * 1024;
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Key of the object.
+     */
+    private final transient String key;
+
+    /**
+     * Content type.
+     */
+    private final transient String ctype;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     * @param name Key of the object
+     * @param type Content type
+     */
+    Upload(final Bucket bkt, final String name, final String type) {
+        this.bucket = bkt;
+        this.key = name;
+        this.ctype = type;
+    }
+
+    /**
+     * Send the stream to S3.
+     * @param input Stream to send
+     * @return How many bytes were sent
+     * @throws IOException If fails
+     */
+    public long send(final InputStream input) throws IOException {
+        final byte[] part = new byte[Upload.PART];
+        final int len = IOUtils.read(input, part);
+        final long total;
+        if (len < Upload.PART) {
+            this.bucket.ocket(this.key).write(
+                new ByteArrayInputStream(part, 0, len),
+                this.meta((long) len)
+            );
+            total = (long) len;
+        } else if (this.bucket.region() instanceof MkRegion) {
+            final CountingInputStream counting = new CountingInputStream(
+                new SequenceInputStream(
+                    new ByteArrayInputStream(part, 0, len), input
+                )
+            );
+            this.bucket.ocket(this.key).write(counting, this.meta(0L));
+            total = counting.getByteCount();
+        } else {
+            total = this.multipart(part, input);
+        }
+        return total;
+    }
+
+    /**
+     * Send the stream part by part.
+     * @param buffer Buffer with the first part, already read
+     * @param input The rest of the stream
+     * @return How many bytes were sent
+     * @throws IOException If fails
+     */
+    private long multipart(final byte[] buffer, final InputStream input)
+        throws IOException {
+        final AmazonS3 aws = this.bucket.region().aws();
+        final long total;
+        try {
+            total = this.multipart(aws, buffer, input);
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return total;
+    }
+
+    /**
+     * Send the stream part by part, through the client.
+     * @param aws S3 client
+     * @param buffer Buffer with the first part, already read
+     * @param input The rest of the stream
+     * @return How many bytes were sent
+     * @throws IOException If fails
+     */
+    private long multipart(final AmazonS3 aws, final byte[] buffer,
+        final InputStream input) throws IOException {
+        final String name = this.bucket.name();
+        final String upload = aws.initiateMultipartUpload(
+            new InitiateMultipartUploadRequest(name, this.key, this.meta(0L))
+        ).getUploadId();
+        final List<PartETag> tags = new LinkedList<PartETag>();
+        long total = 0L;
+        try {
+            int len = buffer.length;
+            while (len > 0) {
+                tags.add(
+                    aws.uploadPart(
+                        new UploadPartRequest()
+                            .withBucketName(name)
+                            .withKey(this.key)
+                            .withUploadId(upload)
+                            .withPartNumber(tags.size() + 1)
+                            .withPartSize((long) len)
+                            .withInputStream(
+                                new ByteArrayInputStream(buffer, 0, len)
+                            )
+                    ).getPartETag()
+                );
+                total += (long) len;
+                len = IOUtils.read(input, buffer);
+            }
+            aws.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(
+                    name, this.key, upload, tags
+                )
+            );
+        } catch (final IOException | AmazonClientException ex) {
+            aws.abortMultipartUpload(
+                new AbortMultipartUploadRequest(name, this.key, upload)
+            );
+            throw ex;
+        }
+        return total;
+    }
+
+    /**
+     * Metadata of the object.
+     * @param length Content length or zero if unknown
+     * @return Metadata
+     */
+    private ObjectMetadata meta(final long length) {
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentType(this.ctype);
+        if (length > 0L) {
+            meta.setContentLength(length);
+        }
+        return meta;
+    }
+
+}
@@ -31,10 +31,15 @@
  * <p>There are the following tables in DynamoDB:
  *
  * <pre>
- * aliases: (hash:alias, urn, photo, locale) -> GSI(urn,alias)
+ * aliases: (hash:alias, urn, photo, locale, unread, reconciled)
+ *   -> GSI(urn,alias)
  * friends: (hash:bout, range:alias, title, updated, new) -> GSI(alias,updated)
  * messages: (hash:bout, range:msg, text, alias, date)
  * attachments: (hash:bout, range:name, owner, ctype, data)
+ * terms: (hash:bout, range:term, message, date)
+ * lexicon: (hash:bout, range:term, date)
+ * hits: (hash:alias, range:term, bout, updated)
+ * counters: (hash:name, value)
  * </pre>
  *
  * @author Yegor Bugayenko (yegor@teamed.io)
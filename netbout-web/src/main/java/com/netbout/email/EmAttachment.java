@@ -85,9 +85,59 @@ final class EmAttachment implements Attachment {
         return this.origin.read();
     }
 
+    @Override
+    public long size() throws IOException {
+        return this.origin.size();
+    }
+
+    @Override
+    public InputStream read(final long offset, final long length)
+        throws IOException {
+        return this.origin.read(offset, length);
+    }
+
+    @Override
+    public InputStream thumbnail() throws IOException {
+        return this.origin.thumbnail();
+    }
+
+    @Override
+    public String direct() throws IOException {
+        return this.origin.direct();
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
         this.origin.write(stream, ctype, etag);
     }
+
+    @Override
+    public String begin(final String ctype) throws IOException {
+        return this.origin.begin(ctype);
+    }
+
+    // @checkstyle ParameterNumberCheck (4 lines)
+    @Override
+    public void part(final String upload, final int number,
+        final InputStream stream, final long length) throws IOException {
+        this.origin.part(upload, number, stream, length);
+    }
+
+    @Override
+    public String direct(final String upload, final int number)
+        throws IOException {
+        return this.origin.direct(upload, number);
+    }
+
+    @Override
+    public void complete(final String upload, final String etag)
+        throws IOException {
+        this.origin.complete(upload, etag);
+    }
+
+    @Override
+    public void abort(final String upload) throws IOException {
+        this.origin.abort(upload);
+    }
 }
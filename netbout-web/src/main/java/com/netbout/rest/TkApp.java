@@ -134,18 +134,20 @@ public final class TkApp extends TkWrap {
                 TkApp.regex(base)
             );
         }
-        return new TkWithHeaders(
-            new TkVersioned(
-                new TkMeasured(
-                    new TkFlash(
-                        new TkAppFallback(
-                            new TkForward(auth)
+        return new TkScoped(
+            new TkWithHeaders(
+                new TkVersioned(
+                    new TkMeasured(
+                        new TkFlash(
+                            new TkAppFallback(
+                                new TkForward(auth)
+                            )
                         )
                     )
-                )
-            ),
-            String.format("X-Netbout-Version: %s", TkApp.VERSION),
-            "Vary: Cookie"
+                ),
+                String.format("X-Netbout-Version: %s", TkApp.VERSION),
+                "Vary: Cookie"
+            )
         );
     }
 
@@ -199,6 +201,7 @@ public final class TkApp extends TkWrap {
                 )
             ),
             new FkRegex("/favicon.ico", new TkFavicon()),
+            new FkRegex("/storage/.+", new TkStorage()),
             new FkAnonymous(
                 new TkFork(
                     new FkRegex("/", new TkHome(base)),
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.jcabi.log.Logger;
+import com.netbout.cached.Scope;
+import java.io.IOException;
+import java.io.InputStream;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqHref;
+
+/**
+ * Take that runs every request in its own {@link Scope}.
+ *
+ * <p>Pages are rendered when their bodies are read, that's why
+ * the scope stays open for the head and the body of the response too.
+ * When the body is rendered, the number of loads saved by the scope is
+ * logged.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+final class TkScoped implements Take {
+
+    /**
+     * Original take.
+     */
+    private final transient Take origin;
+
+    /**
+     * Ctor.
+     * @param take Original take
+     */
+    TkScoped(final Take take) {
+        this.origin = take;
+    }
+
+    @Override
+    public Response act(final Request req) throws IOException {
+        final Scope scope = new Scope();
+        final Response response = scope.run(
+            new Scope.Body<Response>() {
+                @Override
+                public Response run() throws IOException {
+                    return TkScoped.this.origin.act(req);
+                }
+            }
+        );
+        return new Response() {
+            @Override
+            public Iterable<String> head() throws IOException {
+                return scope.run(
+                    new Scope.Body<Iterable<String>>() {
+                        @Override
+                        public Iterable<String> run() throws IOException {
+                            return response.head();
+                        }
+                    }
+                );
+            }
+            @Override
+            public InputStream body() throws IOException {
+                final InputStream body = scope.run(
+                    new Scope.Body<InputStream>() {
+                        @Override
+                        public InputStream run() throws IOException {
+                            return response.body();
+                        }
+                    }
+                );
+                Logger.debug(
+                    TkScoped.class, "%d loads saved in %s",
+                    scope.saved(), new RqHref.Base(req).href()
+                );
+                return body;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest;
+
+import com.netbout.dynamo.DyStorage;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import org.apache.commons.lang3.CharEncoding;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.facets.fork.FkRegex;
+import org.takes.facets.fork.TkFork;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqHref;
+import org.takes.rq.RqLengthAware;
+import org.takes.rs.RsEmpty;
+import org.takes.rs.RsFluent;
+import org.takes.rs.RsWithStatus;
+import org.takes.tk.TkWrap;
+
+/**
+ * Direct links to the storage, when it's only a stand-in of S3.
+ *
+ * <p>Links are signed and expire, the same way S3 presigned links do,
+ * see {@link DyStorage}. A link, which is not valid, gets 403.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class TkStorage extends TkWrap {
+
+    /**
+     * Ctor.
+     */
+    public TkStorage() {
+        this(new DyStorage());
+    }
+
+    /**
+     * Ctor.
+     * @param storage Storage
+     */
+    public TkStorage(final DyStorage storage) {
+        super(TkStorage.make(storage));
+    }
+
+    /**
+     * Make the take.
+     * @param storage Storage
+     * @return Take
+     */
+    private static Take make(final DyStorage storage) {
+        return new TkFork(
+            new FkRegex(
+                DyStorage.GET,
+                new Take() {
+                    @Override
+                    public Response act(final Request req)
+                        throws IOException {
+                        return TkStorage.read(storage, req);
+                    }
+                }
+            ),
+            new FkRegex(
+                DyStorage.PART,
+                new Take() {
+                    @Override
+                    public Response act(final Request req)
+                        throws IOException {
+                        return TkStorage.write(storage, req);
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Download the object.
+     * @param storage Storage
+     * @param req Request
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response read(final DyStorage storage, final Request req)
+        throws IOException {
+        final RqHref.Smart smart = new RqHref.Smart(new RqHref.Base(req));
+        final String ctype = smart.single("type");
+        final String name = smart.single("name");
+        Response response;
+        try {
+            response = new RsFluent()
+                .withBody(
+                    storage.read(
+                        smart.single("key"), ctype, name,
+                        Long.parseLong(smart.single("expires")),
+                        smart.single("signature")
+                    )
+                )
+                .withType(ctype)
+                .withHeader(
+                    "Content-Disposition",
+                    String.format(
+                        "attachment; filename=\"%s\"",
+                        URLEncoder.encode(name, CharEncoding.UTF_8)
+                    )
+                );
+        } catch (final DyStorage.InvalidLinkException ex) {
+            response = new RsWithStatus(HttpURLConnection.HTTP_FORBIDDEN);
+        }
+        return response;
+    }
+
+    /**
+     * Upload a part.
+     * @param storage Storage
+     * @param req Request
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response write(final DyStorage storage, final Request req)
+        throws IOException {
+        final RqHref.Smart smart = new RqHref.Smart(new RqHref.Base(req));
+        Response response;
+        try {
+            storage.write(
+                smart.single("key"),
+                smart.single("upload"),
+                Integer.parseInt(smart.single("number")),
+                Long.parseLong(smart.single("expires")),
+                smart.single("signature"),
+                new RqLengthAware(req).body(),
+                Long.parseLong(
+                    new RqHeaders.Smart(new RqHeaders.Base(req))
+                        .single("Content-Length")
+                )
+            );
+            response = new RsEmpty();
+        } catch (final DyStorage.InvalidLinkException ex) {
+            response = new RsWithStatus(HttpURLConnection.HTTP_FORBIDDEN);
+        }
+        return response;
+    }
+
+}
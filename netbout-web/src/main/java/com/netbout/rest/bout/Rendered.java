@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest.bout;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.jcabi.aspects.Tv;
+import com.netbout.rest.Markdown;
+import com.netbout.spi.Attachment;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.CharEncoding;
+
+/**
+ * Markdown attachment rendered to HTML.
+ *
+ * <p>Rendered HTML is kept in memory by bout, name and etag of the
+ * attachment, since the etag changes every time the content changes.
+ * The cache is limited by the total length of HTML, the least recently
+ * used pages go first. An attachment unseen by the current user is
+ * always read, in order to mark it as seen, see {@link Attachment#read()}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+final class Rendered {
+
+    /**
+     * Rendered HTML by bout, name and etag.
+     */
+    private static final Cache<String, String> CACHE = Rendered.cache(
+        (long) (Tv.TWENTY * Tv.MILLION)
+    );
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Attachment.
+     */
+    private final transient Attachment attachment;
+
+    /**
+     * Cache of rendered HTML.
+     */
+    private final transient Cache<String, String> cache;
+
+    /**
+     * Ctor.
+     * @param num Bout number
+     * @param atmt Attachment
+     */
+    Rendered(final long num, final Attachment atmt) {
+        this(num, atmt, Rendered.CACHE);
+    }
+
+    /**
+     * Ctor.
+     * @param num Bout number
+     * @param atmt Attachment
+     * @param rendered Cache of rendered HTML
+     */
+    Rendered(final long num, final Attachment atmt,
+        final Cache<String, String> rendered) {
+        this.bout = num;
+        this.attachment = atmt;
+        this.cache = rendered;
+    }
+
+    /**
+     * Get HTML.
+     * @return HTML
+     * @throws IOException If fails
+     */
+    public String html() throws IOException {
+        final String etag = this.attachment.etag();
+        final String key = String.format(
+            "%d/%s/%s", this.bout, this.attachment.name(), etag
+        );
+        String html = this.cache.getIfPresent(key);
+        if (html == null || etag.isEmpty() || this.attachment.unseen()) {
+            html = new Markdown(
+                IOUtils.toString(this.attachment.read(), CharEncoding.UTF_8)
+            ).html();
+            if (!etag.isEmpty()) {
+                this.cache.put(key, html);
+            }
+        }
+        return html;
+    }
+
+    /**
+     * Make a cache of rendered HTML.
+     * @param weight Maximum total length of keys and HTML in it
+     * @return Cache
+     */
+    static Cache<String, String> cache(final long weight) {
+        return CacheBuilder.newBuilder()
+            .maximumWeight(weight)
+            .weigher(
+                new Weigher<String, String>() {
+                    @Override
+                    public int weigh(final String key, final String html) {
+                        return key.length() + html.length();
+                    }
+                }
+            )
+            .expireAfterAccess(1L, TimeUnit.DAYS)
+            .build();
+    }
+
+}
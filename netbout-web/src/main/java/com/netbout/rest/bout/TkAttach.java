@@ -33,17 +33,17 @@ import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import eu.medsea.mimeutil.MimeUtil;
 import eu.medsea.mimeutil.detector.MagicMimeMimeDetector;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLDecoder;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.codec.CharEncoding;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
@@ -70,6 +70,11 @@ final class TkAttach implements Take {
             "(.*)(name=\"file\")(.*)(filename=\"(.*)\")(.*)"
     );
 
+    /**
+     * How many bytes to read for content type detection.
+     */
+    private static final int SNIFF = 4096;
+
     /**
      * Base.
      */
@@ -106,8 +111,11 @@ final class TkAttach implements Take {
             matcher.group(5),
             CharEncoding.UTF_8
         );
-        final File temp = File.createTempFile("netbout", "bin");
-        IOUtils.copy(file.body(), new FileOutputStream(temp));
+        final InputStream body = new BufferedInputStream(
+            file.body(), TkAttach.SNIFF
+        );
+        final String ctype = TkAttach.ctype(body);
+        final CountingInputStream input = new CountingInputStream(body);
         final Bout bout = new RqBout(this.base, req).bout();
         final StringBuilder msg = new StringBuilder(Tv.HUNDRED);
         if (new Attachments.Search(bout.attachments()).exists(name)) {
@@ -120,29 +128,38 @@ final class TkAttach implements Take {
             }
             msg.append(String.format("attachment \"%s\" uploaded", name));
         }
-        final String ctype = TkAttach.ctype(temp);
-        msg.append(" (").append(temp.length())
-            .append(" bytes, ").append(ctype).append(')');
         try {
             bout.attachments().get(name).write(
-                new FileInputStream(temp),
-                ctype, Long.toString(System.currentTimeMillis())
+                input, ctype, Long.toString(System.currentTimeMillis())
             );
         } catch (final Attachment.TooBigException
             | Attachment.BrokenContentException ex) {
             throw new RsFailure(ex);
         }
-        FileUtils.forceDelete(temp);
+        msg.append(" (").append(input.getByteCount())
+            .append(" bytes, ").append(ctype).append(')');
         throw new RsForward(new RsFlash(msg.toString()));
     }
 
     /**
-     * Get CType of file.
-     * @param file File
+     * Get CType of the content, from its first bytes.
+     *
+     * <p>Only the head of the stream is read and then the stream is
+     * reset to its beginning, so the content can be written afterwards
+     * without being copied anywhere.
+     *
+     * @param stream Stream, which supports marks
      * @return MIME type
+     * @throws IOException If fails
      */
-    private static String ctype(final File file) {
-        final Collection<?> ctypes = MimeUtil.getMimeTypes(file);
+    private static String ctype(final InputStream stream) throws IOException {
+        stream.mark(TkAttach.SNIFF);
+        final byte[] head = new byte[TkAttach.SNIFF];
+        final int len = IOUtils.read(stream, head);
+        stream.reset();
+        final Collection<?> ctypes = MimeUtil.getMimeTypes(
+            Arrays.copyOf(head, len)
+        );
         final String ctype;
         if (ctypes.isEmpty()) {
             ctype = "application/octet-stream";
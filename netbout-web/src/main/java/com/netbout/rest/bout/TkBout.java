@@ -60,6 +60,12 @@ public final class TkBout extends TkWrap {
             new FkBout("/attach", new TkAttach(base)),
             new FkBout("/upload", new TkUpload(base)),
             new FkBout("/download", new TkDownload(base)),
+            new FkBout("/thumbnail", new TkThumbnail(base)),
+            new FkBout("/begin", new TkBegin(base)),
+            new FkBout("/part", new TkPart(base)),
+            new FkBout("/direct", new TkDirect(base)),
+            new FkBout("/complete", new TkComplete(base)),
+            new FkBout("/abort", new TkAbort(base)),
             new FkBout("/rename", new TkRename(base)),
             new FkBout("/create", new TkCreate(base)),
             new FkBout("/delete", new TkDelete(base)),
@@ -30,23 +30,60 @@ import com.netbout.spi.Attachment;
 import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URLEncoder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.CharEncoding;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
+import org.takes.rq.RqHeaders;
 import org.takes.rq.RqHref;
+import org.takes.rs.RsEmpty;
 import org.takes.rs.RsFluent;
+import org.takes.rs.RsWithStatus;
 
 /**
  * Download.
  *
+ * <p>The etag of the attachment is sent as {@code ETag}, and a request
+ * with the same etag in {@code If-None-Match} gets 304 without content.
+ * A single byte range in {@code Range} gets 206 with that part of the
+ * content only, unless {@code If-Range} says that the client has another
+ * version of the attachment. A range starting after the end of the
+ * content gets 416. Other ranges, including invalid ones, like
+ * {@code bytes=500-100}, are ignored and the entire content is returned,
+ * as RFC 7233 requires.
+ *
+ * <p>When the attachment gives a direct link to the storage, the browser
+ * is redirected there and downloads the content, or its range, straight
+ * from it, see {@link Attachment#direct()}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.14
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 final class TkDownload implements Take {
 
+    /**
+     * Single byte range.
+     */
+    private static final Pattern RANGE = Pattern.compile(
+        "bytes=(?!-$)(\\d{0,18})-(\\d{0,18})"
+    );
+
+    /**
+     * HTTP status of partial content.
+     */
+    private static final int PARTIAL = 206;
+
+    /**
+     * HTTP status of a range that can't be satisfied.
+     */
+    private static final int UNSATISFIABLE = 416;
+
     /**
      * Base.
      */
@@ -66,16 +103,119 @@ final class TkDownload implements Take {
         final Attachment attachment = bout.attachments().get(
             new RqHref.Smart(new RqHref.Base(req)).single("name")
         );
-        return new RsFluent()
-            .withBody(attachment.read())
+        final RqHeaders.Smart headers = new RqHeaders.Smart(
+            new RqHeaders.Base(req)
+        );
+        final String etag = attachment.etag();
+        final String tag = String.format("\"%s\"", etag);
+        final Matcher range = TkDownload.RANGE.matcher(
+            headers.single("Range", "")
+        );
+        final Response response;
+        if (!etag.isEmpty()
+            && headers.single("If-None-Match", "").contains(tag)) {
+            response = new RsWithStatus(HttpURLConnection.HTTP_NOT_MODIFIED);
+        } else {
+            final String direct = attachment.direct();
+            if (!direct.isEmpty()) {
+                response = new RsFluent(
+                    new RsWithStatus(
+                        new RsEmpty(), HttpURLConnection.HTTP_SEE_OTHER
+                    )
+                ).withHeader("Location", direct);
+            } else if (range.matches() && TkDownload.valid(range)
+                && tag.equals(headers.single("If-Range", tag))) {
+                response = TkDownload.partial(attachment, range);
+            } else {
+                response = new RsFluent()
+                    .withBody(attachment.read())
+                    .withType(attachment.ctype());
+            }
+        }
+        RsFluent fluent = new RsFluent(response)
+            .withHeader("Accept-Ranges", "bytes")
             .withHeader(
                 "Content-Disposition",
                 String.format(
                     "attachment; filename=\"%s\"",
                     URLEncoder.encode(attachment.name(), CharEncoding.UTF_8)
                 )
+            );
+        if (!etag.isEmpty()) {
+            fluent = fluent.withHeader("ETag", tag);
+        }
+        return fluent;
+    }
+
+    /**
+     * Part of the attachment.
+     * @param attachment The attachment
+     * @param range Matched range from the request
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response partial(final Attachment attachment,
+        final Matcher range) throws IOException {
+        final long size = attachment.size();
+        final long first;
+        final long last;
+        if (range.group(1).isEmpty()) {
+            first = Math.max(0L, size - TkDownload.number(range.group(2)));
+            last = size - 1L;
+        } else {
+            first = Long.parseLong(range.group(1));
+            last = Math.min(size - 1L, TkDownload.number(range.group(2)));
+        }
+        final Response response;
+        if (first > last) {
+            response = new RsFluent(
+                new RsWithStatus(
+                    new RsEmpty(), TkDownload.UNSATISFIABLE,
+                    "Requested Range Not Satisfiable"
+                )
+            ).withHeader("Content-Range", String.format("bytes */%d", size));
+        } else {
+            response = new RsFluent(
+                new RsWithStatus(
+                    new RsEmpty(), TkDownload.PARTIAL, "Partial Content"
+                )
             )
-            .withType(attachment.ctype());
+                .withBody(attachment.read(first, last - first + 1L))
+                .withType(attachment.ctype())
+                .withHeader(
+                    "Content-Range",
+                    String.format("bytes %d-%d/%d", first, last, size)
+                )
+                .withHeader(
+                    "Content-Length", Long.toString(last - first + 1L)
+                );
+        }
+        return response;
+    }
+
+    /**
+     * Is it a valid range, which doesn't end before it starts?
+     * @param range Matched range from the request
+     * @return TRUE if valid
+     */
+    private static boolean valid(final Matcher range) {
+        return range.group(1).isEmpty() || range.group(2).isEmpty()
+            || Long.parseLong(range.group(1)) <= Long.parseLong(range.group(2));
+    }
+
+    /**
+     * Number from the range, or the biggest one, if it's absent.
+     * @param text Text from the range
+     * @return Number
+     */
+    private static long number(final String text) {
+        final long num;
+        if (text.isEmpty()) {
+            num = Long.MAX_VALUE;
+        } else {
+            num = Long.parseLong(text);
+        }
+        return num;
     }
 
 }
@@ -144,6 +144,11 @@ final class TkIndex implements Take {
             new XeLink("invite", home.path("invite")),
             new XeLink("search", home.path("search")),
             new XeLink("upload", home.path("upload")),
+            new XeLink("begin", home.path("begin")),
+            new XeLink("part", home.path("part")),
+            new XeLink("direct", home.path("direct")),
+            new XeLink("complete", home.path("complete")),
+            new XeLink("abort", home.path("abort")),
             new XeLink("create", home.path("create")),
             new XeLink("attach", home.path("attach")),
             new XeLink("subscribe", home.path("subscribe"))
@@ -26,13 +26,10 @@
  */
 package com.netbout.rest.bout;
 
-import com.netbout.rest.Markdown;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Bout;
 import java.io.IOException;
 import java.util.Iterator;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.CharEncoding;
 import org.takes.Request;
 import org.takes.misc.Href;
 import org.takes.rq.RqHref;
@@ -109,6 +106,17 @@ final class XeAttachment extends XeWrap {
                     .path("download")
                     .with(name, atmt.name())
             ),
+            new XeWhen(
+                atmt.ctype().matches(Attachment.THUMBNAILS),
+                new XeLink(
+                    "thumbnail",
+                    new Href().path("b")
+                        .path(bout.number())
+                        .path("thumbnail")
+                        .with(name, atmt.name())
+                        .with("etag", atmt.etag())
+                )
+            ),
             new XeWhen(
                 atmt.ctype().equals(Attachment.MARKDOWN),
                 new XeLink(
@@ -126,12 +134,7 @@ final class XeAttachment extends XeWrap {
                     public Iterable<Directive> toXembly() throws IOException {
                         return new Directives().add("html").set(
                             Xembler.escape(
-                                new Markdown(
-                                    IOUtils.toString(
-                                        atmt.read(),
-                                        CharEncoding.UTF_8
-                                    )
-                                ).html()
+                                new Rendered(bout.number(), atmt).html()
                             )
                         );
                     }
@@ -208,6 +208,11 @@
                 <ul>
                     <xsl:for-each select="$files">
                         <li>
+                            <xsl:if test="links/link[@rel='thumbnail']">
+                                <a href="{links/link[@rel='download']/@href}">
+                                    <img src="{links/link[@rel='thumbnail']/@href}" alt="{name}" class="thumbnail"/>
+                                </a>
+                            </xsl:if>
                             <a href="{links/link[@rel='download']/@href}">
                                 <xsl:value-of select="name"/>
                             </a>
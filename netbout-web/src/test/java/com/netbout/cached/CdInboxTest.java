@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import com.netbout.spi.Attachments;
+import com.netbout.spi.Bout;
+import com.netbout.spi.Friend;
+import com.netbout.spi.Friends;
+import com.netbout.spi.Inbox;
+import com.netbout.spi.Messages;
+import java.util.Collections;
+import java.util.Date;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link CdInbox}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class CdInboxTest {
+
+    /**
+     * CdInbox can cache the first page and flush it on post.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void flushesFirstPageOnPost() throws Exception {
+        final Friend friend = Mockito.mock(Friend.class);
+        Mockito.doReturn("bob").when(friend).alias();
+        final Friends friends = Mockito.mock(Friends.class);
+        Mockito.doReturn(Collections.singletonList(friend))
+            .when(friends).iterate();
+        final Bout bout = Mockito.mock(Bout.class);
+        Mockito.doReturn((long) Tv.NINE).when(bout).number();
+        Mockito.doReturn("hey").when(bout).title();
+        Mockito.doReturn(new Date()).when(bout).updated();
+        Mockito.doReturn(Mockito.mock(Messages.class)).when(bout).messages();
+        Mockito.doReturn(Mockito.mock(Attachments.class))
+            .when(bout).attachments();
+        Mockito.doReturn(friends).when(bout).friends();
+        final Inbox origin = Mockito.mock(Inbox.class);
+        Mockito.doReturn(Collections.singletonList(bout))
+            .when(origin).iterate();
+        final Inbox inbox = new CdInbox(origin, "bob");
+        inbox.iterate();
+        MatcherAssert.assertThat(
+            inbox.iterate().iterator().next().title(),
+            Matchers.equalTo("hey")
+        );
+        Mockito.verify(origin, Mockito.times(1)).iterate();
+        inbox.iterate().iterator().next().messages().post("hello");
+        inbox.iterate();
+        Mockito.verify(origin, Mockito.times(2)).iterate();
+    }
+
+}
@@ -26,8 +26,15 @@
  */
 package com.netbout.cached;
 
+import com.netbout.spi.Bout;
+import com.netbout.spi.Friends;
+import com.netbout.spi.Inbox;
+import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
+import com.netbout.spi.Pageable;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -49,7 +56,9 @@ public final class CdMessagesTest {
     public void flushesUnreadNumber() throws Exception {
         final Messages origin = Mockito.mock(Messages.class);
         Mockito.doReturn(1L).doReturn(2L).when(origin).unread();
-        final Messages messages = new CdMessages(origin);
+        final Messages messages = new CdMessages(
+            origin, new CdBout(Mockito.mock(Bout.class), "jeff")
+        );
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(1L));
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(1L));
         Mockito.doReturn(Collections.emptyList()).when(origin).iterate();
@@ -57,4 +66,59 @@ public final class CdMessagesTest {
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(2L));
     }
 
+    /**
+     * CdMessages can cache old pages forever and the latest one till post.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void cachesPagesOfMessages() throws Exception {
+        final Messages origin = Mockito.mock(Messages.class);
+        Mockito.doReturn(
+            Collections.singletonList(CdMessagesTest.message(2L + 2L))
+        ).when(origin).iterate();
+        final AtomicInteger reads = new AtomicInteger();
+        final Pageable<?> old = Mockito.mock(Pageable.class);
+        Mockito.doReturn(
+            new Iterable<Message>() {
+                @Override
+                public Iterator<Message> iterator() {
+                    reads.incrementAndGet();
+                    return Collections.singletonList(
+                        CdMessagesTest.message(1L)
+                    ).iterator();
+                }
+            }
+        ).when(old).iterate();
+        Mockito.doReturn(old).when(origin).jump(2L);
+        Mockito.doReturn(old).when(origin).jump(Inbox.NEVER);
+        final Friends friends = Mockito.mock(Friends.class);
+        Mockito.doReturn(Collections.emptyList()).when(friends).iterate();
+        final Bout bout = Mockito.mock(Bout.class);
+        Mockito.doReturn(friends).when(bout).friends();
+        final Messages messages = new CdMessages(
+            origin, new CdBout(bout, "jeff")
+        );
+        MatcherAssert.assertThat(
+            messages.jump(2L).iterate().iterator().next().number(),
+            Matchers.equalTo(1L)
+        );
+        messages.post("hi there");
+        messages.jump(2L).iterate();
+        messages.jump(Inbox.NEVER).iterate();
+        MatcherAssert.assertThat(reads.get(), Matchers.equalTo(1));
+        Mockito.verify(origin, Mockito.times(2)).iterate();
+    }
+
+    /**
+     * Make a message.
+     * @param number Its number
+     * @return Message
+     * @throws Exception If there is some problem inside
+     */
+    private static Message message(final long number) throws Exception {
+        final Message message = Mockito.mock(Message.class);
+        Mockito.doReturn(number).when(message).number();
+        return message;
+    }
+
 }
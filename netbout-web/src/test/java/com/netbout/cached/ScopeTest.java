@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Scope}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class ScopeTest {
+
+    /**
+     * Scope can load every value only once, even if the store can't keep it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void loadsValuesOnlyOnce() throws Exception {
+        final Store store = new Store(1L);
+        final AtomicLong loads = new AtomicLong();
+        final Store.Load<Long> load = new Store.Load<Long>() {
+            @Override
+            public Long load() throws IOException {
+                return loads.incrementAndGet();
+            }
+        };
+        final Scope scope = new Scope();
+        scope.run(
+            new Scope.Body<Long>() {
+                @Override
+                public Long run() throws IOException {
+                    store.get("bout:7", "title", Store.HOURS, load);
+                    return store.get("bout:7", "title", Store.HOURS, load);
+                }
+            }
+        );
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(scope.saved(), Matchers.equalTo(1));
+    }
+
+}
@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import com.netbout.spi.Message;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Store}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class StoreTest {
+
+    /**
+     * Store can flush entries of one tag only.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void flushesEntriesOfOneTag() throws Exception {
+        final Store store = new Store((long) Tv.MILLION);
+        final AtomicLong loads = new AtomicLong();
+        final Store.Load<Long> load = new Store.Load<Long>() {
+            @Override
+            public Long load() throws IOException {
+                return loads.incrementAndGet();
+            }
+        };
+        store.get("bout:1", "first", Store.HOURS, load);
+        store.get("bout:2", "second", Store.HOURS, load);
+        store.flush("bout:1");
+        MatcherAssert.assertThat(
+            store.get("bout:1", "first", Store.HOURS, load),
+            Matchers.equalTo(2L + 1L)
+        );
+        MatcherAssert.assertThat(
+            store.get("bout:2", "second", Store.HOURS, load),
+            Matchers.equalTo(2L)
+        );
+        MatcherAssert.assertThat(store.hits(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(store.misses(), Matchers.equalTo(2L + 1L));
+    }
+
+    /**
+     * Store can flush entries of other stores connected to the same bus.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void flushesEntriesThroughBus() throws Exception {
+        final Bus bus = new Bus.Local();
+        final Store first = new Store((long) Tv.MILLION);
+        final Store second = new Store((long) Tv.MILLION);
+        first.connect(bus);
+        second.connect(bus);
+        final AtomicLong loads = new AtomicLong();
+        final Store.Load<Long> load = new Store.Load<Long>() {
+            @Override
+            public Long load() throws IOException {
+                return loads.incrementAndGet();
+            }
+        };
+        second.get("alias:jeff", "photo", Store.HOURS, load);
+        first.flush("alias:jeff");
+        MatcherAssert.assertThat(
+            second.get("alias:jeff", "photo", Store.HOURS, load),
+            Matchers.equalTo(2L)
+        );
+    }
+
+    /**
+     * Store can remember that the value is not found.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void remembersAbsentValues() throws Exception {
+        final Store store = new Store((long) Tv.MILLION);
+        final AtomicLong loads = new AtomicLong();
+        final Store.Load<String> load = new Store.Load<String>() {
+            @Override
+            public String load() throws IOException {
+                loads.incrementAndGet();
+                throw new FileNotFoundException("not found");
+            }
+        };
+        for (int idx = 0; idx < Tv.FIVE; ++idx) {
+            try {
+                store.get(
+                    "bout:3", "absent", Store.HOURS, load,
+                    FileNotFoundException.class
+                );
+            } catch (final FileNotFoundException ex) {
+                MatcherAssert.assertThat(
+                    ex.getMessage(), Matchers.equalTo("not found")
+                );
+            }
+        }
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(1L));
+    }
+
+    /**
+     * Store can forget failures reported as absent values.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void forgetsAbsentValuesWithCause() throws Exception {
+        final Store store = new Store((long) Tv.MILLION);
+        final AtomicLong loads = new AtomicLong();
+        final Store.Load<String> load = new Store.Load<String>() {
+            @Override
+            public String load() throws IOException {
+                loads.incrementAndGet();
+                final FileNotFoundException ex =
+                    new FileNotFoundException("failed");
+                ex.initCause(new IOException("throttled"));
+                throw ex;
+            }
+        };
+        for (int idx = 0; idx < Tv.FIVE; ++idx) {
+            try {
+                store.get(
+                    "bout:4", "failed", Store.HOURS, load,
+                    FileNotFoundException.class
+                );
+            } catch (final FileNotFoundException ex) {
+                MatcherAssert.assertThat(
+                    ex.getMessage(), Matchers.equalTo("failed")
+                );
+            }
+        }
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo((long) Tv.FIVE));
+    }
+
+    /**
+     * Store can skip values, which were loading while their tag was
+     * flushed.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsValuesLoadedDuringFlush() throws Exception {
+        final Store store = new Store((long) Tv.MILLION);
+        final AtomicLong loads = new AtomicLong();
+        final Store.Load<Long> load = new Store.Load<Long>() {
+            @Override
+            public Long load() {
+                final long num = loads.incrementAndGet();
+                if (num == 1L) {
+                    store.flush("bout:5");
+                }
+                return num;
+            }
+        };
+        MatcherAssert.assertThat(
+            store.get("bout:5", "flushed", Store.HOURS, load),
+            Matchers.equalTo(1L)
+        );
+        for (int idx = 0; idx < Tv.THREE; ++idx) {
+            MatcherAssert.assertThat(
+                store.get("bout:5", "flushed", Store.HOURS, load),
+                Matchers.equalTo(2L)
+            );
+        }
+        store.flush("bout:5");
+        MatcherAssert.assertThat(
+            store.get("bout:5", "flushed", Store.HOURS, load),
+            Matchers.equalTo((long) Tv.THREE)
+        );
+    }
+
+    /**
+     * Store can load the value only once, when many threads miss it.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void loadsOnceForConcurrentMisses() throws Exception {
+        final Store store = new Store((long) Tv.MILLION);
+        final AtomicLong loads = new AtomicLong();
+        final Store.Load<Long> load = new Store.Load<Long>() {
+            @Override
+            public Long load() throws IOException {
+                try {
+                    TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ex);
+                }
+                return loads.incrementAndGet();
+            }
+        };
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService service = Executors.newFixedThreadPool(Tv.TEN);
+        final Collection<Future<Long>> futures =
+            new ArrayList<Future<Long>>(Tv.TEN);
+        for (int idx = 0; idx < Tv.TEN; ++idx) {
+            futures.add(
+                service.submit(
+                    new Callable<Long>() {
+                        @Override
+                        public Long call() throws Exception {
+                            start.await();
+                            return store.get(
+                                "bout:4", "cold", Store.HOURS, load
+                            );
+                        }
+                    }
+                )
+            );
+        }
+        start.countDown();
+        for (final Future<Long> future : futures) {
+            MatcherAssert.assertThat(future.get(), Matchers.equalTo(1L));
+        }
+        service.shutdown();
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(1L));
+    }
+
+    /**
+     * Store can evict entries when they are too heavy.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void evictsHeavyEntries() throws Exception {
+        final Store store = new Store((long) Tv.THOUSAND);
+        for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+            store.get(
+                "bout:1", idx, Store.HOURS,
+                new Store.Load<String>() {
+                    @Override
+                    public String load() {
+                        return "some text, which is long enough";
+                    }
+                }
+            );
+        }
+        MatcherAssert.assertThat(
+            store.evictions(), Matchers.greaterThan(0L)
+        );
+    }
+
+    /**
+     * Store can forget tags of evicted entries.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void forgetsTagsOfEvictedEntries() throws Exception {
+        final Store store = new Store((long) Tv.THOUSAND);
+        for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+            store.get(
+                String.format("bout:%d", idx), idx, Store.HOURS,
+                new Store.Load<String>() {
+                    @Override
+                    public String load() {
+                        return "some text, which is long enough";
+                    }
+                }
+            );
+        }
+        MatcherAssert.assertThat(
+            store.tags(), Matchers.lessThan(Tv.HUNDRED)
+        );
+    }
+
+    /**
+     * Store can weigh messages by their texts.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void weighsMessagesByText() throws Exception {
+        final Store store = new Store((long) Tv.THOUSAND);
+        final Message message = Mockito.mock(Message.class);
+        Mockito.doReturn(StringUtils.repeat('x', Tv.THOUSAND))
+            .when(message).text();
+        Mockito.doReturn("jeff").when(message).author();
+        store.get(
+            "bout:1", "message", Store.HOURS,
+            new Store.Load<Message>() {
+                @Override
+                public Message load() {
+                    return message;
+                }
+            }
+        );
+        MatcherAssert.assertThat(
+            store.evictions(), Matchers.greaterThan(0L)
+        );
+    }
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.urn.URN;
+import com.netbout.spi.Aliases;
+import com.netbout.spi.Base;
+import com.netbout.spi.User;
+import java.io.File;
+import java.util.Collections;
+import org.apache.commons.codec.CharEncoding;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Warmup}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class WarmupTest {
+
+    /**
+     * Temporary folder.
+     * @checkstyle VisibilityModifierCheck (3 lines)
+     */
+    @Rule
+    public final transient TemporaryFolder temp = new TemporaryFolder();
+
+    /**
+     * Warmup can save the most active users first.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void savesMostActiveUsers() throws Exception {
+        final Warmup warmup = new Warmup(1, Tv.TEN);
+        final User user = WarmupTest.user();
+        warmup.user(user, URN.create("urn:test:8"));
+        warmup.user(user, URN.create("urn:test:7"));
+        warmup.user(user, URN.create("urn:test:7"));
+        final File file = this.temp.newFile();
+        warmup.save(file);
+        MatcherAssert.assertThat(
+            FileUtils.readLines(file, CharEncoding.UTF_8),
+            Matchers.contains("urn:test:7", "urn:test:8")
+        );
+    }
+
+    /**
+     * Warmup can warm the cache up for saved users.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void replaysSavedUsers() throws Exception {
+        final File file = this.temp.newFile();
+        FileUtils.write(file, "urn:test:9\n", CharEncoding.UTF_8);
+        final Base base = Mockito.mock(Base.class);
+        final User user = WarmupTest.user();
+        Mockito.doReturn(user).when(base).user(Mockito.any(URN.class));
+        new Warmup(1, Tv.TEN).replay(base, file);
+        Mockito.verify(base).user(URN.create("urn:test:9"));
+        Mockito.verify(user).aliases();
+    }
+
+    /**
+     * Make a user without aliases.
+     * @return User
+     * @throws Exception If there is some problem inside
+     */
+    private static User user() throws Exception {
+        final Aliases aliases = Mockito.mock(Aliases.class);
+        Mockito.doReturn(Collections.emptyList()).when(aliases).iterate();
+        final User user = Mockito.mock(User.class);
+        Mockito.doReturn(aliases).when(user).aliases();
+        return user;
+    }
+
+}
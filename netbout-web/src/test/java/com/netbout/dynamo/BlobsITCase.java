@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.UUID;
+import org.apache.commons.codec.CharEncoding;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link Blobs}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class BlobsITCase {
+
+    /**
+     * Blobs can store the same content once and remove it with the last
+     * reference.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sharesBlobOfSameContent() throws Exception {
+        final Bucket bucket = DyAttachment.storage();
+        final Blobs blobs = new Blobs(DyBase.connect(), bucket);
+        final byte[] content = UUID.randomUUID().toString()
+            .getBytes(CharEncoding.UTF_8);
+        final String key = blobs.upload(
+            new ByteArrayInputStream(content), "text/plain"
+        );
+        MatcherAssert.assertThat(
+            blobs.upload(new ByteArrayInputStream(content), "text/plain"),
+            Matchers.equalTo(key)
+        );
+        final Ocket ocket = bucket.ocket(key);
+        blobs.release(key);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ocket.read(baos);
+        MatcherAssert.assertThat(baos.toByteArray(), Matchers.equalTo(content));
+        blobs.release(key);
+        MatcherAssert.assertThat(ocket.exists(), Matchers.is(false));
+    }
+
+}
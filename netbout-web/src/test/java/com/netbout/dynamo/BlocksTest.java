@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.jcabi.aspects.Tv;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Blocks}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class BlocksTest {
+
+    /**
+     * Blocks can give out numbers one by one.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesOutNumbersOneByOne() throws Exception {
+        final Counter origin = new BlocksTest.Memory();
+        final Counter counter = new Blocks(origin, (long) Tv.TEN);
+        for (long idx = 1L; idx <= (long) Tv.TWENTY; ++idx) {
+            MatcherAssert.assertThat(
+                counter.incrementAndGet(1L),
+                Matchers.equalTo(idx)
+            );
+        }
+        MatcherAssert.assertThat(
+            origin.incrementAndGet(0L),
+            Matchers.lessThanOrEqualTo((long) Tv.THIRTY)
+        );
+    }
+
+    /**
+     * Blocks can give out unique numbers to many threads.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesOutUniqueNumbersInManyThreads() throws Exception {
+        final Counter counter = new Blocks(
+            new BlocksTest.Memory(), (long) Tv.SEVEN
+        );
+        final int threads = Tv.TEN;
+        final ExecutorService svc = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final Set<Long> numbers = new ConcurrentSkipListSet<Long>();
+        final Collection<Future<?>> futures = new ArrayList<Future<?>>(threads);
+        for (int thread = 0; thread < threads; ++thread) {
+            futures.add(
+                svc.submit(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            start.await();
+                            for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+                                numbers.add(counter.incrementAndGet(1L));
+                            }
+                            return null;
+                        }
+                    }
+                )
+            );
+        }
+        start.countDown();
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        svc.shutdown();
+        MatcherAssert.assertThat(numbers, Matchers.hasSize(Tv.THOUSAND));
+    }
+
+    /**
+     * Counter in memory.
+     */
+    private static final class Memory implements Counter {
+        /**
+         * Value.
+         */
+        private final transient AtomicLong value = new AtomicLong();
+        @Override
+        public String name() {
+            return "memory";
+        }
+        @Override
+        public void set(final long val) {
+            this.value.set(val);
+        }
+        @Override
+        public long incrementAndGet(final long delta) {
+            return this.value.addAndGet(delta);
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.Region;
+import com.jcabi.s3.mock.MkRegion;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.apache.commons.codec.CharEncoding;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Download}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class DownloadTest {
+
+    /**
+     * Download can read the entire ocket from the S3 stand-in.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsEntireOcket() throws Exception {
+        final byte[] data = new byte[Tv.MILLION];
+        Arrays.fill(data, (byte) Tv.SEVEN);
+        final Ocket ocket = new MkRegion().bucket("test").ocket("a.bin");
+        ocket.write(new ByteArrayInputStream(data), new ObjectMetadata());
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(new Download(ocket)),
+            Matchers.equalTo(data)
+        );
+    }
+
+    /**
+     * Download can read a range of the ocket from the S3 stand-in.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsRangeOfOcket() throws Exception {
+        final Ocket ocket = new MkRegion().bucket("test").ocket("b.bin");
+        ocket.write(
+            new ByteArrayInputStream("abcde".getBytes(CharEncoding.UTF_8)),
+            new ObjectMetadata()
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toString(new Download(ocket, 1L, 3L), CharEncoding.UTF_8),
+            Matchers.equalTo("bcd")
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toString(
+                new Download(ocket, 3L, (long) Tv.TEN), CharEncoding.UTF_8
+            ),
+            Matchers.equalTo("de")
+        );
+    }
+
+    /**
+     * Download can request only a range of the object from S3.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void requestsRangeFromS3() throws Exception {
+        final AmazonS3 aws = DownloadTest.aws(
+            new ByteArrayInputStream(new byte[0])
+        );
+        new Download(DownloadTest.ocket(aws), 2L, 3L).close();
+        final ArgumentCaptor<GetObjectRequest> request =
+            ArgumentCaptor.forClass(GetObjectRequest.class);
+        Mockito.verify(aws).getObject(request.capture());
+        MatcherAssert.assertThat(
+            request.getValue().getRange(),
+            Matchers.equalTo(new long[] {2L, 4L})
+        );
+    }
+
+    /**
+     * Download can stream the content straight from S3 and shut the client
+     * down when closed.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void streamsFromS3AndShutsDown() throws Exception {
+        final byte[] data = new byte[Tv.MILLION];
+        Arrays.fill(data, (byte) Tv.FIVE);
+        final AmazonS3 aws = DownloadTest.aws(new ByteArrayInputStream(data));
+        final InputStream stream = new Download(DownloadTest.ocket(aws));
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(stream),
+            Matchers.equalTo(data)
+        );
+        Mockito.verify(aws, Mockito.never()).shutdown();
+        stream.close();
+        Mockito.verify(aws).shutdown();
+    }
+
+    /**
+     * Download can report a broken download.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = IOException.class)
+    public void reportsBrokenDownload() throws Exception {
+        IOUtils.toByteArray(
+            new Download(
+                DownloadTest.ocket(
+                    DownloadTest.aws(
+                        new InputStream() {
+                            @Override
+                            public int read() throws IOException {
+                                throw new IOException("connection reset");
+                            }
+                        }
+                    )
+                )
+            )
+        );
+    }
+
+    /**
+     * Mock S3 client, which returns the given content.
+     * @param content Content of the object
+     * @return Client
+     */
+    private static AmazonS3 aws(final InputStream content) {
+        final S3Object object = new S3Object();
+        object.setObjectContent(content);
+        final AmazonS3 aws = Mockito.mock(AmazonS3.class);
+        Mockito.doReturn(object).when(aws)
+            .getObject(Mockito.any(GetObjectRequest.class));
+        return aws;
+    }
+
+    /**
+     * Mock ocket in a real S3 region.
+     * @param aws S3 client
+     * @return Ocket
+     */
+    private static Ocket ocket(final AmazonS3 aws) {
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(aws).when(region).aws();
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        Mockito.doReturn(region).when(bucket).region();
+        Mockito.doReturn("test").when(bucket).name();
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        Mockito.doReturn(bucket).when(ocket).bucket();
+        Mockito.doReturn("a.bin").when(ocket).key();
+        return ocket;
+    }
+
+}
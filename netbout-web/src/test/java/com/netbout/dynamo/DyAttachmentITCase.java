@@ -31,10 +31,21 @@ import com.jcabi.urn.URN;
 import com.netbout.spi.Aliases;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Attachments;
+import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.ws.rs.core.MediaType;
+import org.apache.commons.codec.CharEncoding;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -84,4 +95,95 @@ public final class DyAttachmentITCase {
         );
     }
 
+    /**
+     * DyAttachment can save and load content, which doesn't compress.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void savesAndLoadsIncompressibleContent() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:89638")).aliases();
+        aliases.add("henrietta");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        final Attachments attachments = bout.attachments();
+        final String name = "random.bin";
+        attachments.create(name);
+        final byte[] bytes = new byte[Tv.HUNDRED * Tv.THOUSAND];
+        new Random().nextBytes(bytes);
+        attachments.get(name).write(
+            new ByteArrayInputStream(bytes),
+            MediaType.APPLICATION_OCTET_STREAM,
+            "random"
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(attachments.get(name).read()),
+            Matchers.equalTo(bytes)
+        );
+    }
+
+    /**
+     * DyAttachment can track unseen attachments uploaded concurrently.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void tracksUnseenUnderConcurrentUploads() throws Exception {
+        final Base base = new DyBase();
+        final Aliases first = base.user(new URN("urn:test:89636")).aliases();
+        first.add("gregory");
+        final String alias = "margaret";
+        final Aliases second = base.user(new URN("urn:test:89637")).aliases();
+        second.add(alias);
+        final Inbox inbox = first.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        bout.friends().invite(alias);
+        final int threads = Tv.TWENTY;
+        final ExecutorService svc = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final Collection<Future<?>> futures = new ArrayList<Future<?>>(threads);
+        for (int idx = 0; idx < threads; ++idx) {
+            final String name = String.format("file-%d", idx);
+            futures.add(
+                svc.submit(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            start.await();
+                            final Attachments attachments =
+                                bout.attachments();
+                            attachments.create(name);
+                            attachments.get(name).write(
+                                new ByteArrayInputStream(
+                                    name.getBytes(CharEncoding.UTF_8)
+                                ),
+                                MediaType.TEXT_PLAIN,
+                                name
+                            );
+                            return null;
+                        }
+                    }
+                )
+            );
+        }
+        start.countDown();
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        svc.shutdown();
+        MatcherAssert.assertThat(
+            "fan-out is not done",
+            Fanout.INSTANCE.await(TimeUnit.MINUTES.toMillis(1L))
+        );
+        final Attachments attachments = second.iterate().iterator().next()
+            .inbox().bout(bout.number()).attachments();
+        MatcherAssert.assertThat(
+            attachments.unseen(),
+            Matchers.equalTo(threads)
+        );
+        MatcherAssert.assertThat(
+            attachments.get("file-0").unseen(),
+            Matchers.is(true)
+        );
+    }
+
 }
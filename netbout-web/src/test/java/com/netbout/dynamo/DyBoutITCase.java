@@ -28,8 +28,12 @@ package com.netbout.dynamo;
 
 import com.jcabi.urn.URN;
 import com.netbout.spi.Aliases;
+import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.core.MediaType;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -80,4 +84,44 @@ public final class DyBoutITCase {
         );
     }
 
+    /**
+     * DyBout can show unread messages and unseen attachments.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void showsUnreadAndUnseen() throws Exception {
+        final Base base = new DyBase();
+        final Aliases first = base.user(new URN("urn:test:891")).aliases();
+        first.add("walter");
+        final String alias = "judith";
+        final Aliases second = base.user(new URN("urn:test:892")).aliases();
+        second.add(alias);
+        final Inbox mine = first.iterate().iterator().next().inbox();
+        final Bout bout = mine.bout(mine.start());
+        bout.friends().invite(alias);
+        bout.messages().post("how are you?");
+        final String name = "report.txt";
+        bout.attachments().create(name);
+        bout.attachments().get(name).write(
+            new ByteArrayInputStream(new byte[] {(byte) 1}),
+            MediaType.TEXT_PLAIN,
+            "1"
+        );
+        MatcherAssert.assertThat(
+            "fan-out is not done",
+            Fanout.INSTANCE.await(TimeUnit.MINUTES.toMillis(1L))
+        );
+        final Bout his = second.iterate().iterator().next().inbox()
+            .bout(bout.number());
+        MatcherAssert.assertThat(his.messages().unread(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(
+            his.attachments().unseen(),
+            Matchers.equalTo(1)
+        );
+        MatcherAssert.assertThat(
+            his.attachments().get(name).unseen(),
+            Matchers.is(true)
+        );
+    }
+
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.netbout.cached.Bus;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link DyBus}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class DyBusITCase {
+
+    /**
+     * DyBus can deliver tags published by another node.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deliversTagsToOtherNodes() throws Exception {
+        final DyBus first = new DyBus(DyBase.connect(), 1L);
+        final DyBus second = new DyBus(DyBase.connect(), 1L);
+        final Set<String> mine = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+        final Set<String> theirs = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+        first.listen(
+            new Bus.Listener() {
+                @Override
+                public void flushed(final String tag) {
+                    mine.add(tag);
+                }
+            }
+        );
+        second.listen(
+            new Bus.Listener() {
+                @Override
+                public void flushed(final String tag) {
+                    theirs.add(tag);
+                }
+            }
+        );
+        for (int idx = 0; idx < Tv.HUNDRED * 2; ++idx) {
+            first.publish(String.format("bout:%d", idx));
+        }
+        for (int idx = 0; idx < Tv.TWENTY && theirs.size() < Tv.HUNDRED * 2;
+            ++idx) {
+            TimeUnit.SECONDS.sleep(1L);
+        }
+        MatcherAssert.assertThat(theirs, Matchers.hasSize(Tv.HUNDRED * 2));
+        MatcherAssert.assertThat(mine, Matchers.empty());
+    }
+
+}
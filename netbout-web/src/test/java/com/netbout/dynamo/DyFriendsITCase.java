@@ -27,11 +27,13 @@
 package com.netbout.dynamo;
 
 import com.jcabi.urn.URN;
+import com.netbout.spi.Alias;
 import com.netbout.spi.Aliases;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import com.netbout.spi.Inbox;
+import java.net.URI;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -66,4 +68,24 @@ public final class DyFriendsITCase {
         );
     }
 
+    /**
+     * DyFriends can list friends with their photos.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void listsFriendsWithPhotos() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:8531")).aliases();
+        aliases.add("laura");
+        final Alias alias = aliases.iterate().iterator().next();
+        final URI photo = new URI("http://img.netbout.com/laura.png");
+        alias.photo(photo);
+        final Inbox inbox = alias.inbox();
+        final Friends friends = inbox.bout(inbox.start()).friends();
+        MatcherAssert.assertThat(
+            friends.iterate().iterator().next().photo(),
+            Matchers.equalTo(photo)
+        );
+    }
+
 }
@@ -29,6 +29,7 @@ package com.netbout.dynamo;
 import com.jcabi.aspects.Tv;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Aliases;
+import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
@@ -64,7 +65,7 @@ public final class DyInboxITCase {
         final Bout second = inbox.bout(inbox.start());
         first.messages().post("hello");
         second.messages().post("world");
-        final Iterator<Bout> result = inbox.search("ell").iterator();
+        final Iterator<Bout> result = inbox.search("hel").iterator();
         MatcherAssert.assertThat(
             "search result is empty",
             result.hasNext()
@@ -79,6 +80,66 @@ public final class DyInboxITCase {
         );
     }
 
+    /**
+     * DyInbox can search in bouts it was invited to.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void searchesInInvitedBouts() throws Exception {
+        final Base base = new DyBase();
+        final Aliases first = base.user(new URN("urn:test:88315")).aliases();
+        first.add("oliver");
+        final String alias = "peter";
+        final Aliases second = base.user(new URN("urn:test:88316")).aliases();
+        second.add(alias);
+        final Inbox mine = first.iterate().iterator().next().inbox();
+        final Bout bout = mine.bout(mine.start());
+        bout.messages().post("secret plans");
+        final Inbox inbox = second.iterate().iterator().next().inbox();
+        final String term = "secr";
+        MatcherAssert.assertThat(
+            inbox.search(term),
+            Matchers.emptyIterable()
+        );
+        bout.friends().invite(alias);
+        MatcherAssert.assertThat(
+            inbox.search(term).iterator().next().number(),
+            Matchers.equalTo(bout.number())
+        );
+        bout.friends().kick(alias);
+        MatcherAssert.assertThat(
+            inbox.search(term),
+            Matchers.emptyIterable()
+        );
+    }
+
+    /**
+     * DyInbox can search in messages posted by friends.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void searchesInMessagesOfFriends() throws Exception {
+        final Base base = new DyBase();
+        final Aliases first = base.user(new URN("urn:test:88317")).aliases();
+        first.add("sebastian");
+        final String alias = "veronica";
+        final Aliases second = base.user(new URN("urn:test:88318")).aliases();
+        second.add(alias);
+        final Inbox mine = first.iterate().iterator().next().inbox();
+        final Bout bout = mine.bout(mine.start());
+        bout.friends().invite(alias);
+        bout.messages().post("quarterly report");
+        MatcherAssert.assertThat(
+            "fan-out is not done",
+            Fanout.INSTANCE.await(TimeUnit.MINUTES.toMillis(1L))
+        );
+        MatcherAssert.assertThat(
+            second.iterate().iterator().next().inbox().search("quart")
+                .iterator().next().number(),
+            Matchers.equalTo(bout.number())
+        );
+    }
+
     /**
      * DyInbox can list bouts and create.
      * @throws Exception If there is some problem inside
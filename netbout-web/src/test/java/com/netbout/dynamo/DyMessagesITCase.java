@@ -113,7 +113,8 @@ public final class DyMessagesITCase {
         // @checkstyle MultipleStringLiteralsCheck (1 line)
         bout.messages().post("world");
         bout.messages().post("foo");
-        final Iterator<Message> result = bout.messages().search("r").iterator();
+        final Iterator<Message> result =
+            bout.messages().search("wor").iterator();
         MatcherAssert.assertThat(
             "search result is empty",
             result.hasNext()
@@ -128,4 +129,79 @@ public final class DyMessagesITCase {
             !result.hasNext()
         );
     }
+
+    /**
+     * DyMessages can match short terms only exactly.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void matchesShortTermsExactly() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:8831418")).aliases();
+        aliases.add("vasilisa");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        bout.messages().post("golf");
+        bout.messages().post("go");
+        final Iterator<Message> result =
+            bout.messages().search("go").iterator();
+        MatcherAssert.assertThat(
+            result.next().text(),
+            Matchers.equalTo("go")
+        );
+        MatcherAssert.assertThat(
+            "short term matched a longer one",
+            !result.hasNext()
+        );
+    }
+
+    /**
+     * DyMessages can search in messages older than the given one.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void searchesBeforeMessage() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:8831419")).aliases();
+        aliases.add("octavia");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Messages messages = inbox.bout(inbox.start()).messages();
+        final int total = Tv.TWENTY;
+        for (int idx = 0; idx < total; ++idx) {
+            messages.post(String.format("budget %d", idx));
+        }
+        final long last = messages.iterate().iterator().next().number();
+        MatcherAssert.assertThat(
+            Messages.class.cast(messages.jump(last)).search("budg")
+                .iterator().next().text(),
+            Matchers.equalTo(String.format("budget %d", total - 2))
+        );
+    }
+
+    /**
+     * DyMessages can search for a few words at once.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void searchesForFewWords() throws Exception {
+        final String alias = "alfred";
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:8831416")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        bout.messages().post("Hello, dear Friend!");
+        bout.messages().post("hello, world");
+        bout.messages().post("my friends are here");
+        final Iterator<Message> result =
+            bout.messages().search("FRIEND hel").iterator();
+        MatcherAssert.assertThat(
+            result.next().text(),
+            Matchers.equalTo("Hello, dear Friend!")
+        );
+        MatcherAssert.assertThat(
+            "more results than expected",
+            !result.hasNext()
+        );
+    }
 }
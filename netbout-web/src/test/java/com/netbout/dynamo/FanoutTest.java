@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Fanout}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class FanoutTest {
+
+    /**
+     * Fanout can apply a job to all rows, in batches.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void appliesJobToAllRows() throws Exception {
+        final Region region = Mockito.mock(Region.class);
+        final Collection<Item> rows = new ArrayList<Item>(Tv.HUNDRED);
+        for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+            rows.add(
+                new Snapshot(
+                    region, DyFriends.TBL,
+                    Collections.singleton(DyFriends.RANGE),
+                    Collections.singletonMap(
+                        DyFriends.RANGE,
+                        new AttributeValue(String.format("friend%d", idx))
+                    )
+                )
+            );
+        }
+        final Set<String> done = Collections.newSetFromMap(
+            new ConcurrentHashMap<String, Boolean>(0)
+        );
+        final Fanout fanout = new Fanout(Tv.THREE, Tv.SEVEN, 2);
+        fanout.submit(
+            rows,
+            new Fanout.Job() {
+                @Override
+                public void apply(final Item row) throws IOException {
+                    done.add(row.get(DyFriends.RANGE).getS());
+                }
+            }
+        );
+        MatcherAssert.assertThat(
+            "fan-out is not done",
+            fanout.await(TimeUnit.SECONDS.toMillis((long) Tv.FIVE))
+        );
+        MatcherAssert.assertThat(done, Matchers.hasSize(Tv.HUNDRED));
+    }
+
+    /**
+     * Fanout can survive a job, which fails with a runtime exception.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void survivesRuntimeFailures() throws Exception {
+        final Item row = Mockito.mock(Item.class);
+        final Fanout fanout = new Fanout(1, 1, 1);
+        fanout.submit(
+            Collections.nCopies(Tv.THREE, row),
+            new Fanout.Job() {
+                @Override
+                public void apply(final Item item) {
+                    throw new IllegalStateException("broken row");
+                }
+            }
+        );
+        MatcherAssert.assertThat(
+            "fan-out is not done",
+            fanout.await(TimeUnit.SECONDS.toMillis((long) Tv.FIVE))
+        );
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.mock.MkRegion;
+import com.jcabi.urn.URN;
+import com.netbout.spi.Aliases;
+import com.netbout.spi.Attachment;
+import com.netbout.spi.Attachments;
+import com.netbout.spi.Inbox;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import javax.ws.rs.core.MediaType;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link Multipart}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class MultipartITCase {
+
+    /**
+     * Multipart can upload parts in any order and glue them together.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void uploadsPartsInAnyOrder() throws Exception {
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:89641")).aliases();
+        aliases.add("ophelia");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Attachments attachments =
+            inbox.bout(inbox.start()).attachments();
+        final String name = "parts.bin";
+        attachments.create(name);
+        final Attachment attachment = attachments.get(name);
+        final byte[] first = new byte[Tv.THOUSAND];
+        Arrays.fill(first, (byte) 1);
+        final byte[] second = new byte[Tv.HUNDRED];
+        Arrays.fill(second, (byte) 2);
+        final String upload = attachment.begin(
+            MediaType.APPLICATION_OCTET_STREAM
+        );
+        attachment.part(
+            upload, 2, new ByteArrayInputStream(second), (long) second.length
+        );
+        attachment.part(
+            upload, 1, new ByteArrayInputStream(first), (long) first.length
+        );
+        attachment.complete(upload, "parts");
+        final byte[] whole = new byte[first.length + second.length];
+        System.arraycopy(first, 0, whole, 0, first.length);
+        System.arraycopy(second, 0, whole, first.length, second.length);
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(attachments.get(name).read()),
+            Matchers.equalTo(whole)
+        );
+        MatcherAssert.assertThat(
+            Multipart.adopt(DyBase.connect(), DyAttachment.storage()),
+            Matchers.greaterThanOrEqualTo(1)
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(attachments.get(name).read()),
+            Matchers.equalTo(whole)
+        );
+    }
+
+    /**
+     * Multipart can abort abandoned uploads.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void sweepsAbandonedUploads() throws Exception {
+        final Bucket bucket = new MkRegion().bucket("uploads");
+        final Multipart multipart = new Multipart(
+            DyBase.connect(), bucket, 1L, "abandoned.bin"
+        );
+        final String upload = multipart.begin(
+            "abandoned", MediaType.TEXT_PLAIN, "jeremy"
+        );
+        multipart.part(
+            upload, 1, new ByteArrayInputStream(new byte[Tv.TEN]),
+            (long) Tv.TEN
+        );
+        MatcherAssert.assertThat(
+            Multipart.sweep(
+                DyBase.connect(), bucket, System.currentTimeMillis() + 1L
+            ),
+            Matchers.greaterThanOrEqualTo(1)
+        );
+        MatcherAssert.assertThat(
+            bucket.list(""),
+            Matchers.emptyIterable()
+        );
+    }
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.mock.MkRegion;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.codec.CharEncoding;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Presigned} and {@link DyStorage}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class PresignedTest {
+
+    /**
+     * Presigned can give a local link to download an object from the S3
+     * stand-in, which DyStorage accepts.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesLocalLinkToDownload() throws Exception {
+        final Bucket bucket = new MkRegion().bucket("direct");
+        final String key = "a/notes.txt";
+        bucket.ocket(key).write(
+            new ByteArrayInputStream("hello".getBytes(CharEncoding.UTF_8)),
+            new ObjectMetadata()
+        );
+        final String link = new Presigned(bucket, true).get(
+            key, "text/plain", "notes.txt"
+        );
+        MatcherAssert.assertThat(link, Matchers.startsWith(DyStorage.GET));
+        final Map<String, String> params = PresignedTest.params(link);
+        MatcherAssert.assertThat(
+            IOUtils.toString(
+                new DyStorage(bucket).read(
+                    params.get("key"), params.get("type"), params.get("name"),
+                    Long.parseLong(params.get("expires")),
+                    params.get("signature")
+                ),
+                CharEncoding.UTF_8
+            ),
+            Matchers.equalTo("hello")
+        );
+    }
+
+    /**
+     * DyStorage can reject a link, which was tampered with.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = DyStorage.InvalidLinkException.class)
+    public void rejectsTamperedLink() throws Exception {
+        final Bucket bucket = new MkRegion().bucket("tampered");
+        final Map<String, String> params = PresignedTest.params(
+            new Presigned(bucket, true).get("a/x.txt", "text/plain", "x.txt")
+        );
+        new DyStorage(bucket).read(
+            "a/y.txt", params.get("type"), params.get("name"),
+            Long.parseLong(params.get("expires")),
+            params.get("signature")
+        );
+    }
+
+    /**
+     * Presigned can give a local link to upload a part to the S3
+     * stand-in, which DyStorage accepts.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesLocalLinkToUploadPart() throws Exception {
+        final Bucket bucket = new MkRegion().bucket("parts");
+        final String link = new Presigned(bucket, true).part(
+            "a/big.bin", "u-1", 2
+        );
+        MatcherAssert.assertThat(link, Matchers.startsWith(DyStorage.PART));
+        final Map<String, String> params = PresignedTest.params(link);
+        final byte[] data = new byte[Tv.HUNDRED];
+        new DyStorage(bucket).write(
+            params.get("key"), params.get("upload"),
+            Integer.parseInt(params.get("number")),
+            Long.parseLong(params.get("expires")), params.get("signature"),
+            new ByteArrayInputStream(data), (long) data.length
+        );
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        bucket.ocket("a/big.bin.part-2").read(baos);
+        MatcherAssert.assertThat(baos.size(), Matchers.equalTo(Tv.HUNDRED));
+    }
+
+    /**
+     * Presigned can give no links, when the direct mode is not on
+     * in the manifest.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void givesNoLinksByDefault() throws Exception {
+        final Presigned presigned = new Presigned(
+            new MkRegion().bucket("proxied")
+        );
+        MatcherAssert.assertThat(
+            presigned.get("a/z.txt", "text/plain", "z.txt"),
+            Matchers.isEmptyString()
+        );
+        MatcherAssert.assertThat(
+            presigned.part("a/z.bin", "u-2", 1),
+            Matchers.isEmptyString()
+        );
+    }
+
+    /**
+     * Parameters of the link.
+     * @param link Link
+     * @return Names and values
+     * @throws Exception If fails
+     */
+    private static Map<String, String> params(final String link)
+        throws Exception {
+        final Map<String, String> params = new HashMap<String, String>(0);
+        for (final String pair
+            : link.substring(link.indexOf('?') + 1).split("&")) {
+            final String[] parts = pair.split("=", 2);
+            params.put(
+                parts[0], URLDecoder.decode(parts[1], CharEncoding.UTF_8)
+            );
+        }
+        return params;
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link Sequence}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class SequenceITCase {
+
+    /**
+     * Sequence can number messages of a bout densely.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void numbersMessagesDensely() throws Exception {
+        final long bout = Tv.TEN * Tv.MILLION + System.nanoTime() % Tv.MILLION;
+        final Sequence sequence = new Sequence(DyBase.connect(), bout);
+        MatcherAssert.assertThat(
+            sequence.incrementAndGet(1L), Matchers.equalTo(1L)
+        );
+        MatcherAssert.assertThat(
+            sequence.incrementAndGet(1L), Matchers.equalTo(2L)
+        );
+    }
+
+    /**
+     * Sequence can start after the latest existing message.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void startsAfterLatestMessage() throws Exception {
+        final Region region = DyBase.connect();
+        final long bout = Tv.MILLION + System.nanoTime() % Tv.MILLION;
+        region.table(DyMessages.TBL).put(
+            new Attributes()
+                .with(DyMessages.HASH, bout)
+                .with(DyMessages.RANGE, Tv.HUNDRED)
+                .with(DyMessages.ATTR_TEXT, "old one")
+                .with(DyMessages.ATTR_ALIAS, "jeff")
+                .with(DyMessages.ATTR_DATE, System.currentTimeMillis())
+        );
+        MatcherAssert.assertThat(
+            new Sequence(region, bout).incrementAndGet(1L),
+            Matchers.equalTo((long) Tv.HUNDRED + 1L)
+        );
+    }
+
+}
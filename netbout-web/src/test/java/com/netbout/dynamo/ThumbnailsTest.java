@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import com.jcabi.s3.mock.MkRegion;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Thumbnails}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class ThumbnailsTest {
+
+    /**
+     * Thumbnails can render a small copy of an image.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersThumbnailOfImage() throws Exception {
+        final Bucket bucket = new MkRegion().bucket("thumbs");
+        final Ocket target = bucket.ocket("image.png");
+        new Thumbnails(1, 1).submit(
+            target, "image/png",
+            ThumbnailsTest.source(
+                ThumbnailsTest.png(Tv.THOUSAND, Tv.FIVE * Tv.HUNDRED),
+                new AtomicInteger()
+            )
+        );
+        final long start = System.currentTimeMillis();
+        while (!target.exists()
+            && System.currentTimeMillis() - start < Tv.TEN * Tv.THOUSAND) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        target.read(baos);
+        final BufferedImage thumb = ImageIO.read(
+            new ByteArrayInputStream(baos.toByteArray())
+        );
+        MatcherAssert.assertThat(
+            thumb.getWidth(), Matchers.lessThan(Tv.THOUSAND)
+        );
+        MatcherAssert.assertThat(
+            thumb.getWidth(), Matchers.equalTo(thumb.getHeight() * 2)
+        );
+    }
+
+    /**
+     * Thumbnails can refuse an image with too many pixels and
+     * don't try it again.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void refusesHugeImageOnce() throws Exception {
+        final Thumbnails thumbnails = new Thumbnails(1, 1);
+        final Ocket target = new MkRegion().bucket("huge").ocket("huge.png");
+        final AtomicInteger opened = new AtomicInteger();
+        final Thumbnails.Source source = ThumbnailsTest.source(
+            ThumbnailsTest.png(Tv.TEN * Tv.THOUSAND, Tv.FIVE * Tv.THOUSAND),
+            opened
+        );
+        thumbnails.submit(target, "image/png", source);
+        final long start = System.currentTimeMillis();
+        while (!thumbnails.failed(target)
+            && System.currentTimeMillis() - start < Tv.TEN * Tv.THOUSAND) {
+            TimeUnit.MILLISECONDS.sleep((long) Tv.HUNDRED);
+        }
+        thumbnails.submit(target, "image/png", source);
+        MatcherAssert.assertThat(thumbnails.failed(target), Matchers.is(true));
+        MatcherAssert.assertThat(target.exists(), Matchers.is(false));
+        MatcherAssert.assertThat(opened.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * Thumbnails can tell which content types it supports.
+     */
+    @Test
+    public void supportsImagesAndDocuments() {
+        MatcherAssert.assertThat(
+            Thumbnails.supports("image/jpeg"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            Thumbnails.supports("application/pdf"), Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            Thumbnails.supports("text/plain"), Matchers.is(false)
+        );
+    }
+
+    /**
+     * Black and white PNG image.
+     * @param width Width
+     * @param height Height
+     * @return PNG content
+     * @throws IOException If fails
+     */
+    private static byte[] png(final int width, final int height)
+        throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(
+            new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY),
+            "png", baos
+        );
+        return baos.toByteArray();
+    }
+
+    /**
+     * Source of content, which counts how many times it is opened.
+     * @param content Content
+     * @param opened Counter of openings
+     * @return Source
+     */
+    private static Thumbnails.Source source(final byte[] content,
+        final AtomicInteger opened) {
+        return new Thumbnails.Source() {
+            @Override
+            public InputStream open() {
+                opened.incrementAndGet();
+                return new ByteArrayInputStream(content);
+            }
+        };
+    }
+
+}
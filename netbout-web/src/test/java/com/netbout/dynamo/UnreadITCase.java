@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.urn.URN;
+import com.netbout.spi.Aliases;
+import com.netbout.spi.Base;
+import com.netbout.spi.Bout;
+import com.netbout.spi.Inbox;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link Unread}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class UnreadITCase {
+
+    /**
+     * Unread can adjust the total.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void adjustsTotal() throws Exception {
+        final String alias = "rosalind";
+        new DyBase().user(new URN("urn:test:89651")).aliases().add(alias);
+        final Unread unread = new Unread(DyBase.connect(), alias);
+        MatcherAssert.assertThat(unread.total(), Matchers.equalTo(0L));
+        unread.add((long) Tv.FIVE);
+        unread.add(-2L);
+        MatcherAssert.assertThat(
+            unread.total(), Matchers.equalTo((long) Tv.THREE)
+        );
+    }
+
+    /**
+     * Unread can reconcile the total, which drifted below zero.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reconcilesNegativeTotal() throws Exception {
+        final Base base = new DyBase();
+        final String alias = "cordelia";
+        base.user(new URN("urn:test:89652")).aliases().add(alias);
+        final Aliases aliases = base.user(new URN("urn:test:89653")).aliases();
+        aliases.add("prospero");
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Bout bout = inbox.bout(inbox.start());
+        bout.friends().invite(alias);
+        bout.messages().post("are you there?");
+        MatcherAssert.assertThat(
+            "fan-out is not done",
+            Fanout.INSTANCE.await(TimeUnit.MINUTES.toMillis(1L))
+        );
+        final Unread unread = new Unread(DyBase.connect(), alias);
+        unread.add((long) -Tv.SEVEN);
+        MatcherAssert.assertThat(unread.total(), Matchers.equalTo(1L));
+    }
+
+    /**
+     * Unread can ignore aliases, which don't exist.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void ignoresAbsentAlias() throws Exception {
+        final String alias = "nobodyhere";
+        final Region region = DyBase.connect();
+        new Unread(region, alias).add(1L);
+        MatcherAssert.assertThat(
+            new Keyed(
+                region, DyAliases.TBL,
+                new Attributes().with(DyAliases.HASH, alias)
+            ).load().entrySet(),
+            Matchers.empty()
+        );
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest.bout;
+
+import com.google.common.cache.Cache;
+import com.jcabi.aspects.Tv;
+import com.netbout.spi.Attachment;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.StringUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link Rendered}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class RenderedTest {
+
+    /**
+     * Rendered can render the same content only once.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersContentOnce() throws Exception {
+        final Cache<String, String> cache = Rendered.cache(
+            (long) Tv.MILLION
+        );
+        final Attachment atmt = RenderedTest.attachment("**hello**", false);
+        MatcherAssert.assertThat(
+            new Rendered(1L, atmt, cache).html(),
+            Matchers.containsString("hello")
+        );
+        MatcherAssert.assertThat(
+            new Rendered(1L, atmt, cache).html(),
+            Matchers.containsString("hello")
+        );
+        Mockito.verify(atmt, Mockito.times(1)).read();
+    }
+
+    /**
+     * Rendered can read the content, which is unseen, every time.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsUnseenContent() throws Exception {
+        final Cache<String, String> cache = Rendered.cache(
+            (long) Tv.MILLION
+        );
+        final Attachment atmt = RenderedTest.attachment("unseen", true);
+        new Rendered(1L, atmt, cache).html();
+        new Rendered(1L, atmt, cache).html();
+        Mockito.verify(atmt, Mockito.times(2)).read();
+    }
+
+    /**
+     * Rendered can drop HTML, which is heavier than the cache.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void dropsHeavyHtml() throws Exception {
+        final Cache<String, String> cache = Rendered.cache(
+            (long) Tv.HUNDRED
+        );
+        final Attachment atmt = RenderedTest.attachment(
+            StringUtils.repeat("heavy ", Tv.HUNDRED), false
+        );
+        new Rendered(1L, atmt, cache).html();
+        new Rendered(1L, atmt, cache).html();
+        Mockito.verify(atmt, Mockito.times(2)).read();
+        MatcherAssert.assertThat(cache.size(), Matchers.equalTo(0L));
+    }
+
+    /**
+     * Mock markdown attachment.
+     * @param text Content
+     * @param unseen Is it unseen?
+     * @return Attachment
+     * @throws Exception If fails
+     */
+    private static Attachment attachment(final String text,
+        final boolean unseen) throws Exception {
+        final Attachment atmt = Mockito.mock(Attachment.class);
+        Mockito.doReturn("notes.md").when(atmt).name();
+        Mockito.doReturn("etag-1").when(atmt).etag();
+        Mockito.doReturn(unseen).when(atmt).unseen();
+        Mockito.doAnswer(
+            new Answer<InputStream>() {
+                @Override
+                public InputStream answer(final InvocationOnMock inv)
+                    throws Exception {
+                    return new ByteArrayInputStream(
+                        text.getBytes(CharEncoding.UTF_8)
+                    );
+                }
+            }
+        ).when(atmt).read();
+        return atmt;
+    }
+
+}
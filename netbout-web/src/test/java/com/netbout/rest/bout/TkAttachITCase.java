@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest.bout;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.http.Request;
+import com.jcabi.http.request.JdkRequest;
+import com.jcabi.http.response.RestResponse;
+import com.netbout.client.RtUser;
+import com.netbout.spi.Alias;
+import com.netbout.spi.Bout;
+import com.netbout.spi.User;
+import java.io.ByteArrayOutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.Random;
+import javax.ws.rs.core.HttpHeaders;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.CharEncoding;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Integration case for {@link TkAttach}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class TkAttachITCase {
+
+    /**
+     * Home page of Tomcat.
+     */
+    private static final String HOME = System.getProperty("takes.home");
+
+    /**
+     * TkAttach can upload a file bigger than one part of S3.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void uploadsFileBiggerThanPart() throws Exception {
+        final User user = new RtUser(URI.create(TkAttachITCase.HOME), "");
+        final Alias alias = user.aliases().iterate().iterator().next();
+        final Bout bout = alias.inbox().bout(alias.inbox().start());
+        final String name = "big.bin";
+        final byte[] content = new byte[Tv.TEN * Tv.MILLION];
+        new Random().nextBytes(content);
+        final String boundary = "AaB03x";
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(
+            String.format(
+                // @checkstyle LineLengthCheck (1 line)
+                "--%s\r\nContent-Disposition: form-data; name=\"file\"; filename=\"%s\"\r\nContent-Type: application/octet-stream\r\n\r\n",
+                boundary, name
+            ).getBytes(CharEncoding.UTF_8)
+        );
+        body.write(content);
+        body.write(
+            String.format("\r\n--%s--\r\n", boundary)
+                .getBytes(CharEncoding.UTF_8)
+        );
+        new JdkRequest(TkAttachITCase.HOME)
+            .uri().path(String.format("/b/%d/attach", bout.number())).back()
+            .method(Request.POST)
+            .header(HttpHeaders.COOKIE, "PsCookie=")
+            .header(
+                HttpHeaders.CONTENT_TYPE,
+                String.format("multipart/form-data; boundary=%s", boundary)
+            )
+            .body().set(body.toByteArray()).back()
+            .fetch()
+            .as(RestResponse.class)
+            .assertStatus(HttpURLConnection.HTTP_SEE_OTHER);
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(bout.attachments().get(name).read()),
+            Matchers.equalTo(content)
+        );
+    }
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.rest.bout;
+
+import com.jcabi.urn.URN;
+import com.netbout.mock.MkBase;
+import com.netbout.spi.Alias;
+import com.netbout.spi.Bout;
+import com.netbout.spi.User;
+import java.io.ByteArrayInputStream;
+import org.apache.commons.lang3.CharEncoding;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.takes.Request;
+import org.takes.facets.auth.RqWithAuth;
+import org.takes.rq.RqFake;
+import org.takes.rq.RqWithHeader;
+import org.takes.rs.RsPrint;
+
+/**
+ * Test case for {@link TkDownload}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 2.19
+ */
+public final class TkDownloadTest {
+
+    /**
+     * TkDownload can return a range of bytes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void returnsRangeOfBytes() throws Exception {
+        final MkBase base = new MkBase();
+        final String urn = "urn:test:1";
+        final Bout bout = TkDownloadTest.bout(base, urn);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkDownload(base).act(
+                    new RqWithHeader(
+                        TkDownloadTest.request(urn, bout), "Range", "bytes=7-"
+                    )
+                )
+            ).print(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206 "),
+                Matchers.containsString("Content-Range: bytes 7-11/12"),
+                Matchers.endsWith("\r\n\r\nworld")
+            )
+        );
+    }
+
+    /**
+     * TkDownload can ignore an invalid range and return entire content.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void ignoresInvertedRange() throws Exception {
+        final MkBase base = new MkBase();
+        final String urn = "urn:test:3";
+        final Bout bout = TkDownloadTest.bout(base, urn);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkDownload(base).act(
+                    new RqWithHeader(
+                        TkDownloadTest.request(urn, bout),
+                        "Range", "bytes=500-100"
+                    )
+                )
+            ).print(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 200 "),
+                Matchers.endsWith("\r\n\r\nhello, world")
+            )
+        );
+    }
+
+    /**
+     * TkDownload can reject a range starting after the end of content.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rejectsRangeAfterEnd() throws Exception {
+        final MkBase base = new MkBase();
+        final String urn = "urn:test:4";
+        final Bout bout = TkDownloadTest.bout(base, urn);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkDownload(base).act(
+                    new RqWithHeader(
+                        TkDownloadTest.request(urn, bout),
+                        "Range", "bytes=500-"
+                    )
+                )
+            ).print(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 416 "),
+                Matchers.containsString("Content-Range: bytes */12")
+            )
+        );
+    }
+
+    /**
+     * TkDownload can tell that the attachment is not modified.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void tellsThatAttachmentIsNotModified() throws Exception {
+        final MkBase base = new MkBase();
+        final String urn = "urn:test:2";
+        final Bout bout = TkDownloadTest.bout(base, urn);
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkDownload(base).act(
+                    new RqWithHeader(
+                        TkDownloadTest.request(urn, bout),
+                        "If-None-Match", "\"e1\""
+                    )
+                )
+            ).print(),
+            Matchers.startsWith("HTTP/1.1 304 ")
+        );
+    }
+
+    /**
+     * Make a bout with an attachment.
+     * @param base Base
+     * @param urn URN of the user
+     * @return Bout
+     * @throws Exception If there is some problem inside
+     */
+    private static Bout bout(final MkBase base, final String urn)
+        throws Exception {
+        final User user = base.user(new URN(urn));
+        user.aliases().add("jeff");
+        final Alias alias = user.aliases().iterate().iterator().next();
+        final Bout bout = alias.inbox().bout(alias.inbox().start());
+        bout.friends().invite(alias.name());
+        bout.attachments().create("hello.txt");
+        bout.attachments().get("hello.txt").write(
+            new ByteArrayInputStream(
+                "hello, world".getBytes(CharEncoding.UTF_8)
+            ),
+            "text/plain", "e1"
+        );
+        return bout;
+    }
+
+    /**
+     * Make a request to download the attachment.
+     * @param urn URN of the user
+     * @param bout Bout
+     * @return Request
+     * @throws Exception If there is some problem inside
+     */
+    private static Request request(final String urn, final Bout bout)
+        throws Exception {
+        return new RqWithHeader(
+            new RqWithAuth(
+                urn,
+                new RqFake(
+                    "GET",
+                    String.format(
+                        "/b/%d/download?name=hello.txt", bout.number()
+                    )
+                )
+            ),
+            "X-Netbout-Bout",
+            Long.toString(bout.number())
+        );
+    }
+
+}